@@ -5,7 +5,10 @@ plugins {
 }
 
 dependencies {
+    implementation(projects.lib.bridgeModel)
+    implementation(libs.httpcore5)
     compileOnly(libs.jaywayJsonPath)
     testImplementation(libs.jaywayJsonPath)
     testImplementation(libs.selfie)
+    testImplementation(projects.lib.core)
 }
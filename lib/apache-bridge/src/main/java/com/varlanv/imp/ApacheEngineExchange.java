@@ -0,0 +1,320 @@
+package com.varlanv.imp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncServerExchangeHandler;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.ResponseChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.jspecify.annotations.Nullable;
+
+// One instance per request. Request entity is accumulated chunk by chunk on the I/O reactor thread without blocking,
+// up to maxRequestBodySize, bodies over it are answered with 413 and dropped.
+// Response stream is read on handler thread into ApacheResponsePipe, which I/O reactor thread drains as the channel
+// becomes writable.
+final class ApacheEngineExchange implements AsyncServerExchangeHandler, EngineExchange {
+
+    private static final int MAX_CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_PRESIZED_BODY = 1024 * 1024;
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final ApacheEngineServer server;
+    private final int maxRequestBodySize;
+    private final AtomicBoolean responseSent = new AtomicBoolean();
+    private String method = "";
+    private URI requestUri = URI.create("/");
+    private Map<String, List<String>> requestHeaders = Map.of();
+    @Nullable private ByteArrayOutputStream requestBody;
+    private long requestBodyLength;
+    @Nullable private ResponseChannel responseChannel;
+    @Nullable private HttpContext context;
+    private volatile byte[] responseBody = EMPTY_BODY;
+    private volatile int responseBodyOffset;
+    @Nullable private volatile InputStream responseStream;
+    @Nullable private volatile ApacheResponsePipe responsePipe;
+    @Nullable private ByteBuffer streamChunk;
+
+    ApacheEngineExchange(ApacheEngineServer server, int maxRequestBodySize) {
+        this.server = server;
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    @Override
+    public void handleRequest(
+            HttpRequest request,
+            @Nullable EntityDetails entityDetails,
+            ResponseChannel responseChannel,
+            HttpContext context)
+            throws HttpException, IOException {
+        this.responseChannel = responseChannel;
+        this.context = context;
+        this.method = request.getMethod();
+        if (entityDetails != null) {
+            var contentLength = entityDetails.getContentLength();
+            if (contentLength > maxRequestBodySize) {
+                // answered before body arrives, consume then drops whatever client still sends. HttpCore answers
+                // Expect: 100-continue before exchange sees request, so such client gets 100 Continue and then 413
+                sendQuietly(413);
+                return;
+            }
+            requestBody = new ByteArrayOutputStream(
+                    contentLength > 0 && contentLength <= MAX_PRESIZED_BODY ? (int) contentLength : 256);
+        }
+        try {
+            this.requestUri = new URI(request.getRequestUri());
+        } catch (URISyntaxException e) {
+            sendQuietly(400);
+            return;
+        }
+        var headers = EngineHeaders.newHeaders();
+        for (var header : request.getHeaders()) {
+            headers.computeIfAbsent(EngineHeaders.normalizeKey(header.getName()), k -> new ArrayList<>(1))
+                    .add(header.getValue());
+        }
+        this.requestHeaders = headers;
+        if (entityDetails == null) {
+            server.dispatch(this);
+        }
+    }
+
+    @Override
+    public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+        // whole body is needed for matching anyway, so there is no point in throttling the client, body size is
+        // bounded in consume instead
+        capacityChannel.update(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void consume(ByteBuffer src) {
+        var body = requestBody;
+        requestBodyLength += src.remaining();
+        if (body != null && requestBodyLength > maxRequestBodySize) {
+            // chunked body grew over limit, bytes received so far are dropped too
+            requestBody = null;
+            body = null;
+            if (!isResponseSent()) {
+                sendQuietly(413);
+            }
+        }
+        if (body == null) {
+            src.position(src.limit());
+        } else if (src.hasArray()) {
+            body.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            while (src.hasRemaining()) {
+                body.write(src.get());
+            }
+        }
+    }
+
+    @Override
+    public void streamEnd(@Nullable List<? extends Header> trailers) {
+        if (!isResponseSent()) {
+            server.dispatch(this);
+        }
+    }
+
+    @Override
+    public String requestMethod() {
+        return method;
+    }
+
+    @Override
+    public URI requestUri() {
+        return requestUri;
+    }
+
+    @Override
+    public Map<String, List<String>> requestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public byte[] readRequestBody() {
+        var body = requestBody;
+        return body == null ? EMPTY_BODY : body.toByteArray();
+    }
+
+    @Override
+    public void sendResponse(int statusCode, Map<String, List<String>> headers, byte[] body) throws IOException {
+        markResponseSent();
+        responseBody = body;
+        responseBodyOffset = 0;
+        commitResponse(statusCode, headers, body.length);
+    }
+
+    @Override
+    public void streamResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long contentLength)
+            throws IOException {
+        markResponseSent();
+        if (server.isHandledOnReactorThread()) {
+            // with caller thread executor handler itself runs on I/O reactor thread, so there is no other thread to
+            // read the stream, and it is pulled in produce only when channel can accept more data
+            responseStream = body;
+            commitResponse(statusCode, headers, contentLength);
+            return;
+        }
+        try (body) {
+            var pipe = new ApacheResponsePipe();
+            responsePipe = pipe;
+            if (commitResponse(statusCode, headers, contentLength)) {
+                pipe.transferFrom(body);
+            }
+        }
+    }
+
+    private void markResponseSent() {
+        if (!responseSent.compareAndSet(false, true)) {
+            throw new IllegalStateException("Response was already sent for this exchange");
+        }
+    }
+
+    // returns whether response has body, that is yet to be produced
+    private boolean commitResponse(int statusCode, Map<String, List<String>> headers, long contentLength)
+            throws IOException {
+        var status = ImpHttpStatus.forCodeNullable(statusCode);
+        var response = status == null
+                ? new BasicHttpResponse(statusCode)
+                : new BasicHttpResponse(statusCode, status.description());
+        for (var entry : headers.entrySet()) {
+            var key = entry.getKey();
+            // these are set by protocol interceptors, which reject responses where they are already present
+            if (EngineHeaders.isManagedByEngine(key)) {
+                continue;
+            }
+            for (var value : entry.getValue()) {
+                response.addHeader(key, value);
+            }
+        }
+        var hasBody = statusCode >= 200 && statusCode != 204 && statusCode != 304;
+        try {
+            Preconditions.nonNull(responseChannel, "responseChannel")
+                    .sendResponse(
+                            response,
+                            // content type is already present in headers, so it is not repeated in entity details
+                            // negative content length results in chunked transfer encoding
+                            hasBody ? new BasicEntityDetails(contentLength, null) : null,
+                            context);
+        } catch (HttpException e) {
+            throw new IOException(e);
+        }
+        if (!hasBody) {
+            releaseResources();
+        }
+        return hasBody;
+    }
+
+    @Override
+    public int available() {
+        var pipe = responsePipe;
+        if (pipe != null) {
+            return pipe.available();
+        }
+        return responseStream == null ? responseBody.length - responseBodyOffset : MAX_CHUNK_SIZE;
+    }
+
+    @Override
+    public void produce(DataStreamChannel channel) throws IOException {
+        var pipe = responsePipe;
+        if (pipe != null) {
+            pipe.produce(channel);
+            return;
+        }
+        var stream = responseStream;
+        if (stream != null) {
+            produceFromStream(stream, channel);
+            return;
+        }
+        var body = responseBody;
+        var offset = responseBodyOffset;
+        while (offset < body.length) {
+            var written = channel.write(ByteBuffer.wrap(body, offset, Math.min(MAX_CHUNK_SIZE, body.length - offset)));
+            if (written == 0) {
+                break;
+            }
+            offset += written;
+        }
+        responseBodyOffset = offset;
+        if (offset == body.length) {
+            channel.endStream();
+        }
+    }
+
+    private void produceFromStream(InputStream stream, DataStreamChannel channel) throws IOException {
+        var chunk = streamChunk;
+        if (chunk == null) {
+            chunk = ByteBuffer.allocate(MAX_CHUNK_SIZE);
+            chunk.limit(0);
+            streamChunk = chunk;
+        }
+        while (true) {
+            if (!chunk.hasRemaining()) {
+                var read = stream.read(chunk.array(), 0, chunk.capacity());
+                if (read < 0) {
+                    releaseResources();
+                    channel.endStream();
+                    return;
+                }
+                chunk.clear().limit(read);
+            }
+            channel.write(chunk);
+            if (chunk.hasRemaining()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        // connection level failures, such as client disconnects, are not reported, same as in other engines
+        releaseResources();
+    }
+
+    @Override
+    public void releaseResources() {
+        requestBody = null;
+        responseBody = EMPTY_BODY;
+        streamChunk = null;
+        var pipe = responsePipe;
+        if (pipe != null) {
+            pipe.close();
+        }
+        var stream = responseStream;
+        if (stream != null) {
+            responseStream = null;
+            try {
+                stream.close();
+            } catch (IOException ignored) {
+                // noop
+            }
+        }
+    }
+
+    boolean isResponseSent() {
+        return responseSent.get();
+    }
+
+    void sendQuietly(int statusCode) {
+        try {
+            sendResponse(statusCode, Map.of(), EMPTY_BODY);
+        } catch (IOException | IllegalStateException e) {
+            ImpLog.error(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.varlanv.imp;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.io.CloseMode;
+import org.jspecify.annotations.Nullable;
+
+final class ApacheEngineServer implements EngineServer {
+
+    private final int port;
+    @Nullable private volatile HttpAsyncServer server;
+    @Nullable private volatile ExecutorService executorService;
+    private volatile EngineHandler handler = exchange -> {
+        throw new IllegalStateException("Server is not started");
+    };
+
+    ApacheEngineServer(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public int port() {
+        return port;
+    }
+
+    @Override
+    public void start(@Nullable ExecutorService executorService, EngineHandler handler) {
+        var httpServer = Preconditions.nonNull(server, "server");
+        this.executorService = executorService;
+        this.handler = handler;
+        httpServer.start();
+        try {
+            httpServer.listen(new InetSocketAddress(port), URIScheme.HTTP).get();
+        } catch (ExecutionException e) {
+            httpServer.close(CloseMode.IMMEDIATE);
+            throw new IllegalStateException(String.format("Failed to listen on port [ %d ]", port), e.getCause());
+        } catch (InterruptedException e) {
+            httpServer.close(CloseMode.IMMEDIATE);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while listening on port [ %d ]", port), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        var httpServer = server;
+        if (httpServer == null) {
+            return;
+        }
+        httpServer.initiateShutdown();
+        try {
+            httpServer.awaitShutdown(ApacheServerEngine.shutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            httpServer.close(CloseMode.IMMEDIATE);
+        }
+    }
+
+    void bound(HttpAsyncServer server) {
+        this.server = server;
+    }
+
+    boolean isHandledOnReactorThread() {
+        return executorService == null;
+    }
+
+    // called from I/O reactor thread once request body is fully received
+    void dispatch(ApacheEngineExchange exchange) {
+        var executor = executorService;
+        if (executor == null) {
+            handle(exchange);
+        } else {
+            try {
+                executor.execute(() -> handle(exchange));
+            } catch (RejectedExecutionException e) {
+                exchange.sendQuietly(503);
+            }
+        }
+    }
+
+    private void handle(ApacheEngineExchange exchange) {
+        try {
+            handler.handle(exchange);
+            if (!exchange.isResponseSent()) {
+                exchange.sendResponse(500, Map.of(), new byte[0]);
+            }
+        } catch (Exception e) {
+            ImpLog.error(e);
+            if (!exchange.isResponseSent()) {
+                try {
+                    exchange.sendResponse(
+                            500,
+                            Map.of(),
+                            Objects.requireNonNullElse(e.getMessage(), "").getBytes(StandardCharsets.UTF_8));
+                } catch (Exception sendException) {
+                    ImpLog.error(sendException);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.jspecify.annotations.Nullable;
+
+// Bounded buffer between handler thread, that reads response stream and blocks while buffer is full, and I/O reactor
+// thread, that drains buffer into connection whenever it is writable. This way slow or blocking response streams
+// never stall the reactor, and at most CAPACITY bytes of response are held in memory.
+final class ApacheResponsePipe {
+
+    static final int CAPACITY = 64 * 1024;
+    private static final int READ_CHUNK_SIZE = 16 * 1024;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    // in write mode, bytes between 0 and position are waiting to be written to connection
+    private final ByteBuffer buffer = ByteBuffer.allocate(CAPACITY);
+    @Nullable private DataStreamChannel channel;
+    private boolean endOfStream;
+    private boolean streamEnded;
+    private boolean closed;
+
+    // called from handler thread, returns when whole stream is buffered or when exchange is closed
+    void transferFrom(InputStream stream) throws IOException {
+        var chunk = new byte[READ_CHUNK_SIZE];
+        int read;
+        while ((read = stream.read(chunk)) >= 0) {
+            if (!write(chunk, read)) {
+                return;
+            }
+        }
+        lock.lock();
+        try {
+            endOfStream = true;
+        } finally {
+            lock.unlock();
+        }
+        requestOutput();
+    }
+
+    // called from I/O reactor thread
+    void produce(DataStreamChannel channel) throws IOException {
+        var endStream = false;
+        lock.lock();
+        try {
+            this.channel = channel;
+            if (buffer.position() > 0) {
+                buffer.flip();
+                // write until channel stops accepting, reactor calls produce again once it is writable
+                var written = 1;
+                while (buffer.hasRemaining() && written > 0) {
+                    written = channel.write(buffer);
+                }
+                buffer.compact();
+                drained.signal();
+            }
+            if (endOfStream && !streamEnded && buffer.position() == 0) {
+                streamEnded = true;
+                endStream = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (endStream) {
+            channel.endStream();
+        }
+    }
+
+    int available() {
+        lock.lock();
+        try {
+            return buffer.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called when exchange is completed or failed, wakes up handler thread waiting for buffer space
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean write(byte[] chunk, int length) throws IOException {
+        var offset = 0;
+        while (offset < length) {
+            lock.lock();
+            try {
+                while (!closed && !buffer.hasRemaining()) {
+                    drained.await();
+                }
+                if (closed) {
+                    return false;
+                }
+                var count = Math.min(length - offset, buffer.remaining());
+                buffer.put(chunk, offset, count);
+                offset += count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing response body");
+            } finally {
+                lock.unlock();
+            }
+            // outside of lock, since channel takes its own session lock, which is held by reactor when calling produce
+            requestOutput();
+        }
+        return true;
+    }
+
+    private void requestOutput() {
+        DataStreamChannel current;
+        lock.lock();
+        try {
+            current = channel;
+        } finally {
+            lock.unlock();
+        }
+        // before first produce call channel is unknown, but reactor calls produce on its own once response is committed
+        if (current != null) {
+            current.requestOutput();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.protocol.HttpProcessorBuilder;
+import org.apache.hc.core5.http.protocol.ResponseConnControl;
+import org.apache.hc.core5.http.protocol.ResponseContent;
+import org.apache.hc.core5.http.protocol.ResponseDate;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+
+public final class ApacheServerEngine implements ServerEngine {
+
+    static final String NAME = "apache";
+    private static final int BACKLOG = 1024;
+
+    private final int ioThreadCount;
+    private final int maxRequestBodySize;
+
+    public ApacheServerEngine() {
+        this(IOReactorConfig.DEFAULT.getIoThreadCount());
+    }
+
+    ApacheServerEngine(int ioThreadCount) {
+        this(ioThreadCount, EngineLimits.MAX_REQUEST_BODY_SIZE);
+    }
+
+    ApacheServerEngine(int ioThreadCount, int maxRequestBodySize) {
+        this.ioThreadCount = ioThreadCount;
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public EngineServer bind(int port) throws IOException {
+        // reactor binds port only once started, which happens in EngineServer#start, so port availability is checked
+        // up front to let FutureServer retry on BindException
+        try (var probe = new ServerSocket()) {
+            probe.bind(new InetSocketAddress(port));
+        }
+        var engineServer = new ApacheEngineServer(port);
+        var server = AsyncServerBootstrap.bootstrap()
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreadCount)
+                        .setTcpNoDelay(true)
+                        .setBacklogSize(BACKLOG)
+                        .build())
+                // default processor also adds Server header, which other engines do not send
+                .setHttpProcessor(HttpProcessorBuilder.create()
+                        .addAll(new ResponseDate(), new ResponseContent(), new ResponseConnControl())
+                        .build())
+                // default router answers 421 to requests with authority other than local host name, while every
+                // request should reach the handler, same as in other engines
+                .setRequestRouter(
+                        (request, context) -> () -> new ApacheEngineExchange(engineServer, maxRequestBodySize))
+                .create();
+        engineServer.bound(server);
+        return engineServer;
+    }
+
+    static TimeValue shutdownTimeout() {
+        return TimeValue.ofSeconds(1);
+    }
+}
@@ -0,0 +1,120 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ApacheResponsePipeTest implements FastTest {
+
+    @Test
+    @DisplayName("should read at most buffer capacity ahead of connection, and stop reading once closed")
+    void should_read_at_most_buffer_capacity_ahead_of_connection_and_stop_reading_once_closed() throws Exception {
+        var subject = new ApacheResponsePipe();
+        var bytesRead = new AtomicLong();
+        var endless = new InputStream() {
+
+            @Override
+            public int read() {
+                bytesRead.incrementAndGet();
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                bytesRead.addAndGet(length);
+                return length;
+            }
+        };
+        var writer = new Thread(() -> {
+            try {
+                subject.transferFrom(endless);
+            } catch (Exception e) {
+                BaseTest.hide(e);
+            }
+        });
+        writer.start();
+
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(writer.getState()).isEqualTo(Thread.State.WAITING);
+        assertThat(subject.available()).isEqualTo(ApacheResponsePipe.CAPACITY);
+        assertThat(bytesRead.get()).isLessThanOrEqualTo(ApacheResponsePipe.CAPACITY + 16 * 1024);
+
+        subject.close();
+        writer.join(5_000);
+
+        assertThat(writer.isAlive()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should drain buffered bytes, and end stream only once after last byte")
+    void should_drain_buffered_bytes_and_end_stream_only_once_after_last_byte() throws Exception {
+        var subject = new ApacheResponsePipe();
+        var body = new byte[1000];
+        for (var idx = 0; idx < body.length; idx++) {
+            body[idx] = (byte) idx;
+        }
+        var channel = new LimitedChannel(300);
+
+        subject.produce(channel);
+        subject.transferFrom(new ByteArrayInputStream(body));
+        subject.produce(channel);
+        subject.produce(channel);
+
+        assertThat(channel.written.toByteArray()).isEqualTo(body);
+        assertThat(channel.endStreamCount).isEqualTo(1);
+        // channel was known since first produce, so buffered chunk and end of stream both requested output
+        assertThat(channel.outputRequests).isEqualTo(2);
+        assertThat(subject.available()).isZero();
+    }
+
+    // Accepts at most given number of bytes per write, like a session with small output buffer
+    private static final class LimitedChannel implements DataStreamChannel {
+
+        private final int maxBytesPerWrite;
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private int endStreamCount;
+        private int outputRequests;
+
+        LimitedChannel(int maxBytesPerWrite) {
+            this.maxBytesPerWrite = maxBytesPerWrite;
+        }
+
+        @Override
+        public void requestOutput() {
+            outputRequests++;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            var count = Math.min(maxBytesPerWrite, src.remaining());
+            for (var idx = 0; idx < count; idx++) {
+                written.write(src.get());
+            }
+            return count;
+        }
+
+        @Override
+        public void endStream(List<? extends Header> trailers) {
+            endStreamCount++;
+        }
+
+        @Override
+        public void endStream() {
+            endStreamCount++;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ApacheServerEngineTest implements FastTest {
+
+    @Test
+    @DisplayName("should pass request to handler regardless of requested authority")
+    void should_pass_request_to_handler_regardless_of_requested_authority() throws Exception {
+        useServer(new ApacheServerEngine(), null, ApacheServerEngineTest::echoPath, port -> {
+            var response = exchange(
+                    port,
+                    "GET /first HTTP/1.1\r\nHost: other.example\r\n\r\n"
+                            + "GET http://another.example:1234/second HTTP/1.1\r\nHost: another.example:1234\r\n"
+                            + "Connection: close\r\n\r\n");
+
+            assertThat(response).startsWith("HTTP/1.1 200 OK\r\n").contains("path:/first").endsWith("path:/second");
+        });
+    }
+
+    @Test
+    @DisplayName("should not accept connections until server is started")
+    void should_not_accept_connections_until_server_is_started() throws Exception {
+        var server = new FutureServer(PortSupplier.ofSupplier(this::randomPort, true), new ApacheServerEngine())
+                .createServer();
+        try {
+            assertThatExceptionOfType(ConnectException.class).isThrownBy(() -> new Socket("localhost", server.port()));
+
+            server.actualServer().start(null, ApacheServerEngineTest::echoPath);
+
+            assertThat(exchange(server.port(), "GET /started HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"))
+                    .endsWith("path:/started");
+        } finally {
+            server.actualServer().stop();
+        }
+    }
+
+    @Test
+    @DisplayName("should serve other connections of same reactor thread while response stream is blocked")
+    void should_serve_other_connections_of_same_reactor_thread_while_response_stream_is_blocked() throws Exception {
+        var release = new CountDownLatch(1);
+        var executor = Executors.newCachedThreadPool();
+        try {
+            EngineHandler handler = exchange -> {
+                if ("/blocking".equals(exchange.requestUri().getPath())) {
+                    exchange.streamResponse(200, Map.of(), new BlockingInputStream(release), -1);
+                } else {
+                    echoPath(exchange);
+                }
+            };
+            useServer(new ApacheServerEngine(1), executor, handler, port -> {
+                try (var blocked = new Socket("localhost", port)) {
+                    blocked.setSoTimeout(5_000);
+                    blocked.getOutputStream()
+                            .write("GET /blocking HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                                    .getBytes(StandardCharsets.ISO_8859_1));
+
+                    assertThat(exchange(port, "GET /fast HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"))
+                            .endsWith("path:/fast");
+
+                    release.countDown();
+                    var blockedResponse = new String(blocked.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                    assertThat(blockedResponse).contains("before").endsWith("0\r\n\r\n");
+                }
+            });
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("should stream large body of unknown length both from executor thread and from reactor thread")
+    void should_stream_large_body_of_unknown_length_both_from_executor_thread_and_from_reactor_thread()
+            throws Exception {
+        var body = new byte[ApacheResponsePipe.CAPACITY * 8 + 3];
+        for (var idx = 0; idx < body.length; idx++) {
+            body[idx] = (byte) idx;
+        }
+        EngineHandler handler =
+                exchange -> exchange.streamResponse(200, Map.of(), new ByteArrayInputStream(body), -1);
+        var executor = Executors.newCachedThreadPool();
+        try {
+            for (var executorService : Arrays.asList(executor, null)) {
+                useServer(new ApacheServerEngine(), executorService, handler, port -> {
+                    var response = sendHttpRequest(
+                                    HttpRequest.newBuilder(new URI(String.format("http://localhost:%d/", port)))
+                                            .build(),
+                                    HttpResponse.BodyHandlers.ofByteArray())
+                            .join();
+
+                    assertThat(response.statusCode()).isEqualTo(200);
+                    assertThat(response.headers().firstValue("transfer-encoding")).hasValue("chunked");
+                    assertThat(response.body()).isEqualTo(body);
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("should reject declared and chunked body over limit with 413 without calling handler")
+    void should_reject_declared_and_chunked_body_over_limit_with_413_without_calling_handler() throws Exception {
+        var handled = new AtomicInteger();
+        EngineHandler handler = exchange -> {
+            handled.incrementAndGet();
+            echoPath(exchange);
+        };
+        useServer(new ApacheServerEngine(1, 16), null, handler, port -> {
+            var declared = exchange(
+                    port,
+                    "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 17\r\nConnection: close\r\n\r\n"
+                            + "a".repeat(17));
+            var chunked = exchange(
+                    port,
+                    "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n"
+                            + "8\r\naaaaaaaa\r\n9\r\nbbbbbbbbb\r\n0\r\n\r\n");
+            var withinLimit = exchange(
+                    port,
+                    "POST /within HTTP/1.1\r\nHost: localhost\r\nContent-Length: 16\r\nConnection: close\r\n\r\n"
+                            + "a".repeat(16));
+
+            assertThat(declared).startsWith("HTTP/1.1 413 ");
+            assertThat(chunked).startsWith("HTTP/1.1 413 ");
+            assertThat(withinLimit).startsWith("HTTP/1.1 200 OK\r\n").endsWith("path:/within");
+            assertThat(handled).hasValue(1);
+        });
+    }
+
+    @Test
+    @DisplayName("should throw exception if failed to acquire specific port within available retries")
+    void should_throw_exception_if_failed_to_acquire_specific_port_within_available_retries() throws Exception {
+        var engine = new ApacheServerEngine();
+        var occupied = engine.bind(randomPort());
+        occupied.start(null, ApacheServerEngineTest::echoPath);
+        var futureServer = new FutureServer(PortSupplier.fixed(occupied.port()), engine);
+
+        try {
+            assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(futureServer::createServer)
+                    .withMessage("Could not acquire port [%d] after [5] retries - port is in use", occupied.port());
+        } finally {
+            occupied.stop();
+        }
+    }
+
+    private void useServer(
+            ApacheServerEngine engine,
+            @Nullable ExecutorService executorService,
+            EngineHandler handler,
+            ThrowingConsumer<Integer> action)
+            throws Exception {
+        var server = new FutureServer(PortSupplier.ofSupplier(this::randomPort, true), engine).createServer();
+        try {
+            server.actualServer().start(executorService, handler);
+            action.accept(server.port());
+        } finally {
+            server.actualServer().stop();
+        }
+    }
+
+    private static String exchange(int port, String request) throws IOException {
+        try (var socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5_000);
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void echoPath(EngineExchange exchange) throws IOException {
+        exchange.sendResponse(
+                200, Map.of(), ("path:" + exchange.requestUri().getPath()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns few bytes, then blocks until released, then ends
+    private static final class BlockingInputStream extends InputStream {
+
+        private final CountDownLatch release;
+        private final InputStream before = new ByteArrayInputStream("before".getBytes(StandardCharsets.UTF_8));
+
+        BlockingInputStream(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var next = before.read();
+            if (next >= 0) {
+                return next;
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            // first read returns all bytes before blocking, so that they are sent while stream is blocked
+            var read = before.read(buffer, offset, length);
+            return read > 0 ? read : read();
+        }
+    }
+}
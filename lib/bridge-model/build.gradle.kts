@@ -1,11 +1,9 @@
 plugins {
-    java
+    `java-library`
     alias(libs.plugins.internalConvention)
     alias(libs.plugins.testKonvence)
 }
 
 dependencies {
-    compileOnly(libs.jaywayJsonPath)
-    testImplementation(libs.jaywayJsonPath)
-    testImplementation(libs.selfie)
+    api(projects.lib.shared)
 }
@@ -0,0 +1,49 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+
+public interface EngineExchange {
+
+    String requestMethod();
+
+    URI requestUri();
+
+    /** Case-insensitive view of request headers, see {@link EngineHeaders#newHeaders()}. */
+    Map<String, List<String>> requestHeaders();
+
+    byte[] readRequestBody() throws IOException;
+
+    /**
+     * Sends complete response. Must be called at most once per exchange. Content-Length, Transfer-Encoding, Date and
+     * Connection headers are managed by engine. Body array can be shared between responses, and must not be modified.
+     */
+    void sendResponse(int statusCode, Map<String, List<String>> headers, byte[] body) throws IOException;
+
+    /**
+     * Sends response with body copied from given stream through a bounded buffer, and closes the stream. Content length
+     * of {@code -1} means that length is unknown, and chunked transfer encoding should be used. Default implementation
+     * reads whole body into memory, engines are expected to override it.
+     */
+    default void streamResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long contentLength)
+            throws IOException {
+        try (body) {
+            sendResponse(statusCode, headers, body.readAllBytes());
+        }
+    }
+
+    /**
+     * Sends response with first {@code length} bytes of given file channel, which is positioned at 0, and closes the
+     * channel. Engines are expected to avoid copying file contents onto the heap where transport allows it. Default
+     * implementation streams file through {@link #streamResponse(int, Map, InputStream, long)}.
+     */
+    default void sendFileResponse(int statusCode, Map<String, List<String>> headers, FileChannel file, long length)
+            throws IOException {
+        streamResponse(statusCode, headers, Channels.newInputStream(file), length);
+    }
+}
@@ -0,0 +1,9 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface EngineHandler {
+
+    void handle(EngineExchange exchange) throws IOException;
+}
@@ -0,0 +1,45 @@
+package com.varlanv.imp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class EngineHeaders {
+
+    private EngineHeaders() {}
+
+    // Same shape as com.sun.net.httpserver.Headers, so matchers behave identically regardless of engine
+    public static Map<String, List<String>> newHeaders() {
+        return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    public static void putAll(Map<String, List<String>> target, Map<String, List<String>> source) {
+        for (var entry : source.entrySet()) {
+            put(target, entry.getKey(), entry.getValue());
+        }
+    }
+
+    public static void put(Map<String, List<String>> target, String key, List<String> values) {
+        target.put(normalizeKey(key), values);
+    }
+
+    // Headers that engines set from response itself, values given with response are ignored
+    public static boolean isManagedByEngine(String key) {
+        return "Content-Length".equalsIgnoreCase(key)
+                || "Transfer-Encoding".equalsIgnoreCase(key)
+                || "Date".equalsIgnoreCase(key)
+                || "Connection".equalsIgnoreCase(key);
+    }
+
+    public static String normalizeKey(String key) {
+        var chars = key.trim().toCharArray();
+        if (chars.length == 0) {
+            throw new IllegalArgumentException("Empty header key");
+        }
+        chars[0] = Character.toUpperCase(chars[0]);
+        for (var idx = 1; idx < chars.length; idx++) {
+            chars[idx] = Character.toLowerCase(chars[idx]);
+        }
+        return new String(chars);
+    }
+}
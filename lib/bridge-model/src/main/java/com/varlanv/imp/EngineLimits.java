@@ -0,0 +1,9 @@
+package com.varlanv.imp;
+
+public final class EngineLimits {
+
+    // Requests with larger body are answered with 413 by every engine, and never reach request handler
+    public static final int MAX_REQUEST_BODY_SIZE = 64 * 1024 * 1024;
+
+    private EngineLimits() {}
+}
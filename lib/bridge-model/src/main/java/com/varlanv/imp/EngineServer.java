@@ -0,0 +1,17 @@
+package com.varlanv.imp;
+
+import java.util.concurrent.ExecutorService;
+import org.jspecify.annotations.Nullable;
+
+public interface EngineServer {
+
+    int port();
+
+    /**
+     * Starts serving requests. When {@code executorService} is null, handler is invoked on the thread that received
+     * the request.
+     */
+    void start(@Nullable ExecutorService executorService, EngineHandler handler);
+
+    void stop();
+}
@@ -0,0 +1,74 @@
+package com.varlanv.imp;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Immutable response headers that are resolved once and sent with many responses. Header lines are serialized when
+ * instance is created, so that engines which write header block themselves can append it as is, see
+ * {@link #serializedLines()}.
+ */
+public final class FrozenHeaders extends AbstractMap<String, List<String>> {
+
+    private final Map<String, List<String>> headers;
+    private final String serializedLines;
+
+    private FrozenHeaders(Map<String, List<String>> headers) {
+        this.headers = headers;
+        var lines = new StringBuilder(headers.size() * 32);
+        for (var entry : headers.entrySet()) {
+            var key = entry.getKey();
+            if (EngineHeaders.isManagedByEngine(key)) {
+                continue;
+            }
+            for (var value : entry.getValue()) {
+                lines.append(key).append(": ").append(value).append("\r\n");
+            }
+        }
+        this.serializedLines = lines.toString();
+    }
+
+    public static FrozenHeaders of(Map<String, List<String>> headers) {
+        if (headers instanceof FrozenHeaders) {
+            return (FrozenHeaders) headers;
+        }
+        var copy = new LinkedHashMap<String, List<String>>(headers.size() * 2);
+        for (var entry : headers.entrySet()) {
+            copy.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return new FrozenHeaders(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * All header lines in {@code Key: value\r\n} form, one line per value, in iteration order of this map. Headers
+     * managed by engine are left out, see {@link EngineExchange#sendResponse(int, Map, byte[])}.
+     */
+    public String serializedLines() {
+        return serializedLines;
+    }
+
+    @Override
+    public @Nullable List<String> get(@Nullable Object key) {
+        return headers.get(key);
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return headers.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return headers.size();
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return headers.entrySet();
+    }
+}
@@ -0,0 +1,19 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+
+/**
+ * Server back-end used by imp server templates. Implementations are discovered with {@link java.util.ServiceLoader},
+ * and are selected by {@link #name()}.
+ */
+public interface ServerEngine {
+
+    String name();
+
+    /**
+     * Binds server socket to given port, without accepting requests until {@link EngineServer#start} is called.
+     *
+     * @throws java.net.BindException if port is already in use, so that another port can be tried
+     */
+    EngineServer bind(int port) throws IOException;
+}
@@ -6,6 +6,7 @@ plugins {
 
 dependencies {
     api(projects.lib.shared)
+    api(projects.lib.bridgeModel)
     compileOnly(libs.jaywayJsonPath)
     testImplementation(libs.jaywayJsonPath)
     testImplementation(libs.selfie)
@@ -0,0 +1,31 @@
+package com.varlanv.imp;
+
+import java.util.Arrays;
+
+// Matching of raw request body bytes, so that body conditions on literals do not need to decode whole body to String.
+// For well-formed UTF-8 body, result is the same as for decoded body and UTF-8 bytes of the literal.
+interface BodyBytes {
+
+    static boolean contains(byte[] body, byte[] bytes) {
+        if (bytes.length == 0) {
+            return true;
+        }
+        var first = bytes[0];
+        var last = body.length - bytes.length;
+        for (var idx = 0; idx <= last; idx++) {
+            if (body[idx] == first && Arrays.equals(body, idx + 1, idx + bytes.length, bytes, 1, bytes.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean startsWith(byte[] body, byte[] prefix) {
+        return body.length >= prefix.length && Arrays.equals(body, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    static boolean endsWith(byte[] body, byte[] suffix) {
+        return body.length >= suffix.length
+                && Arrays.equals(body, body.length - suffix.length, body.length, suffix, 0, suffix.length);
+    }
+}
@@ -0,0 +1,45 @@
+package com.varlanv.imp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Literal substring of request body, used as predicate of body contains conditions. Actual matching is normally done
+// for all substrings at once by BodySubstrings, see ImpRequestView#containsBodySubstring. Substrings that match case
+// are searched in raw body bytes, only substrings that ignore case need decoded body.
+final class BodySubstring implements ImpPredicate<ImpRequestView> {
+
+    private final String substring;
+    private final byte[] bytes;
+    private final boolean ignoreCase;
+
+    BodySubstring(String substring, boolean ignoreCase) {
+        this.substring = ignoreCase ? substring.toLowerCase(Locale.ROOT) : substring;
+        this.bytes = this.substring.getBytes(StandardCharsets.UTF_8);
+        this.ignoreCase = ignoreCase;
+    }
+
+    // Already lower-cased when case is ignored
+    String substring() {
+        return substring;
+    }
+
+    // UTF-8 bytes of substring
+    byte[] bytes() {
+        return bytes;
+    }
+
+    boolean ignoreCase() {
+        return ignoreCase;
+    }
+
+    boolean matches(ImpRequestView request) {
+        return ignoreCase
+                ? request.lowerCaseBody().contains(substring)
+                : BodyBytes.contains(request.bodyBytes(), bytes);
+    }
+
+    @Override
+    public boolean unsafeTest(ImpRequestView request) {
+        return request.containsBodySubstring(this);
+    }
+}
@@ -0,0 +1,89 @@
+package com.varlanv.imp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+// Body substrings of all candidates of a template, found in a single pass over request body - one automaton over raw
+// body bytes and one over lower-cased body for substrings that ignore case. Built once, read-only afterwards, so it is safe to
+// read concurrently.
+final class BodySubstrings {
+
+    // Below that, separate String.contains scans are faster than single automaton pass, so such substrings are not
+    // indexed and are matched directly
+    static final int MIN_AUTOMATON_NEEDLES = 8;
+
+    // Position of each indexed substring in found bitset, equal substrings share position
+    private final Map<BodySubstring, Integer> positions = new IdentityHashMap<>();
+    @Nullable private final SubstringAutomaton exactAutomaton;
+    @Nullable private final SubstringAutomaton ignoreCaseAutomaton;
+    private final int exactCount;
+    private final int wordCount;
+
+    BodySubstrings(List<BodySubstring> substrings) {
+        var exactNeedles = index(substrings, false, 0);
+        this.exactCount = exactNeedles.size();
+        var ignoreCaseNeedles = index(substrings, true, exactCount);
+        this.exactAutomaton = exactNeedles.isEmpty() ? null : new SubstringAutomaton(byteNeedles(exactNeedles));
+        this.ignoreCaseAutomaton = ignoreCaseNeedles.isEmpty() ? null : new SubstringAutomaton(ignoreCaseNeedles);
+        this.wordCount = (exactNeedles.size() + ignoreCaseNeedles.size() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    // Assigns positions to substrings of given kind, returns their distinct needles, or empty list if there are
+    // too few of them to index
+    private List<String> index(List<BodySubstring> substrings, boolean ignoreCase, int offset) {
+        var needles = new ArrayList<String>();
+        var needleIndexes = new HashMap<String, Integer>();
+        var kindPositions = new IdentityHashMap<BodySubstring, Integer>();
+        for (var substring : substrings) {
+            if (substring.ignoreCase() == ignoreCase) {
+                var needleIdx = needleIndexes.computeIfAbsent(substring.substring(), needle -> {
+                    needles.add(needle);
+                    return needles.size() - 1;
+                });
+                kindPositions.put(substring, offset + needleIdx);
+            }
+        }
+        if (needles.size() < MIN_AUTOMATON_NEEDLES) {
+            return List.of();
+        }
+        positions.putAll(kindPositions);
+        return needles;
+    }
+
+    // Automaton over bytes takes each byte as char of same value, so needles are their UTF-8 bytes in such chars
+    private static List<String> byteNeedles(List<String> needles) {
+        var byteNeedles = new ArrayList<String>(needles.size());
+        for (var needle : needles) {
+            byteNeedles.add(new String(needle.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+        }
+        return byteNeedles;
+    }
+
+    boolean isEmpty() {
+        return positions.isEmpty();
+    }
+
+    // Position of substring in bitset returned by find, or -1 if it is not indexed
+    int position(BodySubstring substring) {
+        var position = positions.get(substring);
+        return position == null ? -1 : position;
+    }
+
+    long[] find(ImpRequestView request) {
+        var found = new long[wordCount];
+        var exact = exactAutomaton;
+        if (exact != null) {
+            exact.search(request.bodyBytes(), found, 0);
+        }
+        var ignoreCase = ignoreCaseAutomaton;
+        if (ignoreCase != null) {
+            ignoreCase.search(request.lowerCaseBody(), found, exactCount);
+        }
+        return found;
+    }
+}
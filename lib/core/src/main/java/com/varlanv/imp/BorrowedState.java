@@ -1,6 +1,8 @@
 package com.varlanv.imp;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.Nullable;
 
 final class BorrowedState {
 
@@ -8,28 +10,91 @@ final class BorrowedState {
     private final ImpServerContext originalConfig;
     private final AtomicInteger inProgressRequestCounter;
     private final Volatile<ImpServerContext> mutableConfig;
+    @Nullable private final ImpPartitionKey partitionKey;
+    // Contexts of partitions that are borrowed right now, keyed by value of partition key in request
+    private final ConcurrentHashMap<String, ImpServerContext> partitions = new ConcurrentHashMap<>();
+    // Number of whole-server borrowers inside `useServer` right now, they cannot overlap with partition borrowers
+    private final AtomicInteger wholeBorrowers = new AtomicInteger();
 
     BorrowedState(ImpServerContext config, boolean isShared) {
+        this(config, isShared, null);
+    }
+
+    BorrowedState(ImpServerContext config, boolean isShared, @Nullable ImpPartitionKey partitionKey) {
         this.isShared = isShared;
         this.originalConfig = config;
         this.inProgressRequestCounter = new AtomicInteger();
         this.mutableConfig = new Volatile<>(config);
+        this.partitionKey = partitionKey;
     }
 
     boolean isShared() {
         return isShared;
     }
 
-    ImpServerContext currentContext() {
+    @Nullable ImpPartitionKey partitionKey() {
+        return partitionKey;
+    }
+
+    ImpServerContext currentContext(EngineExchange exchange) {
+        if (partitionKey != null && !partitions.isEmpty()) {
+            var partition = partitionKey.extract(exchange);
+            if (partition != null) {
+                var partitionContext = partitions.get(partition);
+                if (partitionContext != null) {
+                    return partitionContext;
+                }
+            }
+        }
         return mutableConfig.get();
     }
 
+    void ensureNoBorrowedPartitions() {
+        if (!partitions.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "Cannot borrow whole server while partitions [ %s ] are borrowed. "
+                            + "Whole server can be borrowed only when none of its partitions is borrowed.",
+                    String.join(", ", partitions.keySet())));
+        }
+    }
+
     <T> T doWithLockedContext(ImpServerContext config, ImpSupplier<T> supplier) {
+        // borrower is registered before looking at partitions, and partition borrower does the opposite, so that
+        // if both run at the same time, at least one of them sees the other and fails
+        wholeBorrowers.incrementAndGet();
+        try {
+            ensureNoBorrowedPartitions();
+        } catch (IllegalStateException e) {
+            wholeBorrowers.decrementAndGet();
+            throw e;
+        }
         try {
             mutableConfig.set(config);
             return supplier.get();
         } finally {
             mutableConfig.set(originalConfig);
+            wholeBorrowers.decrementAndGet();
+        }
+    }
+
+    <T> T doWithPartitionContext(String partition, ImpServerContext config, ImpSupplier<T> supplier) {
+        var existing = partitions.putIfAbsent(partition, config);
+        if (existing != null) {
+            throw new IllegalStateException(String.format(
+                    "Partition [ %s ] is already borrowed. Each partition can be used by only one borrower at a time.",
+                    partition));
+        }
+        if (wholeBorrowers.get() > 0) {
+            partitions.remove(partition, config);
+            throw new IllegalStateException(String.format(
+                    "Cannot borrow partition [ %s ] while whole server is borrowed. "
+                            + "Partitions can be borrowed only when whole server is not borrowed.",
+                    partition));
+        }
+        try {
+            return supplier.get();
+        } finally {
+            partitions.remove(partition, config);
         }
     }
 
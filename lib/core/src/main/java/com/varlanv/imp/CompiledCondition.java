@@ -0,0 +1,207 @@
+package com.varlanv.imp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+// Normalized form of candidate condition, compiled once when ResponseDecision is built and evaluated on every request.
+// Nested AND/OR are flattened, negations are pushed down to leaves (De Morgan), repeated leaves are removed,
+// constants are folded and operands are ordered by cost. Identical leaves share a slot in LeafResults, also across
+// candidates compiled with same slots map. Original ImpCondition tree is kept as declared, Teapot
+// explains misses using it, so explanation follows declaration order.
+final class CompiledCondition {
+
+    private static final CompiledCondition[] NO_OPERANDS = new CompiledCondition[0];
+    private static final Comparator<CompiledCondition> BY_COST = Comparator.comparing(condition -> condition.cost);
+    static final CompiledCondition TRUE = new CompiledCondition(Kind.TRUE, null, -1, false, NO_OPERANDS);
+    static final CompiledCondition FALSE = new CompiledCondition(Kind.FALSE, null, -1, false, NO_OPERANDS);
+
+    final Kind kind;
+    // Only set for leaves, original leaf condition without negation
+    @Nullable final ImpCondition leaf;
+    // Only set for leaves, position of leaf result in LeafResults
+    final int slot;
+
+    final boolean negated;
+    final CompiledCondition[] operands;
+    // Cost of leaf, or of the most expensive operand of AND/OR
+    final ImpCondition.Cost cost;
+    // Predicate of leaf, kept separately to avoid null checks on hot path
+    private final ImpPredicate<ImpRequestView> leafPredicate;
+
+    private CompiledCondition(
+            Kind kind, @Nullable ImpCondition leaf, int slot, boolean negated, CompiledCondition[] operands) {
+        this.kind = kind;
+        this.leaf = leaf;
+        this.slot = slot;
+        this.negated = negated;
+        this.operands = operands;
+        this.leafPredicate = leaf == null ? ImpMatch.EVERYTHING_INSTANCE.predicate : leaf.predicate;
+        var cost = leaf == null ? ImpCondition.Cost.METHOD_AND_HEADERS : leaf.cost;
+        for (var operand : operands) {
+            if (operand.cost.compareTo(cost) > 0) {
+                cost = operand.cost;
+            }
+        }
+        this.cost = cost;
+    }
+
+    static CompiledCondition compile(ImpCondition condition) {
+        return compile(condition, new HashMap<>());
+    }
+
+    // Slots are assigned by leaf identity, new ones are added to the map
+    static CompiledCondition compile(ImpCondition condition, Map<Object, Integer> leafSlots) {
+        return compile(condition, false, leafSlots);
+    }
+
+    private static CompiledCondition compile(ImpCondition condition, boolean negated, Map<Object, Integer> leafSlots) {
+        switch (condition.kind) {
+            case ALWAYS_TRUE:
+                return negated ? FALSE : TRUE;
+            case NOT:
+                return compile(condition.nested.get(0), !negated, leafSlots);
+            case AND:
+                return junction(negated ? Kind.OR : Kind.AND, condition.nested, negated, leafSlots);
+            case OR:
+                return junction(negated ? Kind.AND : Kind.OR, condition.nested, negated, leafSlots);
+            default:
+                var slot = leafSlots.computeIfAbsent(condition.leafIdentity(), identity -> leafSlots.size());
+                return new CompiledCondition(Kind.LEAF, condition, slot, negated, NO_OPERANDS);
+        }
+    }
+
+    private static CompiledCondition junction(
+            Kind kind, List<ImpCondition> conditions, boolean negated, Map<Object, Integer> leafSlots) {
+        // FALSE decides AND, TRUE decides OR, the other constant is neutral and dropped
+        var absorbing = kind == Kind.AND ? FALSE : TRUE;
+        var operands = new ArrayList<CompiledCondition>(conditions.size());
+        for (var condition : conditions) {
+            var compiled = compile(condition, negated, leafSlots);
+            if (compiled.kind == kind) {
+                for (var operand : compiled.operands) {
+                    if (addOperand(operands, operand, absorbing)) {
+                        return absorbing;
+                    }
+                }
+            } else if (addOperand(operands, compiled, absorbing)) {
+                return absorbing;
+            }
+        }
+        if (operands.isEmpty()) {
+            return absorbing == FALSE ? TRUE : FALSE;
+        } else if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        var sortedOperands = operands.toArray(NO_OPERANDS);
+        // stable sort, operands of same cost keep declaration order
+        Arrays.sort(sortedOperands, BY_COST);
+        return new CompiledCondition(kind, null, -1, false, sortedOperands);
+    }
+
+    // Returns true if junction result is already decided, either by absorbing constant or by leaf and its negation
+    private static boolean addOperand(
+            List<CompiledCondition> operands, CompiledCondition operand, CompiledCondition absorbing) {
+        if (operand == absorbing) {
+            return true;
+        } else if (operand.kind == Kind.TRUE || operand.kind == Kind.FALSE) {
+            return false;
+        } else if (operand.kind == Kind.LEAF) {
+            for (var existing : operands) {
+                if (existing.kind == Kind.LEAF && existing.slot == operand.slot) {
+                    return existing.negated != operand.negated;
+                }
+            }
+        }
+        operands.add(operand);
+        return false;
+    }
+
+    boolean test(ImpRequestView requestView) {
+        return test(requestView, new LeafResults(0));
+    }
+
+    boolean test(ImpRequestView requestView, LeafResults leafResults) {
+        switch (kind) {
+            case LEAF:
+                return leafResults.test(slot, leafPredicate, requestView) != negated;
+            case AND:
+                for (var operand : operands) {
+                    if (!operand.test(requestView, leafResults)) {
+                        return false;
+                    }
+                }
+                return true;
+            case OR:
+                for (var operand : operands) {
+                    if (operand.test(requestView, leafResults)) {
+                        return true;
+                    }
+                }
+                return false;
+            case TRUE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Necessary condition for the whole tree, negated leaves never contribute
+    RouteHint routeHint() {
+        switch (kind) {
+            case LEAF:
+                return negated || leaf == null ? RouteHint.ANY : leaf.leafRouteHint;
+            case AND:
+                var andHint = RouteHint.ANY;
+                for (var operand : operands) {
+                    andHint = andHint.and(operand.routeHint());
+                }
+                return andHint;
+            case OR:
+                var orHint = operands[0].routeHint();
+                for (var idx = 1; idx < operands.length; idx++) {
+                    orHint = orHint.or(operands[idx].routeHint());
+                }
+                return orHint;
+            case FALSE:
+                return RouteHint.NONE;
+            default:
+                return RouteHint.ANY;
+        }
+    }
+
+    // Leaf predicates of given type, optionally skipping negated leaves
+    <T> void collectLeafPredicates(Class<T> type, boolean skipNegated, List<T> target) {
+        if (kind == Kind.LEAF) {
+            if (!(negated && skipNegated) && type.isInstance(leafPredicate)) {
+                target.add(type.cast(leafPredicate));
+            }
+        } else {
+            for (var operand : operands) {
+                operand.collectLeafPredicates(type, skipNegated, target);
+            }
+        }
+    }
+
+    // All leaf conditions, negated ones included
+    void collectLeaves(List<ImpCondition> target) {
+        if (leaf != null) {
+            target.add(leaf);
+        }
+        for (var operand : operands) {
+            operand.collectLeaves(target);
+        }
+    }
+
+    enum Kind {
+        LEAF,
+        AND,
+        OR,
+        TRUE,
+        FALSE
+    }
+}
@@ -0,0 +1,253 @@
+package com.varlanv.imp;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+
+// Bounded least-recently-used cache of decisions, keyed by fingerprint of exactly those request parts that conditions
+// of candidates read - method, uri string if any condition is on path, values of referenced headers and query keys,
+// and SHA-256 digest and length of body if any condition is on body. Requests with equal fingerprints are
+// indistinguishable to all conditions, so they get the same decision. Digest keeps key size independent of body size,
+// and collision of SHA-256 is not a practical concern. Shared between threads that handle requests, so entries are
+// split by fingerprint hash into segments with own lock and own LRU order, and each segment evicts on its own.
+final class DecisionCache {
+
+    // Position of candidate in cache entry when no candidate matched
+    static final int NO_MATCH = -1;
+    // Returned by get when fingerprint is not cached
+    static final int ABSENT = -2;
+    // Smaller caches are not split, so that their LRU order stays exact
+    static final int MIN_SEGMENT_ENTRIES = 16;
+    static final int MAX_SEGMENTS = maxSegments(Runtime.getRuntime().availableProcessors());
+
+    private final boolean readsPath;
+    private final boolean readsBody;
+    private final boolean readsAllHeaders;
+    private final String[] headerKeys;
+    private final String[] queryKeys;
+    private final Segment[] segments;
+
+    private DecisionCache(RequestParts parts, int maxEntries) {
+        this.readsPath = parts.path;
+        this.readsBody = parts.body;
+        this.readsAllHeaders = parts.allHeaders;
+        this.headerKeys = parts.headerKeys.toArray(new String[0]);
+        this.queryKeys = parts.queryKeys.toArray(new String[0]);
+        var segmentCount = segmentCount(maxEntries, MAX_SEGMENTS);
+        this.segments = new Segment[segmentCount];
+        for (var idx = 0; idx < segmentCount; idx++) {
+            // remainder goes to first segments, so that capacities add up to maxEntries
+            segments[idx] = new Segment(maxEntries / segmentCount + (idx < maxEntries % segmentCount ? 1 : 0));
+        }
+    }
+
+    // Cache for given conditions, or null if some condition reads request in a way that fingerprint cannot capture,
+    // for example opaque predicate on body string, which may also give different results for same body
+    static @Nullable DecisionCache of(CompiledCondition[] conditions, int maxEntries) {
+        var leaves = new ArrayList<ImpCondition>();
+        for (var condition : conditions) {
+            condition.collectLeaves(leaves);
+        }
+        var parts = new RequestParts();
+        for (var leaf : leaves) {
+            if (!parts.add(leaf.leafKey)) {
+                return null;
+            }
+        }
+        return new DecisionCache(parts, maxEntries);
+    }
+
+    Fingerprint fingerprint(ImpRequestView request) {
+        var values = new ArrayList<@Nullable Object>(
+                2 + headerKeys.length + queryKeys.length + (readsAllHeaders ? 1 : 0) + (readsBody ? 1 : 0));
+        values.add(request.impMethod());
+        if (readsPath) {
+            values.add(request.uri().uriString());
+        }
+        var headers = request.headers();
+        if (readsAllHeaders) {
+            // value conditions look at values of all headers, but not at keys
+            values.add(List.copyOf(headers.values()));
+        }
+        for (var headerKey : headerKeys) {
+            values.add(headers.get(headerKey));
+        }
+        if (queryKeys.length > 0) {
+            var query = request.uri().query();
+            for (var queryKey : queryKeys) {
+                // missing key and key without value differ, hasKey tells them apart
+                values.add(query.containsKey(queryKey) ? query.get(queryKey) : null);
+            }
+        }
+        if (readsBody) {
+            var body = request.bodyBytes();
+            values.add(body.length);
+            values.add(sha256(body));
+        }
+        return new Fingerprint(values.toArray());
+    }
+
+    // Position of candidate, NO_MATCH, or ABSENT if fingerprint is not cached
+    int get(Fingerprint fingerprint) {
+        return segment(fingerprint).get(fingerprint);
+    }
+
+    void put(Fingerprint fingerprint, int position) {
+        segment(fingerprint).put(fingerprint, position);
+    }
+
+    int size() {
+        var size = 0;
+        for (var segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    private Segment segment(Fingerprint fingerprint) {
+        // high bits are mixed in, since segment count is power of two
+        var hash = fingerprint.hash ^ (fingerprint.hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    static int maxSegments(int processors) {
+        var segments = 1;
+        while (segments < processors && segments < 16) {
+            segments <<= 1;
+        }
+        return segments;
+    }
+
+    // Largest power of two up to maxSegments, that leaves at least MIN_SEGMENT_ENTRIES in each segment
+    static int segmentCount(int maxEntries, int maxSegments) {
+        var segments = 1;
+        while (segments < maxSegments && maxEntries / (segments * 2) >= MIN_SEGMENT_ENTRIES) {
+            segments <<= 1;
+        }
+        return segments;
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Access ordered map under own lock, get also moves entry to the end
+    private static final class Segment {
+
+        private final Map<Fingerprint, Integer> entries;
+
+        Segment(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Fingerprint, Integer> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized int get(Fingerprint fingerprint) {
+            var position = entries.get(fingerprint);
+            return position == null ? ABSENT : position;
+        }
+
+        synchronized void put(Fingerprint fingerprint, int position) {
+            entries.put(fingerprint, position);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    // Parts of request that leaves read, derived from leaf keys - group, operation and arguments, see ImpMatch
+    private static final class RequestParts {
+
+        private boolean path;
+        private boolean body;
+        private boolean allHeaders;
+        private final Set<String> headerKeys = new LinkedHashSet<>();
+        private final Set<String> queryKeys = new LinkedHashSet<>();
+
+        // Returns false if leaf cannot be captured by fingerprint
+        boolean add(@Nullable List<?> leafKey) {
+            if (leafKey == null || leafKey.size() < 2) {
+                return false;
+            }
+            var group = leafKey.get(0);
+            var operation = leafKey.get(1);
+            if ("Method".equals(group)) {
+                return true;
+            } else if ("Path".equals(group)) {
+                path = true;
+                return true;
+            } else if ("Query".equals(group)) {
+                queryKeys.add((String) leafKey.get(2));
+                return true;
+            } else if ("Body".equals(group)) {
+                body = true;
+                return !"testBodyString".equals(operation);
+            } else if ("JsonPath".equals(group)) {
+                body = true;
+                return true;
+            } else if ("Headers".equals(group)) {
+                if ("containsValue".equals(operation)) {
+                    allHeaders = true;
+                } else if ("containsAllKeys".equals(operation)) {
+                    for (var key : (Collection<?>) leafKey.get(2)) {
+                        headerKeys.add((String) key);
+                    }
+                } else if ("hasContentType".equals(operation)) {
+                    headerKeys.add("Content-Type");
+                } else {
+                    headerKeys.add((String) leafKey.get(2));
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    static final class Fingerprint {
+
+        // Byte arrays are compared by content
+        private final @Nullable Object[] values;
+        private final int hash;
+
+        Fingerprint(@Nullable Object[] values) {
+            this.values = values;
+            this.hash = Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object other) {
+            return other instanceof Fingerprint
+                    && hash == ((Fingerprint) other).hash
+                    && Arrays.deepEquals(values, ((Fingerprint) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -19,4 +19,9 @@ final class DefaultImpServer implements ImpServer {
     public ImpStatistics statistics() {
         return new ImpStatistics(context.statistics());
     }
+
+    @Override
+    public ImpRequestJournal journal() {
+        return context.journal();
+    }
 }
@@ -24,7 +24,23 @@ final class DefaultImpShared implements ImpShared {
         if (isDisposed()) {
             throw new IllegalStateException("Cannot borrow from already stopped server");
         }
-        return new ImpBorrowedSpec(this);
+        return new ImpBorrowedSpec(this, null);
+    }
+
+    @Override
+    public ImpBorrowedSpec borrow(String partition) {
+        Preconditions.nonBlank(partition, "partition");
+        if (isDisposed()) {
+            throw new IllegalStateException("Cannot borrow from already stopped server");
+        }
+        if (borrowedState.partitionKey() == null) {
+            throw new IllegalStateException(String.format(
+                    "Cannot borrow partition [ %s ] from server that was started without partition key. "
+                            + "Use `startSharedOnPort(port, partitionKey)` or `startSharedOnRandomPort(partitionKey)` "
+                            + "to start partitioned server.",
+                    partition));
+        }
+        return new ImpBorrowedSpec(this, partition);
     }
 
     @Override
@@ -54,8 +70,14 @@ final class DefaultImpShared implements ImpShared {
         return new ImpStatistics(context.statistics());
     }
 
+    @Override
+    public ImpRequestJournal journal() {
+        return context.journal();
+    }
+
     ImpStatistics useWithMutatedContext(StartedServerConfig config, ImpConsumer<ImpServer> consumer) {
-        var newContext = new ImpServerContext(config, new MutableImpStatistics());
+        var newContext =
+                new ImpServerContext(config, new MutableImpStatistics(), new ImpRequestJournal(config.journal()));
         return borrowedState.doWithLockedContext(newContext, () -> {
             var impServer = new DefaultImpServer(port(), newContext);
             consumer.accept(impServer);
@@ -63,6 +85,21 @@ final class DefaultImpShared implements ImpShared {
         });
     }
 
+    ImpStatistics useWithPartitionContext(
+            String partition, StartedServerConfig config, ImpConsumer<ImpServer> consumer) {
+        var newContext =
+                new ImpServerContext(config, new MutableImpStatistics(), new ImpRequestJournal(config.journal()));
+        return borrowedState.doWithPartitionContext(partition, newContext, () -> {
+            var impServer = new DefaultImpServer(port(), newContext);
+            consumer.accept(impServer);
+            return impServer.statistics();
+        });
+    }
+
+    void ensureNoBorrowedPartitions() {
+        borrowedState.ensureNoBorrowedPartitions();
+    }
+
     IntSupplier inProgressRequestCounter() {
         var counter = borrowedState.inProgressRequestCounter();
         return counter::get;
@@ -1,9 +1,11 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import org.jspecify.annotations.Nullable;
 
 final class DefaultImpTemplate implements ImpTemplate {
 
@@ -22,8 +24,11 @@ final class DefaultImpTemplate implements ImpTemplate {
                     .server(server)
                     .decision(config.decision())
                     .fallback(config.fallback())
+                    .executor(config.executor())
+                    .journal(config.journal())
                     .build();
-            var serverContext = new ImpServerContext(serverConfig, new MutableImpStatistics());
+            var serverContext = new ImpServerContext(
+                    serverConfig, new MutableImpStatistics(), new ImpRequestJournal(serverConfig.journal()));
             startedServer = buildAndStartServer(serverConfig, new BorrowedState(serverContext, false));
             consumer.accept(new DefaultImpServer(startedServer.port(), serverContext));
         } catch (Exception e) {
@@ -37,93 +42,107 @@ final class DefaultImpTemplate implements ImpTemplate {
 
     private StartedServer buildAndStartServer(StartedServerConfig serverConfig, BorrowedState borrowedState) {
         var server = serverConfig.server();
-        var httpServer = server.actualServer();
-        httpServer.createContext("/", exchange -> {
+        var engineServer = server.actualServer();
+        var executorService = serverConfig.executor().newExecutorService();
+        engineServer.start(executorService, exchange -> {
             if (borrowedState.isShared()) {
                 var counter = borrowedState.inProgressRequestCounter();
                 try {
                     counter.incrementAndGet();
-                    process(borrowedState.currentContext(), exchange);
+                    process(borrowedState.currentContext(exchange), exchange);
                 } finally {
                     counter.decrementAndGet();
                 }
             } else {
-                process(borrowedState.currentContext(), exchange);
+                process(borrowedState.currentContext(exchange), exchange);
             }
         });
-        httpServer.start();
-        return new StartedServer(server.port(), httpServer);
+        return new StartedServer(server.port(), engineServer, executorService);
     }
 
-    private void process(ImpServerContext serverContext, HttpExchange exchange) throws IOException {
+    private void process(ImpServerContext serverContext, EngineExchange exchange) throws IOException {
+        var startNanos = System.nanoTime();
         var serverConfig = serverContext.config();
+        MutableMatcherStatistics matcherStatistics = null;
+        ImpRequestView impRequestView = null;
+        var journaled = false;
         ImpResponse impResponse;
-        byte[] responseBytes;
+        ResponseBody responseBody = null;
         int responseStatus;
+        Map<String, List<String>> responseHeaders;
         try {
-            var requestMethod = ImpMethod.of(exchange.getRequestMethod());
+            var requestMethod = ImpMethod.of(exchange.requestMethod());
             if (requestMethod == null) {
                 throw new IllegalStateException(String.format(
                         "Internal error in ImpServer - failed to parse HTTP method [ %s ] from request",
-                        exchange.getRequestMethod()));
+                        exchange.requestMethod()));
             }
-            var impRequestView = new ImpRequestView(
-                    requestMethod,
-                    exchange.getRequestHeaders(),
-                    () -> exchange.getRequestBody().readAllBytes(),
-                    exchange.getRequestURI());
+            impRequestView = new ImpRequestView(
+                    requestMethod, exchange.requestHeaders(), exchange::readRequestBody, exchange.requestUri());
             var responseCandidate = serverConfig.decision().pick(impRequestView);
+            var matchNanos = System.nanoTime() - startNanos;
             if (responseCandidate == null) {
                 serverContext.statistics().incrementMissCount();
-                impResponse = serverConfig.fallback().apply(exchange);
-                responseBytes = InternalUtils.readAllBytesFromSupplier(
-                        impResponse.body().apply(impRequestView));
+                journaled = true;
+                serverContext.journal().record(null, impRequestView, exchange.requestUri());
+                impResponse = serverConfig.fallback().apply(impRequestView);
+                responseBody = ResponseBody.prepare(impResponse.trustedBody(), impRequestView);
                 responseStatus = impResponse.statusCode().value();
             } else {
-                serverContext.statistics().incrementHitCount();
+                matcherStatistics = serverContext.statistics().recordHit(responseCandidate.id(), matchNanos);
+                journaled = true;
+                serverContext.journal().record(responseCandidate.id(), impRequestView, exchange.requestUri());
                 impResponse = responseCandidate.responseSupplier().get();
                 var trustedBodyFn = impResponse.trustedBody();
                 try {
-                    responseBytes = InternalUtils.readAllBytesFromSupplier(trustedBodyFn.apply(impRequestView));
+                    responseBody = ResponseBody.prepare(trustedBodyFn, impRequestView);
                     responseStatus = impResponse.statusCode().value();
                 } catch (Exception e) {
-                    responseBytes = String.format(
+                    responseBody = ResponseBody.buffered(String.format(
                                     "Failed to read response body supplier, provided by `%s` method. "
                                             + "Message from exception thrown by provided supplier: %s",
                                     trustedBodyFn.name(), e.getMessage())
-                            .getBytes(StandardCharsets.UTF_8);
+                            .getBytes(StandardCharsets.UTF_8));
                     responseStatus = 418;
                 }
             }
 
-            var originalResponseHeaders = exchange.getResponseHeaders();
-            var newResponseHeaders = impResponse.headersOperator().apply(originalResponseHeaders);
-            originalResponseHeaders.putAll(newResponseHeaders);
+            responseHeaders = impResponse.headersOperator().apply(Map.of());
         } catch (Exception e) {
-            responseBytes = Objects.requireNonNullElse(e.getMessage(), "").getBytes(StandardCharsets.UTF_8);
+            if (impRequestView != null && !journaled) {
+                // matching failed, so request is journaled as unmatched, same as it is not counted as hit
+                try {
+                    serverContext.journal().record(null, impRequestView, exchange.requestUri());
+                } catch (Exception journalException) {
+                    e.addSuppressed(journalException);
+                }
+            }
+            if (responseBody != null) {
+                responseBody.discard();
+            }
+            responseBody = ResponseBody.buffered(
+                    Objects.requireNonNullElse(e.getMessage(), "").getBytes(StandardCharsets.UTF_8));
             responseStatus = 418;
+            responseHeaders = Map.of();
         }
-        if (responseStatus < 200) {
-            exchange.sendResponseHeaders(responseStatus, -1);
-            exchange.getResponseBody().close();
-        } else {
-            exchange.sendResponseHeaders(responseStatus, responseBytes.length);
-            var responseBody = exchange.getResponseBody();
-            responseBody.write(responseBytes);
-            responseBody.flush();
-            responseBody.close();
+        responseBody.send(exchange, responseStatus, responseHeaders);
+        if (matcherStatistics != null) {
+            matcherStatistics.recordHandleTime(System.nanoTime() - startNanos);
         }
     }
 
-    ImpShared startShared() {
+    ImpShared startShared(@Nullable ImpPartitionKey partitionKey) {
         var server = config.futureServer().createServer();
         var serverConfig = ImmutableStartedServerConfig.builder()
                 .server(server)
                 .decision(config.decision())
                 .fallback(config.fallback())
+                .executor(config.executor())
+                .journal(config.journal())
                 .build();
-        var serverContext = new ImpServerContext(serverConfig, new MutableImpStatistics());
-        var borrowedState = new BorrowedState(serverContext, true);
+        var serverContext = new ImpServerContext(
+                serverConfig, new MutableImpStatistics(), new ImpRequestJournal(serverConfig.journal()));
+        var borrowedState = new BorrowedState(serverContext, true, partitionKey);
         var httpServer = buildAndStartServer(serverConfig, borrowedState);
         return new DefaultImpShared(serverContext, httpServer, borrowedState);
     }
@@ -0,0 +1,55 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class FileBody implements NamedFn<ImpRequestView, ImpSupplier<InputStream>> {
+
+    private final String name;
+    private final Path file;
+    private final long length;
+    private final ImpSupplier<InputStream> streamSupplier;
+
+    private FileBody(String name, Path file, long length) {
+        this.name = name;
+        this.file = file;
+        this.length = length;
+        this.streamSupplier = () -> Files.newInputStream(file);
+    }
+
+    static FileBody of(String name, Path file) {
+        Preconditions.nonNull(file, "file");
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException(
+                    String.format("File [ %s ] does not exist or is not a regular file", file));
+        }
+        try {
+            // length is resolved once, file is expected to stay unchanged while server is running
+            return new FileBody(name, file, Files.size(file));
+        } catch (IOException e) {
+            return InternalUtils.hide(e);
+        }
+    }
+
+    long length() {
+        return length;
+    }
+
+    FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public ImpSupplier<InputStream> unsafeApply(ImpRequestView request) {
+        return streamSupplier;
+    }
+}
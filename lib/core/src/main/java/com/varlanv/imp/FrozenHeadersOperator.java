@@ -0,0 +1,30 @@
+package com.varlanv.imp;
+
+import java.util.List;
+import java.util.Map;
+
+// Headers operator of response that is built once and sent for many requests. Server always applies operator to empty
+// headers, so that result is resolved when response is built, and returned as is for every request. Any other input
+// still goes through original operator.
+final class FrozenHeadersOperator implements ImpHeadersOperator {
+
+    private final ImpHeadersOperator operator;
+    private final FrozenHeaders headers;
+
+    private FrozenHeadersOperator(ImpHeadersOperator operator, FrozenHeaders headers) {
+        this.operator = operator;
+        this.headers = headers;
+    }
+
+    static FrozenHeadersOperator freeze(ImpHeadersOperator operator) {
+        if (operator instanceof FrozenHeadersOperator) {
+            return (FrozenHeadersOperator) operator;
+        }
+        return new FrozenHeadersOperator(operator, FrozenHeaders.of(operator.apply(Map.of())));
+    }
+
+    @Override
+    public Map<String, List<String>> unsafeApply(Map<String, List<String>> existingHeaders) throws Exception {
+        return existingHeaders.isEmpty() ? headers : operator.unsafeApply(existingHeaders);
+    }
+}
@@ -1,16 +1,20 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.BindException;
-import java.net.InetSocketAddress;
 
 final class FutureServer {
 
     private final PortSupplier portSupplier;
+    private final ServerEngine serverEngine;
 
-    FutureServer(PortSupplier portSupplier) {
+    FutureServer(PortSupplier portSupplier, ServerEngine serverEngine) {
         this.portSupplier = portSupplier;
+        this.serverEngine = serverEngine;
+    }
+
+    FutureServer(PortSupplier portSupplier) {
+        this(portSupplier, ImpEngine.jdk().serverEngine());
     }
 
     Server createServer() {
@@ -19,7 +23,7 @@ final class FutureServer {
         for (int iteration = 0; iteration < retries; iteration++) {
             try {
                 var port = portSupplier.value();
-                var server = HttpServer.create(new InetSocketAddress(port), 0);
+                var server = serverEngine.bind(port);
                 return new Server(port, server);
             } catch (BindException e) {
                 if (iteration == retries - 1) {
@@ -1,19 +1,30 @@
 package com.varlanv.imp;
 
+import org.jspecify.annotations.Nullable;
+
 public final class ImpBorrowed {
 
     private final StartedServerConfig borrowedConfig;
     private final DefaultImpShared parent;
+    // null if whole server is borrowed
+    @Nullable private final String partition;
 
-    ImpBorrowed(StartedServerConfig borrowedConfig, DefaultImpShared parent) {
+    ImpBorrowed(StartedServerConfig borrowedConfig, DefaultImpShared parent, @Nullable String partition) {
         this.borrowedConfig = borrowedConfig;
         this.parent = parent;
+        this.partition = partition;
     }
 
     public ImpStatistics useServer(ImpConsumer<ImpServer> consumer) {
         if (parent.isDisposed()) {
             throw new IllegalStateException("Shared server is already stopped. Cannot use borrowed server anymore.");
         }
+        if (partition != null) {
+            // requests of other partitions may be in progress, only requests of this partition are routed here
+            return parent.useWithPartitionContext(partition, borrowedConfig, consumer);
+        }
+        // in-progress requests of borrowed partitions would be counted below, so fail with clearer message first
+        parent.ensureNoBorrowedPartitions();
         var counter = parent.inProgressRequestCounter().getAsInt();
         if (counter > 0) {
             throw new IllegalStateException(String.format(
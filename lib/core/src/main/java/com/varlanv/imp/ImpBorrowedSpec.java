@@ -1,13 +1,16 @@
 package com.varlanv.imp;
 
 import java.util.List;
+import org.jspecify.annotations.Nullable;
 
 public final class ImpBorrowedSpec {
 
     private final DefaultImpShared parent;
+    @Nullable private final String partition;
 
-    ImpBorrowedSpec(DefaultImpShared parent) {
+    ImpBorrowedSpec(DefaultImpShared parent, @Nullable String partition) {
         this.parent = parent;
+        this.partition = partition;
     }
 
     public ImpBorrowed alwaysRespond(ImpAlwaysRespond action) {
@@ -17,10 +20,13 @@ public final class ImpBorrowedSpec {
         return new ImpBorrowed(
                 ImmutableStartedServerConfig.builder()
                         .server(parent.config().server())
+                        .executor(parent.config().executor())
+                        .journal(parent.config().journal())
                         .decision(new ResponseDecision(List.of(specEnd.toResponseCandidate())))
                         .fallback(new Teapot(List.of()))
                         .build(),
-                parent);
+                parent,
+                partition);
     }
 
     public SpecContinue matchRequest(ImpRequestMatch action) {
@@ -28,16 +34,19 @@ public final class ImpBorrowedSpec {
         var specEnd = action.apply(new ImpTemplateSpec.RequestMatchingSpecStart());
         Preconditions.nonNull(specEnd, "matchRequest function result");
         var responseCandidate = specEnd.toResponseCandidate();
-        return new SpecContinue(parent, List.of(responseCandidate));
+        return new SpecContinue(parent, partition, List.of(responseCandidate));
     }
 
     public static final class SpecContinue {
 
         private final DefaultImpShared parent;
+        @Nullable private final String partition;
         private final List<ResponseCandidate> responseCandidates;
 
-        SpecContinue(DefaultImpShared parent, List<ResponseCandidate> responseCandidates) {
+        SpecContinue(
+                DefaultImpShared parent, @Nullable String partition, List<ResponseCandidate> responseCandidates) {
             this.parent = parent;
+            this.partition = partition;
             this.responseCandidates = responseCandidates;
         }
 
@@ -46,30 +55,37 @@ public final class ImpBorrowedSpec {
             var specEnd = action.apply(new ImpTemplateSpec.RequestMatchingSpecStart());
             Preconditions.nonNull(specEnd, "matchRequest function result");
             var responseCandidate = specEnd.toResponseCandidate();
-            return new SpecContinue(parent, InternalUtils.addToNewListFinal(responseCandidates, responseCandidate));
+            return new SpecContinue(
+                    parent, partition, InternalUtils.addToNewListFinal(responseCandidates, responseCandidate));
         }
 
         public ImpBorrowed fallbackForNonMatching(
                 ImpFn<ImpResponse.BuilderStatus, ImpResponse.BuilderHeaders> fallbackFn) {
             Preconditions.nonNull(fallbackFn, "fallbackFn");
-            var fallbackImpResponse = fallbackFn.apply(ImpResponse.builder()).build();
+            var fallbackImpResponse = fallbackFn.apply(ImpResponse.builder()).buildFrozen();
             return new ImpBorrowed(
                     ImmutableStartedServerConfig.builder()
                             .server(parent.config().server())
+                            .executor(parent.config().executor())
+                            .journal(parent.config().journal())
                             .decision(new ResponseDecision(responseCandidates))
-                            .fallback(candidates -> fallbackImpResponse)
+                            .fallback(requestView -> fallbackImpResponse)
                             .build(),
-                    parent);
+                    parent,
+                    partition);
         }
 
         public ImpBorrowed rejectNonMatching() {
             return new ImpBorrowed(
                     ImmutableStartedServerConfig.builder()
                             .server(parent.config().server())
+                            .executor(parent.config().executor())
+                            .journal(parent.config().journal())
                             .decision(new ResponseDecision(responseCandidates))
                             .fallback(new Teapot(responseCandidates))
                             .build(),
-                    parent);
+                    parent,
+                    partition);
         }
     }
 }
@@ -14,6 +14,12 @@ public final class ImpCondition {
     final Supplier<String> context;
     final Kind kind;
     final List<ImpCondition> nested;
+    final Cost cost;
+    // Leaves with equal keys are interchangeable, so each of them is evaluated at most once per request.
+    // Null means that leaf is only identical to itself
+    @Nullable final List<?> leafKey;
+    // Only set for leaf conditions on method or path, used to index candidates
+    final RouteHint leafRouteHint;
 
     ImpCondition(
             String group,
@@ -21,24 +27,105 @@ public final class ImpCondition {
             Supplier<String> context,
             Kind kind,
             List<ImpCondition> nested) {
+        this(group, predicate, context, kind, nested, maxCost(nested), null, RouteHint.ANY);
+    }
+
+    ImpCondition(String group, ImpPredicate<ImpRequestView> predicate, Supplier<String> context, Kind kind, Cost cost) {
+        this(group, predicate, context, kind, List.of(), cost, null, RouteHint.ANY);
+    }
+
+    ImpCondition(
+            String group,
+            ImpPredicate<ImpRequestView> predicate,
+            Supplier<String> context,
+            Kind kind,
+            Cost cost,
+            List<?> leafKey) {
+        this(group, predicate, context, kind, List.of(), cost, leafKey, RouteHint.ANY);
+    }
+
+    ImpCondition(
+            String group,
+            ImpPredicate<ImpRequestView> predicate,
+            Supplier<String> context,
+            Kind kind,
+            Cost cost,
+            List<?> leafKey,
+            RouteHint leafRouteHint) {
+        this(group, predicate, context, kind, List.of(), cost, leafKey, leafRouteHint);
+    }
+
+    private ImpCondition(
+            String group,
+            ImpPredicate<ImpRequestView> predicate,
+            Supplier<String> context,
+            Kind kind,
+            List<ImpCondition> nested,
+            Cost cost,
+            @Nullable List<?> leafKey,
+            RouteHint leafRouteHint) {
         this.group = group;
         this.predicate = predicate;
         this.context = context;
         this.kind = kind;
         this.nested = nested;
+        this.cost = cost;
+        this.leafKey = leafKey;
+        this.leafRouteHint = leafRouteHint;
     }
 
-    ImpCondition(String group, ImpPredicate<ImpRequestView> predicate, Supplier<String> context, Kind kind) {
-        this(group, predicate, context, kind, List.of());
+    // Object that is equal for identical leaves
+    Object leafIdentity() {
+        var key = leafKey;
+        return key == null ? this : key;
     }
 
+    static Cost maxCost(List<ImpCondition> conditions) {
+        var cost = Cost.METHOD_AND_HEADERS;
+        for (var condition : conditions) {
+            if (condition.cost.compareTo(cost) > 0) {
+                cost = condition.cost;
+            }
+        }
+        return cost;
+    }
+
+    // Negated AND/OR is explained as a branch, negated leaf is explained as a single line
+    private boolean isBranch() {
+        if (kind == Kind.AND || kind == Kind.OR) {
+            return true;
+        }
+        return kind == Kind.NOT && nested.get(0).isBranch();
+    }
+
+    // Pure short-circuiting evaluation in declaration order, without building explanation messages - those are only
+    // built by toEvaluated when Teapot renders a miss. ResponseDecision evaluates CompiledCondition instead
     @VisibleForTesting
     boolean test(ImpRequestView requestView) {
-        return kind == Kind.ALWAYS_TRUE || toEvaluated(requestView).result;
+        switch (kind) {
+            case ALWAYS_TRUE:
+                return true;
+            case AND:
+                for (var idx = 0; idx < nested.size(); idx++) {
+                    if (!nested.get(idx).test(requestView)) {
+                        return false;
+                    }
+                }
+                return true;
+            case OR:
+                for (var idx = 0; idx < nested.size(); idx++) {
+                    if (nested.get(idx).test(requestView)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                return predicate.test(requestView);
+        }
     }
 
     EvaluatedCondition toEvaluated(ImpRequestView requestView) {
-        if (nested.isEmpty()) {
+        if (!isBranch()) {
             var result = predicate.test(requestView);
             var stringList = new StringList();
             stringList.addSupplier(() -> group + " -> " + context.get() + " -> " + result);
@@ -55,6 +142,8 @@ public final class ImpCondition {
             return processBranchEvaluation(currentContext, "AND", true, false, (res, childRes) -> res && childRes);
         } else if (currentContext.condition.kind == Kind.OR) {
             return processBranchEvaluation(currentContext, "OR", false, true, (res, childRes) -> res || childRes);
+        } else if (currentContext.condition.isBranch()) {
+            return processNegatedBranchEvaluation(currentContext);
         } else {
             return processLeafEvaluation(currentContext);
         }
@@ -109,6 +198,23 @@ public final class ImpCondition {
         return branchContext;
     }
 
+    private EvaluateContext processNegatedBranchEvaluation(EvaluateContext notContext) {
+        var notMessages = new StringList();
+        notMessages.addSupplier(() -> formatBranchHeaderMessage(notContext, "NOT"));
+        var childContext = notContext.next(notContext.condition.nested.get(0), calculateChildIndentLength(notContext));
+        var knownResult = notContext.knownResult;
+        if (knownResult != null) {
+            // Skipped due to parent's short-circuiting, child is not evaluated either
+            childContext.knownResult = !knownResult;
+            childContext.result = !knownResult;
+        }
+        var evaluatedChildContext = evaluateRecursive(childContext);
+        notMessages.addAll(evaluatedChildContext.message);
+        notContext.result = knownResult != null ? knownResult : !Boolean.TRUE.equals(evaluatedChildContext.result);
+        notContext.message.addAll(notMessages);
+        return notContext;
+    }
+
     private EvaluateContext processLeafEvaluation(EvaluateContext leafContext) {
         String resultTextForMessage; // Text like "true", "false", or "N/E"
 
@@ -128,7 +234,7 @@ public final class ImpCondition {
     }
 
     private String formatBranchHeaderMessage(
-            EvaluateContext context, @MagicConstant(stringValues = {"AND", "OR"}) String type) {
+            EvaluateContext context, @MagicConstant(stringValues = {"AND", "OR", "NOT"}) String type) {
         var mark = " ".repeat(context.nestLevel == 0 ? 0 : context.indentLength);
         // context.result will reflect the outcome of this branch (or knownResult if N/E)
         // when this supplier is eventually evaluated.
@@ -164,6 +270,21 @@ public final class ImpCondition {
         ALWAYS_TRUE
     }
 
+    // Relative cost of evaluating leaf condition, declared from cheapest to most expensive. Compiled AND/OR evaluate
+    // cheaper operands first, so that expensive ones like body or json path are only reached when still needed
+    enum Cost {
+        // already parsed with request
+        METHOD_AND_HEADERS,
+        // parsed from uri lazily, once per request
+        QUERY,
+        // string matching over uri
+        PATH,
+        // requires whole body to be read and decoded
+        BODY,
+        // requires body to be parsed as json
+        JSON_PATH
+    }
+
     static final class EvaluateContext {
 
         final StringList message = new StringList();
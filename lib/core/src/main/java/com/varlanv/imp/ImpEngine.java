@@ -0,0 +1,72 @@
+package com.varlanv.imp;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+public final class ImpEngine {
+
+    private static final ImpEngine JDK_INSTANCE = new ImpEngine(new JdkServerEngine());
+    private static final Map<String, String> KNOWN_ENGINE_LIBRARIES =
+            Map.of("nio", "jdk-bridge", "netty", "netty-bridge", "apache", "apache-bridge");
+
+    private final ServerEngine serverEngine;
+
+    private ImpEngine(ServerEngine serverEngine) {
+        this.serverEngine = serverEngine;
+    }
+
+    public static ImpEngine jdk() {
+        return JDK_INSTANCE;
+    }
+
+    public static ImpEngine nio() {
+        return named("nio");
+    }
+
+    public static ImpEngine apache() {
+        return named("apache");
+    }
+
+    public static ImpEngine netty() {
+        return named("netty");
+    }
+
+    public static ImpEngine named(String engineName) {
+        Preconditions.nonBlank(engineName, "engineName");
+        if (JdkServerEngine.NAME.equals(engineName)) {
+            return JDK_INSTANCE;
+        }
+        var availableEngines = new ArrayList<String>();
+        availableEngines.add(JdkServerEngine.NAME);
+        try {
+            for (var serverEngine : ServiceLoader.load(ServerEngine.class)) {
+                if (engineName.equals(serverEngine.name())) {
+                    return new ImpEngine(serverEngine);
+                }
+                availableEngines.add(serverEngine.name());
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalStateException(String.format("Failed to load server engine [ %s ]", engineName), e);
+        }
+        var library = KNOWN_ENGINE_LIBRARIES.get(engineName);
+        if (library == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Server engine [ %s ] is not found. Available engines: %s", engineName, availableEngines));
+        }
+        throw new IllegalStateException(String.format(
+                "Server engine [ %s ] is not found on classpath. "
+                        + "Library [ com.varlanv.imp-server:%s ] is required on classpath to use this engine.",
+                engineName, library));
+    }
+
+    ServerEngine serverEngine() {
+        return serverEngine;
+    }
+
+    @Override
+    public String toString() {
+        return "ImpEngine." + serverEngine.name() + "()";
+    }
+}
@@ -0,0 +1,104 @@
+package com.varlanv.imp;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.Range;
+import org.jspecify.annotations.Nullable;
+
+public final class ImpExecutor {
+
+    @Nullable private static final MethodHandle virtualThreadExecutorFactory;
+
+    private static final ImpExecutor CALLER_THREAD_INSTANCE = new ImpExecutor("callerThread()", null);
+
+    static {
+        MethodHandle factoryTmp;
+        try {
+            factoryTmp = MethodHandles.publicLookup()
+                    .findStatic(
+                            Executors.class,
+                            "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            factoryTmp = null;
+        }
+        virtualThreadExecutorFactory = factoryTmp;
+    }
+
+    private final String name;
+    @Nullable private final ImpSupplier<ExecutorService> executorServiceSupplier;
+
+    private ImpExecutor(String name, @Nullable ImpSupplier<ExecutorService> executorServiceSupplier) {
+        this.name = name;
+        this.executorServiceSupplier = executorServiceSupplier;
+    }
+
+    public static ImpExecutor virtualThreadPerRequest() {
+        var factory = virtualThreadExecutorFactory;
+        if (factory == null) {
+            throw new IllegalStateException(String.format(
+                    "Virtual threads are not available in current JVM [ %s ]. "
+                            + "Java 21 or newer is required to use virtualThreadPerRequest() executor, "
+                            + "consider using boundedPool(int) executor instead.",
+                    System.getProperty("java.version")));
+        }
+        return new ImpExecutor("virtualThreadPerRequest()", () -> {
+            try {
+                return (ExecutorService) factory.invoke();
+            } catch (Throwable e) {
+                return InternalUtils.hide(e);
+            }
+        });
+    }
+
+    public static ImpExecutor boundedPool(@Range(from = 1, to = Integer.MAX_VALUE) int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Bounded pool size should be greater than 0. Received " + threads);
+        }
+        return new ImpExecutor(String.format("boundedPool(%d)", threads), () -> {
+            var threadCounter = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, runnable -> {
+                var thread = new Thread(runnable, "imp-server-worker-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        });
+    }
+
+    public static ImpExecutor callerThread() {
+        return CALLER_THREAD_INSTANCE;
+    }
+
+    static ImpExecutor defaultExecutor() {
+        return virtualThreadExecutorFactory == null ? CALLER_THREAD_INSTANCE : virtualThreadPerRequest();
+    }
+
+    @Nullable ExecutorService newExecutorService() {
+        var supplier = executorServiceSupplier;
+        return supplier == null ? null : supplier.get();
+    }
+
+    static void shutdown(@Nullable ExecutorService executorService) {
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                    executorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ImpExecutor." + name;
+    }
+}
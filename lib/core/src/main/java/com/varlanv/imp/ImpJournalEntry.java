@@ -0,0 +1,75 @@
+package com.varlanv.imp;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+public final class ImpJournalEntry {
+
+    private final long sequence;
+    @Nullable private final String matcherId;
+    private final String method;
+    private final URI uri;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final boolean bodyTruncated;
+
+    ImpJournalEntry(
+            long sequence,
+            @Nullable String matcherId,
+            String method,
+            URI uri,
+            Map<String, List<String>> headers,
+            byte[] body,
+            boolean bodyTruncated) {
+        this.sequence = sequence;
+        this.matcherId = matcherId;
+        this.method = method;
+        this.uri = uri;
+        this.headers = headers;
+        this.body = body;
+        this.bodyTruncated = bodyTruncated;
+    }
+
+    /** Position of request in order of arrival, starting from 0. */
+    public long sequence() {
+        return sequence;
+    }
+
+    /** Id of matcher that responded to request, or null if no matcher matched it. */
+    public @Nullable String matcherId() {
+        return matcherId;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public URI uri() {
+        return uri;
+    }
+
+    public String path() {
+        return uri.getPath();
+    }
+
+    /** Case-insensitive copy of request headers. */
+    public Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    /** Request body, up to configured number of bytes, see {@link #isBodyTruncated()}. */
+    public byte[] body() {
+        return body.clone();
+    }
+
+    public String bodyString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    public boolean isBodyTruncated() {
+        return bodyTruncated;
+    }
+}
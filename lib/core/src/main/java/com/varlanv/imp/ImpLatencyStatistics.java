@@ -0,0 +1,44 @@
+package com.varlanv.imp;
+
+import java.time.Duration;
+
+/**
+ * Percentiles of recorded durations. Durations are kept in fixed-memory histogram, so that each percentile is
+ * reported as upper bound of its histogram bucket, at most 12.5% larger than actual duration. Durations of about 68
+ * seconds and longer are not told apart.
+ */
+public final class ImpLatencyStatistics {
+
+    private final long count;
+    private final Duration p50;
+    private final Duration p99;
+    private final Duration p999;
+
+    ImpLatencyStatistics(long[] histogramSnapshot) {
+        var total = 0L;
+        for (var bucketCount : histogramSnapshot) {
+            total += bucketCount;
+        }
+        this.count = total;
+        this.p50 = Duration.ofNanos(LatencyHistogram.valueAtQuantile(histogramSnapshot, 0.5));
+        this.p99 = Duration.ofNanos(LatencyHistogram.valueAtQuantile(histogramSnapshot, 0.99));
+        this.p999 = Duration.ofNanos(LatencyHistogram.valueAtQuantile(histogramSnapshot, 0.999));
+    }
+
+    /** Number of recorded durations. */
+    public long count() {
+        return count;
+    }
+
+    public Duration p50() {
+        return p50;
+    }
+
+    public Duration p99() {
+        return p99;
+    }
+
+    public Duration p999() {
+        return p999;
+    }
+}
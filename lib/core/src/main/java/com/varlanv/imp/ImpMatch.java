@@ -1,14 +1,19 @@
 package com.varlanv.imp;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.regex.Pattern;
 import org.intellij.lang.annotations.Language;
 import org.intellij.lang.annotations.MagicConstant;
 
 public final class ImpMatch {
 
     static final ImpCondition EVERYTHING_INSTANCE = new ImpCondition(
-            ImpCondition.DEFAULT_GROUP, request -> true, () -> "*Everything* matcher", ImpCondition.Kind.ALWAYS_TRUE);
+            ImpCondition.DEFAULT_GROUP,
+            request -> true,
+            () -> "*Everything* matcher",
+            ImpCondition.Kind.ALWAYS_TRUE,
+            ImpCondition.Cost.METHOD_AND_HEADERS);
 
     ImpMatch() {}
 
@@ -30,15 +35,13 @@ public final class ImpMatch {
         Preconditions.nonNull(condition, "condition");
         if (condition == EVERYTHING_INSTANCE) {
             throw new IllegalArgumentException("Negating *Everything* matcher is not allowed");
-        } else if (condition.kind == ImpCondition.Kind.AND || condition.kind == ImpCondition.Kind.OR) {
-            throw new IllegalArgumentException("Negating *And* or *Or* matcher is currently not supported");
         }
         return new ImpCondition(
                 condition.group,
-                request -> !condition.predicate.test(request),
+                request -> !condition.test(request),
                 () -> "not " + condition.context.get(),
                 ImpCondition.Kind.NOT,
-                condition.nested);
+                List.of(condition));
     }
 
     public ImpCondition or(ImpCondition... conditions) {
@@ -79,6 +82,7 @@ public final class ImpMatch {
     public static final class Method {
 
         private static final String GROUP = "Method";
+        private static final ImpCondition.Cost COST = ImpCondition.Cost.METHOD_AND_HEADERS;
 
         Method() {}
 
@@ -93,7 +97,10 @@ public final class ImpMatch {
                     GROUP,
                     request -> request.method().equals(expectedMethod),
                     () -> String.format("is(\"%s\")", expectedMethod),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "is", expectedMethod),
+                    RouteHint.methods(List.of(expectedMethod)));
         }
 
         public ImpCondition anyOf(
@@ -124,7 +131,10 @@ public final class ImpMatch {
                     GROUP,
                     request -> expectedMethodsSet.contains(request.method()),
                     () -> String.format("anyOf(\"%s\")", expectedMethodsSet),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "anyOf", expectedMethodsSet),
+                    RouteHint.methods(expectedMethodsSet));
         }
 
         public ImpCondition get() {
@@ -164,13 +174,17 @@ public final class ImpMatch {
                     GROUP,
                     request -> request.method().equals(expectedMethod.name()),
                     () -> expectedMethod.name().toLowerCase(Locale.ROOT) + "()",
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "is", expectedMethod.name()),
+                    RouteHint.method(expectedMethod));
         }
     }
 
     public static final class Headers {
 
         private static final String GROUP = "Headers";
+        private static final ImpCondition.Cost COST = ImpCondition.Cost.METHOD_AND_HEADERS;
 
         Headers() {}
 
@@ -191,7 +205,9 @@ public final class ImpMatch {
                         return true;
                     },
                     () -> String.format("containsAllKeys(\"%s\")", expectedHeadersKeysCopy),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsAllKeys", expectedHeadersKeysCopy));
         }
 
         public ImpCondition containsKey(String expectedKey) {
@@ -200,7 +216,9 @@ public final class ImpMatch {
                     GROUP,
                     request -> request.headers().containsKey(expectedKey),
                     () -> String.format("containsKey(\"%s\")", expectedKey),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsKey", expectedKey));
         }
 
         public ImpCondition containsValue(String expectedValue) {
@@ -218,7 +236,9 @@ public final class ImpMatch {
                         return false;
                     },
                     () -> String.format("containsValue(\"%s\")", expectedValue),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsValue", expectedValue));
         }
 
         public ImpCondition containsPair(String expectedKey, String expectedValue) {
@@ -238,7 +258,9 @@ public final class ImpMatch {
                         return false;
                     },
                     () -> String.format("containsPair(\"%s\", \"%s\")", expectedKey, expectedKey),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsPair", expectedKey, expectedValue));
         }
 
         public ImpCondition containsPairList(String expectedKey, List<String> expectedValueList) {
@@ -252,7 +274,9 @@ public final class ImpMatch {
                         return valuesList != null && valuesList.equals(expectedValueListCopy);
                     },
                     () -> String.format("containsPairList(\"%s, \"%s\")", expectedKey, expectedValueListCopy),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsPairList", expectedKey, expectedValueListCopy));
         }
 
         public ImpCondition hasContentType(String expectedContentType) {
@@ -271,13 +295,16 @@ public final class ImpMatch {
                         return false;
                     },
                     () -> String.format("hasContentType(\"%s\")", expectedContentType),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "hasContentType", expectedContentType));
         }
     }
 
     public static final class Body {
 
         private static final String GROUP = "Body";
+        private static final ImpCondition.Cost COST = ImpCondition.Cost.BODY;
 
         Body() {}
 
@@ -285,28 +312,81 @@ public final class ImpMatch {
             Preconditions.nonBlank(substring, "substring");
             return new ImpCondition(
                     GROUP,
-                    request -> request.body().contains(substring),
+                    new BodySubstring(substring, false),
                     () -> String.format("contains(\"%s\")", substring),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "contains", substring));
         }
 
         public ImpCondition matches(@Language("regexp") String pattern) {
             Preconditions.nonBlank(pattern, "pattern");
-            var compiledPattern = Pattern.compile(pattern);
+            var matcher = RegexMatcher.compile(pattern);
             return new ImpCondition(
                     GROUP,
-                    request -> compiledPattern.matcher(request.body()).matches(),
+                    request -> matcher.matches(request.body()),
                     () -> String.format("matches(\"%s\")", pattern),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "matches", pattern));
         }
 
         public ImpCondition containsIgnoreCase(String substring) {
             Preconditions.nonBlank(substring, "substring");
             return new ImpCondition(
                     GROUP,
-                    request -> request.body().toLowerCase(Locale.ROOT).contains(substring.toLowerCase(Locale.ROOT)),
+                    new BodySubstring(substring, true),
                     () -> String.format("containsIgnoreCase(\"%s\")", substring),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsIgnoreCase", substring));
+        }
+
+        public ImpCondition startsWith(String prefix) {
+            Preconditions.nonBlank(prefix, "prefix");
+            var prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+            return new ImpCondition(
+                    GROUP,
+                    request -> BodyBytes.startsWith(request.bodyBytes(), prefixBytes),
+                    () -> String.format("startsWith(\"%s\")", prefix),
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "startsWith", prefix));
+        }
+
+        public ImpCondition endsWith(String suffix) {
+            Preconditions.nonBlank(suffix, "suffix");
+            var suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+            return new ImpCondition(
+                    GROUP,
+                    request -> BodyBytes.endsWith(request.bodyBytes(), suffixBytes),
+                    () -> String.format("endsWith(\"%s\")", suffix),
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "endsWith", suffix));
+        }
+
+        public ImpCondition hasBytes(byte[] bytes) {
+            Preconditions.nonNull(bytes, "bytes");
+            var expected = bytes.clone();
+            return new ImpCondition(
+                    GROUP,
+                    request -> Arrays.equals(request.bodyBytes(), expected),
+                    () -> String.format("hasBytes(<%d bytes>)", expected.length),
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "hasBytes", ByteBuffer.wrap(expected)));
+        }
+
+        public ImpCondition hasLength(int length) {
+            Preconditions.nonNegative(length, "length");
+            return new ImpCondition(
+                    GROUP,
+                    request -> request.bodyBytes().length == length,
+                    () -> String.format("hasLength(%d)", length),
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "hasLength", length));
         }
 
         public ImpCondition testBodyString(ImpPredicate<String> predicate) {
@@ -315,13 +395,16 @@ public final class ImpMatch {
                     GROUP,
                     request -> predicate.test(request.body()),
                     () -> "testBodyString(<predicate>)",
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "testBodyString", predicate));
         }
     }
 
     public static final class Query {
 
         private static final String GROUP = "Query";
+        private static final ImpCondition.Cost COST = ImpCondition.Cost.QUERY;
 
         Query() {}
 
@@ -331,7 +414,9 @@ public final class ImpMatch {
                     GROUP,
                     request -> request.uri().query().containsKey(key),
                     () -> String.format("hasKey(\"%s\")", key),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "hasKey", key));
         }
 
         public ImpCondition hasParam(String key, String value) {
@@ -341,25 +426,43 @@ public final class ImpMatch {
                     GROUP,
                     request -> Objects.equals(request.uri().query().get(key), value),
                     () -> String.format("hasParam(\"%s\")", key),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "hasParam", key, value));
         }
     }
 
     public static final class Path {
 
         private static final String GROUP = "Path";
+        private static final ImpCondition.Cost COST = ImpCondition.Cost.PATH;
 
         Path() {}
 
         public ImpCondition matches(@Language("regexp") String pattern) {
             Preconditions.nonBlank(pattern, "pattern");
-            var compiledPattern = Pattern.compile(pattern);
+            var matcher = RegexMatcher.compile(pattern);
             return new ImpCondition(
                     GROUP,
-                    request ->
-                            compiledPattern.matcher(request.uri().uriString()).matches(),
+                    request -> matcher.matches(request.uri().uriString()),
                     () -> String.format("matches(\"%s\")", pattern),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "matches", pattern),
+                    RouteHint.pathPrefix(RouteHint.regexLiteralPrefix(pattern)));
+        }
+
+        public ImpCondition template(String template) {
+            Preconditions.nonBlank(template, "template");
+            var pathTemplate = PathTemplate.parse(template);
+            return new ImpCondition(
+                    GROUP,
+                    pathTemplate,
+                    () -> String.format("template(\"%s\")", template),
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "template", template),
+                    RouteHint.pathPrefix(pathTemplate.literalPrefix()));
         }
 
         public ImpCondition contains(String substring) {
@@ -368,19 +471,22 @@ public final class ImpMatch {
                     GROUP,
                     request -> request.uri().uriString().contains(substring),
                     () -> String.format("contains(\"%s\")", substring),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "contains", substring),
+                    RouteHint.pathSubstring(substring));
         }
 
         public ImpCondition containsIgnoreCase(String substring) {
             Preconditions.nonBlank(substring, "substring");
+            var lowerCaseSubstring = substring.toLowerCase(Locale.ROOT);
             return new ImpCondition(
                     GROUP,
-                    request -> request.uri()
-                            .uriString()
-                            .toLowerCase(Locale.ROOT)
-                            .contains(substring.toLowerCase(Locale.ROOT)),
+                    request -> request.lowerCaseUriString().contains(lowerCaseSubstring),
                     () -> String.format("containsIgnoreCase(\"%s\")", substring),
-                    ImpCondition.Kind.CONDITION);
+                    ImpCondition.Kind.CONDITION,
+                    COST,
+                    List.of(GROUP, "containsIgnoreCase", substring));
         }
     }
 
@@ -0,0 +1,37 @@
+package com.varlanv.imp;
+
+public final class ImpMatcherStatistics {
+
+    private final String id;
+    private final long hitCount;
+    private final ImpLatencyStatistics matchTime;
+    private final ImpLatencyStatistics handleTime;
+
+    ImpMatcherStatistics(String id, long hitCount, ImpLatencyStatistics matchTime, ImpLatencyStatistics handleTime) {
+        this.id = id;
+        this.hitCount = hitCount;
+        this.matchTime = matchTime;
+        this.handleTime = handleTime;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /** Time from start of request handling until this matcher was picked to respond. */
+    public ImpLatencyStatistics matchTime() {
+        return matchTime;
+    }
+
+    /**
+     * Time from start of request handling until response was sent. Recorded after response is sent, so that its count
+     * can lag behind {@link #hitCount()} while responses are being sent.
+     */
+    public ImpLatencyStatistics handleTime() {
+        return handleTime;
+    }
+}
@@ -0,0 +1,72 @@
+package com.varlanv.imp;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Part of request that tells which borrowed server it belongs to. Shared server started with partition key can be
+ * borrowed by many partitions at once, see {@link ImpShared#borrow(String)}.
+ */
+public final class ImpPartitionKey {
+
+    private final String description;
+    private final Extractor extractor;
+
+    private ImpPartitionKey(String description, Extractor extractor) {
+        this.description = description;
+        this.extractor = extractor;
+    }
+
+    /** First value of header with given name. */
+    public static ImpPartitionKey header(String headerName) {
+        Preconditions.nonBlank(headerName, "headerName");
+        return new ImpPartitionKey(
+                String.format("header [ %s ]", headerName), exchange -> firstHeader(exchange, headerName));
+    }
+
+    /**
+     * First segment of request path, so that partition {@code "orders"} receives requests to {@code "/orders/**"}.
+     * Path is not changed, and matchers of borrowed server still see it as a whole.
+     */
+    public static ImpPartitionKey pathPrefix() {
+        return new ImpPartitionKey("path prefix", exchange -> {
+            var path = exchange.requestUri().getPath();
+            if (path == null || path.length() < 2 || path.charAt(0) != '/') {
+                return null;
+            }
+            var end = path.indexOf('/', 1);
+            return end < 0 ? path.substring(1) : path.substring(1, end);
+        });
+    }
+
+    /** Value of {@code Host} header, without port. */
+    public static ImpPartitionKey host() {
+        return new ImpPartitionKey("host", exchange -> {
+            var host = firstHeader(exchange, "Host");
+            if (host == null) {
+                return null;
+            }
+            var portStart = host.lastIndexOf(':');
+            // colons of IPv6 address are inside brackets
+            return portStart > host.lastIndexOf(']') ? host.substring(0, portStart) : host;
+        });
+    }
+
+    @Nullable String extract(EngineExchange exchange) {
+        return extractor.extract(exchange);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static @Nullable String firstHeader(EngineExchange exchange, String headerName) {
+        var values = exchange.requestHeaders().get(headerName);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private interface Extractor {
+
+        @Nullable String extract(EngineExchange exchange);
+    }
+}
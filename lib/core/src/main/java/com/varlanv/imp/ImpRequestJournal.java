@@ -0,0 +1,177 @@
+package com.varlanv.imp;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Requests received by server, in order of arrival. Only the most recent requests are kept, up to capacity given to
+ * {@code withRequestJournal}, older ones are dropped, so that memory stays bounded under any load. Counts cover all
+ * requests since server start, including dropped ones.
+ */
+public final class ImpRequestJournal {
+
+    private final JournalSettings settings;
+    // Ring of most recent entries, entry with sequence N is in slot N % capacity
+    private final AtomicReferenceArray<@Nullable ImpJournalEntry> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+    // Incremented after entry is in its slot, so that entries up to count are visible to readers
+    private final AtomicLong count = new AtomicLong();
+    private final ConcurrentHashMap<String, LongAdder> countsByMatcherId = new ConcurrentHashMap<>();
+    private final LongAdder unmatchedCount = new LongAdder();
+    // Request threads only take the monitor when someone awaits requests
+    private final AtomicInteger awaiting = new AtomicInteger();
+    private final Object monitor = new Object();
+
+    ImpRequestJournal(JournalSettings settings) {
+        this.settings = settings;
+        this.slots = new AtomicReferenceArray<>(settings.capacity);
+    }
+
+    void record(@Nullable String matcherId, ImpRequestView request, URI uri) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        byte[] body;
+        var bodyTruncated = false;
+        if (settings.maxBodyBytes == 0) {
+            body = new byte[0];
+        } else {
+            var bodyBytes = request.bodyBytes();
+            bodyTruncated = bodyBytes.length > settings.maxBodyBytes;
+            body = Arrays.copyOf(bodyBytes, Math.min(bodyBytes.length, settings.maxBodyBytes));
+        }
+        var headersCopy = EngineHeaders.newHeaders();
+        for (var entry : request.headers().entrySet()) {
+            EngineHeaders.put(headersCopy, entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        var sequence = nextSequence.getAndIncrement();
+        var entry = new ImpJournalEntry(
+                sequence,
+                matcherId,
+                request.method(),
+                uri,
+                Collections.unmodifiableMap(headersCopy),
+                body,
+                bodyTruncated);
+        var slot = (int) (sequence % settings.capacity);
+        while (true) {
+            var current = slots.get(slot);
+            // slow writer must not replace entry of request that arrived later
+            if ((current != null && current.sequence() > sequence) || slots.compareAndSet(slot, current, entry)) {
+                break;
+            }
+        }
+        if (matcherId == null) {
+            unmatchedCount.increment();
+        } else {
+            countsByMatcherId.computeIfAbsent(matcherId, id -> new LongAdder()).increment();
+        }
+        count.incrementAndGet();
+        if (awaiting.get() > 0) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /** Number of all journaled requests. */
+    public long count() {
+        checkEnabled();
+        return count.get();
+    }
+
+    /** Number of requests that matcher with given id responded to. */
+    public long countByMatcherId(String matcherId) {
+        checkEnabled();
+        Preconditions.nonBlank(matcherId, "matcherId");
+        var matcherCount = countsByMatcherId.get(matcherId);
+        return matcherCount == null ? 0 : matcherCount.sum();
+    }
+
+    /** Number of requests that no matcher matched. */
+    public long unmatchedCount() {
+        checkEnabled();
+        return unmatchedCount.sum();
+    }
+
+    /** Most recent requests that are still kept, oldest first. */
+    public List<ImpJournalEntry> entries() {
+        checkEnabled();
+        return collect(null);
+    }
+
+    /**
+     * Most recent requests with given path that are still kept, oldest first. Paths are not indexed, since distinct
+     * paths are not bounded, so this is a linear scan over all kept entries, up to journal capacity.
+     */
+    public List<ImpJournalEntry> findByPath(String path) {
+        checkEnabled();
+        Preconditions.nonNull(path, "path");
+        return collect(path);
+    }
+
+    private List<ImpJournalEntry> collect(@Nullable String path) {
+        var capacity = settings.capacity;
+        var end = nextSequence.get();
+        var entries = path == null
+                ? new ArrayList<ImpJournalEntry>((int) Math.min(end, capacity))
+                : new ArrayList<ImpJournalEntry>();
+        for (var sequence = Math.max(0, end - capacity); sequence < end; sequence++) {
+            var entry = slots.get((int) (sequence % capacity));
+            // skips entries that are not in their slot yet, or were already replaced by later ones
+            if (entry != null && entry.sequence() == sequence && (path == null || path.equals(entry.path()))) {
+                entries.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Waits until at least {@code expectedCount} requests are journaled, and returns {@link #entries()}. Throws
+     * {@link IllegalStateException} if fewer requests arrive within timeout.
+     */
+    public List<ImpJournalEntry> awaitRequests(int expectedCount, Duration timeout) {
+        checkEnabled();
+        Preconditions.nonNegative(expectedCount, "expectedCount");
+        Preconditions.nonNull(timeout, "timeout");
+        var deadlineNanos = System.nanoTime() + timeout.toNanos();
+        awaiting.incrementAndGet();
+        try {
+            synchronized (monitor) {
+                while (count.get() < expectedCount) {
+                    var remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        throw new IllegalStateException(String.format(
+                                "Expected at least %d requests within %s, but %d requests were received",
+                                expectedCount, timeout, count.get()));
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remainingNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return InternalUtils.hide(e);
+        } finally {
+            awaiting.decrementAndGet();
+        }
+        return entries();
+    }
+
+    private void checkEnabled() {
+        if (!settings.isEnabled()) {
+            throw new IllegalStateException(
+                    "Request journal is not enabled. Use `withRequestJournal` when building server to enable it.");
+        }
+    }
+}
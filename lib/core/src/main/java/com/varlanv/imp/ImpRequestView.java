@@ -1,34 +1,42 @@
 package com.varlanv.imp;
 
-import com.jayway.jsonpath.PathNotFoundException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import org.intellij.lang.annotations.MagicConstant;
+import org.jspecify.annotations.Nullable;
 
 public final class ImpRequestView {
 
     private final ImpMethod method;
     private final Map<String, List<String>> headers;
-    private final MemoizedSupplier<String> stringBodySupplier;
-    private final MemoizedSupplier<JsonPathInternal.CompiledJson> compiledJsonSupplier;
-    private final ImpFn<JsonPathInternal.CompiledPath, JsonPathInternal.ResultRef> jsonPathValueFn;
+    private final ImpSupplier<byte[]> bodySupplier;
     private final ImpUri uri;
+    // Derived lazily, request view is only touched by thread that handles the request, so it needs no locking
+    private byte @Nullable [] bodyBytes;
+    @Nullable private String body;
+    @Nullable private String lowerCaseUriString;
+    private JsonPathInternal.@Nullable CompiledJson compiledJson;
+    // Path template state is only touched by thread that matches this request
+    private String @Nullable [] pathSegments;
+    @Nullable private PathTemplateTrie pathTemplateTrie;
+    private PathTemplate @Nullable [] matchedPathTemplates;
+    @Nullable private PathTemplate selectedPathTemplate;
+    @Nullable private Map<String, String> pathVariables;
+    // Body substring state, same confinement as path template state
+    @Nullable private String lowerCaseBody;
+    @Nullable private BodySubstrings bodySubstrings;
+    private long @Nullable [] foundBodySubstrings;
+    // JsonPath state, same confinement as path template state
+    @Nullable private JsonPathScanner jsonPathScanner;
+    private JsonPathInternal.ResultRef @Nullable [] jsonPathResults;
 
     ImpRequestView(ImpMethod method, Map<String, List<String>> headers, ImpSupplier<byte[]> bodySupplier, URI uri) {
         this.method = method;
         this.headers = headers;
-        this.stringBodySupplier = MemoizedSupplier.of(() -> new String(bodySupplier.get(), StandardCharsets.UTF_8));
-        this.compiledJsonSupplier = MemoizedSupplier.of(() -> JsonPathInternal.compileJson(stringBodySupplier.get()));
-        this.jsonPathValueFn = compiledPath -> {
-            try {
-                var result = compiledJsonSupplier.get().documentContext.read(compiledPath.jsonPath);
-                return new JsonPathInternal.ResultRef(result, true);
-            } catch (PathNotFoundException e) {
-                return new JsonPathInternal.ResultRef(null, false);
-            }
-        };
+        this.bodySupplier = bodySupplier;
         this.uri = new ImpUri(uri);
     }
 
@@ -38,19 +46,179 @@ public final class ImpRequestView {
         return method.name();
     }
 
+    ImpMethod impMethod() {
+        return method;
+    }
+
     public Map<String, List<String>> headers() {
         return headers;
     }
 
     public String body() {
-        return stringBodySupplier.get();
+        var decoded = body;
+        if (decoded == null) {
+            // decoded only when some condition needs body as String
+            decoded = new String(bodyBytes(), StandardCharsets.UTF_8);
+            body = decoded;
+        }
+        return decoded;
+    }
+
+    // Raw body bytes, must not be modified
+    byte[] bodyBytes() {
+        var bytes = bodyBytes;
+        if (bytes == null) {
+            bytes = bodySupplier.get();
+            bodyBytes = bytes;
+        }
+        return bytes;
+    }
+
+    String lowerCaseBody() {
+        var body = lowerCaseBody;
+        if (body == null) {
+            body = body().toLowerCase(Locale.ROOT);
+            lowerCaseBody = body;
+        }
+        return body;
+    }
+
+    String lowerCaseUriString() {
+        var uriString = lowerCaseUriString;
+        if (uriString == null) {
+            uriString = uri.uriString().toLowerCase(Locale.ROOT);
+            lowerCaseUriString = uriString;
+        }
+        return uriString;
     }
 
     public ImpUri uri() {
         return uri;
     }
 
+    /**
+     * Variables extracted by {@code path().template(...)} matcher of the candidate that is responding to this request,
+     * or empty map if that candidate has no template matcher.
+     */
+    public Map<String, String> pathVariables() {
+        var variables = pathVariables;
+        if (variables == null) {
+            var template = selectedPathTemplate;
+            variables = template == null ? Map.of() : template.variables(pathSegments());
+            pathVariables = variables;
+        }
+        return variables;
+    }
+
+    void usePathTemplates(PathTemplateTrie trie) {
+        if (pathTemplateTrie != trie) {
+            pathTemplateTrie = trie;
+            matchedPathTemplates = null;
+        }
+    }
+
+    void selectPathTemplate(@Nullable PathTemplate template) {
+        selectedPathTemplate = template;
+        pathVariables = null;
+    }
+
+    boolean matchesPathTemplate(PathTemplate template) {
+        var trie = pathTemplateTrie;
+        if (trie != null) {
+            var matched = matchedPathTemplates;
+            if (matched == null) {
+                // single walk for all templates, on first template evaluated for this request
+                matched = trie.match(pathSegments());
+                matchedPathTemplates = matched;
+            }
+            for (var matchedTemplate : matched) {
+                if (matchedTemplate == template) {
+                    return true;
+                }
+            }
+            if (trie.contains(template)) {
+                return false;
+            }
+        }
+        // template is not indexed, for example when it is negated with not(...)
+        return template.matches(pathSegments());
+    }
+
+    void useBodySubstrings(BodySubstrings substrings) {
+        if (bodySubstrings != substrings) {
+            bodySubstrings = substrings;
+            foundBodySubstrings = null;
+        }
+    }
+
+    boolean containsBodySubstring(BodySubstring substring) {
+        var substrings = bodySubstrings;
+        if (substrings != null) {
+            var position = substrings.position(substring);
+            if (position >= 0) {
+                var found = foundBodySubstrings;
+                if (found == null) {
+                    // single pass for all substrings, on first substring evaluated for this request
+                    found = substrings.find(this);
+                    foundBodySubstrings = found;
+                }
+                return (found[position >>> 6] & (1L << position)) != 0;
+            }
+        }
+        // substring is not indexed
+        return substring.matches(this);
+    }
+
+    private String[] pathSegments() {
+        var segments = pathSegments;
+        if (segments == null) {
+            segments = PathTemplate.splitPath(uri.uriString());
+            pathSegments = segments;
+        }
+        return segments;
+    }
+
+    void useJsonPathScanner(JsonPathScanner scanner) {
+        if (jsonPathScanner != scanner) {
+            jsonPathScanner = scanner;
+            jsonPathResults = null;
+        }
+    }
+
     JsonPathInternal.ResultRef jsonPathResultRef(JsonPathInternal.CompiledPath compiledPath) {
-        return jsonPathValueFn.apply(compiledPath);
+        var ref = scannedJsonPathResultRef(compiledPath);
+        if (ref != JsonPathScanner.MALFORMED && ref != JsonPathScanner.UNDECIDED) {
+            return ref;
+        }
+        var jsonPath = compiledPath.jsonPath;
+        if (jsonPath == null) {
+            // Jayway is not on classpath, then only paths that scanner evaluates are compiled, so body is not strict
+            // JSON here
+            throw JsonPathInternal.parseFailure(body(), null);
+        }
+        var json = compiledJson;
+        if (json == null) {
+            json = JsonPathInternal.compileJson(body());
+            compiledJson = json;
+        }
+        return JsonPathInternal.read(json, jsonPath);
+    }
+
+    private JsonPathInternal.ResultRef scannedJsonPathResultRef(JsonPathInternal.CompiledPath compiledPath) {
+        var scanner = jsonPathScanner;
+        if (scanner != null) {
+            var position = scanner.position(compiledPath);
+            if (position >= 0) {
+                var results = jsonPathResults;
+                if (results == null) {
+                    // single pass for all paths, on first path evaluated for this request
+                    results = scanner.scan(bodyBytes());
+                    jsonPathResults = results;
+                }
+                return results[position];
+            }
+        }
+        // path is not indexed, for example when it is tested outside of response decision
+        return compiledPath.scan(bodyBytes());
     }
 }
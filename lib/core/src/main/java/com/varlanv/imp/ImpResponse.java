@@ -1,6 +1,7 @@
 package com.varlanv.imp;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -73,6 +74,10 @@ public final class ImpResponse {
             return new BuilderHeaders(statusCode, NamedFn.from("body", body), headers -> headers);
         }
 
+        public BuilderHeaders fileBody(Path file) {
+            return new BuilderHeaders(statusCode, FileBody.of("fileBody", file), headers -> headers);
+        }
+
         BuilderHeaders trustedBody(NamedFn<ImpRequestView, ImpSupplier<InputStream>> body) {
             Preconditions.nonNull(body, "body");
             return new BuilderHeaders(statusCode, body, headers -> headers);
@@ -108,6 +113,11 @@ public final class ImpResponse {
             return new ImpResponse(body, statusCode, headersOperator);
         }
 
+        // For responses that are built once and sent for many requests, headers are resolved now instead of per request
+        ImpResponse buildFrozen() {
+            return new ImpResponse(body, statusCode, FrozenHeadersOperator.freeze(headersOperator));
+        }
+
         BuilderHeaders trustedHeaders(ImpHeadersOperator headersOperator) {
             return new BuilderHeaders(statusCode, body, headersOperator);
         }
@@ -9,4 +9,7 @@ public interface ImpServer {
     int port();
 
     ImpStatistics statistics();
+
+    /** Journal of received requests, throws {@link IllegalStateException} on use if it was not enabled. */
+    ImpRequestJournal journal();
 }
@@ -4,10 +4,12 @@ final class ImpServerContext {
 
     private final StartedServerConfig config;
     private final MutableImpStatistics statistics;
+    private final ImpRequestJournal journal;
 
-    ImpServerContext(StartedServerConfig config, MutableImpStatistics statistics) {
+    ImpServerContext(StartedServerConfig config, MutableImpStatistics statistics, ImpRequestJournal journal) {
         this.config = config;
         this.statistics = statistics;
+        this.journal = journal;
     }
 
     public StartedServerConfig config() {
@@ -17,4 +19,8 @@ final class ImpServerContext {
     public MutableImpStatistics statistics() {
         return statistics;
     }
+
+    public ImpRequestJournal journal() {
+        return journal;
+    }
 }
@@ -10,5 +10,23 @@ public interface ImpShared {
 
     ImpStatistics statistics();
 
+    /**
+     * Journal of requests received while server was not borrowed, throws {@link IllegalStateException} on use if it
+     * was not enabled. Each borrowed server has its own journal.
+     */
+    ImpRequestJournal journal();
+
+    /**
+     * Borrows all requests of server. Throws {@link IllegalStateException} from {@code useServer} if any partition is
+     * borrowed at the same time.
+     */
     ImpBorrowedSpec borrow();
+
+    /**
+     * Borrows only requests whose partition key has given value, while other partitions can be borrowed at the same
+     * time. Requests of partitions that are not borrowed are handled by shared server itself. Server should be started
+     * with {@code startSharedOnPort(port, partitionKey)} or {@code startSharedOnRandomPort(partitionKey)}. Throws
+     * {@link IllegalStateException} from {@code useServer} if whole server is borrowed at the same time.
+     */
+    ImpBorrowedSpec borrow(String partition);
 }
@@ -1,24 +1,53 @@
 package com.varlanv.imp;
 
+import java.util.Collections;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
 public final class ImpStatistics {
 
-    private final int hitCount;
-    private final int missCount;
+    private final long hitCount;
+    private final long missCount;
+    private final Map<String, ImpMatcherStatistics> matchers;
 
-    ImpStatistics(int hitCount, int missCount) {
+    ImpStatistics(long hitCount, long missCount, Map<String, ImpMatcherStatistics> matchers) {
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.matchers = Collections.unmodifiableMap(matchers);
     }
 
     ImpStatistics(MutableImpStatistics mutableStatistics) {
-        this(mutableStatistics.hitCount(), mutableStatistics.missCount());
+        this(mutableStatistics.hitCount(), mutableStatistics.missCount(), mutableStatistics.matchersSnapshot());
     }
 
+    /** Number of requests that matched some matcher, or {@link Integer#MAX_VALUE} if it does not fit into int. */
     public int hitCount() {
-        return hitCount;
+        return (int) Math.min(hitCount, Integer.MAX_VALUE);
     }
 
+    /** Number of requests that matched no matcher, or {@link Integer#MAX_VALUE} if it does not fit into int. */
     public int missCount() {
+        return (int) Math.min(missCount, Integer.MAX_VALUE);
+    }
+
+    public long hitCountAsLong() {
+        return hitCount;
+    }
+
+    public long missCountAsLong() {
         return missCount;
     }
+
+    /**
+     * Statistics of matchers that responded to at least one request, by matcher id. Snapshot is taken without stopping
+     * request handling, so that counters of different matchers can be from slightly different moments.
+     */
+    public Map<String, ImpMatcherStatistics> matchers() {
+        return matchers;
+    }
+
+    /** Statistics of matcher with given id, or null if it did not respond to any request yet. */
+    public @Nullable ImpMatcherStatistics matcher(String id) {
+        return matchers.get(id);
+    }
 }
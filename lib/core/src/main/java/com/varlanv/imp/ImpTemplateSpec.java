@@ -1,10 +1,7 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.Headers;
-import com.sun.net.httpserver.HttpExchange;
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -108,44 +105,47 @@ public final class ImpTemplateSpec {
                 String contentType, ImpFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
             Preconditions.nonBlank(contentType, "contentType");
             Preconditions.nonNull(bodyFunction, "bodyFunction");
-            return toHeadersMatching(contentType, bodyFunction);
+            return toHeadersMatching(contentType, NamedFn.from("body", bodyFunction));
         }
 
         public RequestMatchingSpecHeaders andTextBody(String textBody) {
             Preconditions.nonNull(textBody, "textBody");
-            return toHeadersMatching(
-                    ImpContentType.PLAIN_TEXT,
-                    ignored -> () -> new ByteArrayInputStream(textBody.getBytes(StandardCharsets.UTF_8)));
+            return toHeadersMatching(ImpContentType.PLAIN_TEXT, StaticBody.utf8("body", textBody));
         }
 
         public RequestMatchingSpecHeaders andJsonBody(@Language("json") String jsonBody) {
             Preconditions.nonNull(jsonBody, "jsonBody");
-            return toHeadersMatching(
-                    ImpContentType.JSON,
-                    ignored -> () -> new ByteArrayInputStream(jsonBody.getBytes(StandardCharsets.UTF_8)));
+            return toHeadersMatching(ImpContentType.JSON, StaticBody.utf8("body", jsonBody));
         }
 
         public RequestMatchingSpecHeaders andXmlBody(@Language("xml") String xmlBody) {
             Preconditions.nonNull(xmlBody, "xmlBody");
-            return toHeadersMatching(
-                    ImpContentType.XML,
-                    ignored -> () -> new ByteArrayInputStream(xmlBody.getBytes(StandardCharsets.UTF_8)));
+            return toHeadersMatching(ImpContentType.XML, StaticBody.utf8("body", xmlBody));
         }
 
         public RequestMatchingSpecHeaders andDataStreamBody(ImpSupplier<InputStream> dataStreamSupplier) {
             Preconditions.nonNull(dataStreamSupplier, "dataStreamSupplier");
-            return toHeadersMatching(ImpContentType.OCTET_STREAM, ignored -> dataStreamSupplier);
+            return toHeadersMatching(ImpContentType.OCTET_STREAM, NamedFn.from("body", ignored -> dataStreamSupplier));
         }
 
         public RequestMatchingSpecHeaders andCustomContentTypeStream(
                 String contentType, ImpSupplier<InputStream> dataStreamSupplier) {
             Preconditions.nonBlank(contentType, "contentType");
             Preconditions.nonNull(dataStreamSupplier, "dataStreamSupplier");
-            return toHeadersMatching(contentType, ignored -> dataStreamSupplier);
+            return toHeadersMatching(contentType, NamedFn.from("body", ignored -> dataStreamSupplier));
+        }
+
+        public RequestMatchingSpecHeaders andFileBody(Path file) {
+            return toHeadersMatching(ImpContentType.OCTET_STREAM, FileBody.of("body", file));
+        }
+
+        public RequestMatchingSpecHeaders andCustomContentTypeFile(String contentType, Path file) {
+            Preconditions.nonBlank(contentType, "contentType");
+            return toHeadersMatching(contentType, FileBody.of("body", file));
         }
 
         private RequestMatchingSpecHeaders toHeadersMatching(
-                CharSequence contentType, ImpFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
+                CharSequence contentType, NamedFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
             return new RequestMatchingSpecHeaders(
                     id, priority, condition, responseStatus, contentType.toString(), bodyFunction);
         }
@@ -158,7 +158,7 @@ public final class ImpTemplateSpec {
         private final ImpCondition condition;
         private final ImpHttpStatus responseStatus;
         private final String contentType;
-        private final ImpFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction;
+        private final NamedFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction;
 
         RequestMatchingSpecHeaders(
                 String id,
@@ -166,7 +166,7 @@ public final class ImpTemplateSpec {
                 ImpCondition condition,
                 ImpHttpStatus responseStatus,
                 String contentType,
-                ImpFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
+                NamedFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
             this.id = id;
             this.priority = priority;
             this.condition = condition;
@@ -209,7 +209,7 @@ public final class ImpTemplateSpec {
         private final int priority;
         private final ImpCondition condition;
         private final ImpHttpStatus responseStatus;
-        private final ImpFn<ImpRequestView, ImpSupplier<InputStream>> responseBodyFunction;
+        private final NamedFn<ImpRequestView, ImpSupplier<InputStream>> responseBodyFunction;
 
         private final ImpHeadersOperator responseHeadersOperator;
 
@@ -218,7 +218,7 @@ public final class ImpTemplateSpec {
                 int priority,
                 ImpCondition condition,
                 ImpHttpStatus responseStatus,
-                ImpFn<ImpRequestView, ImpSupplier<InputStream>> responseBodyFunction,
+                NamedFn<ImpRequestView, ImpSupplier<InputStream>> responseBodyFunction,
                 ImpHeadersOperator responseHeadersOperator) {
             this.id = id;
             this.priority = priority;
@@ -229,11 +229,12 @@ public final class ImpTemplateSpec {
         }
 
         ResponseCandidate toResponseCandidate() {
-            return new ResponseCandidate(id, priority, condition, () -> ImpResponse.builder()
+            var response = ImpResponse.builder()
                     .trustedStatus(responseStatus)
-                    .bodyFromRequest(responseBodyFunction)
+                    .trustedBody(responseBodyFunction)
                     .trustedHeaders(responseHeadersOperator)
-                    .build());
+                    .buildFrozen();
+            return new ResponseCandidate(id, priority, condition, () -> response);
         }
     }
 
@@ -256,29 +257,17 @@ public final class ImpTemplateSpec {
 
         public AlwaysRespondSpecHeaders andTextBody(String textBody) {
             Preconditions.nonNull(textBody, "textBody");
-            return defaultRespondHeaders(
-                    ImpContentType.PLAIN_TEXT,
-                    NamedFn.from(
-                            "andTextBody",
-                            ignored -> () -> new ByteArrayInputStream(textBody.getBytes(StandardCharsets.UTF_8))));
+            return defaultRespondHeaders(ImpContentType.PLAIN_TEXT, StaticBody.utf8("andTextBody", textBody));
         }
 
         public AlwaysRespondSpecHeaders andJsonBody(@Language("json") String jsonBody) {
             Preconditions.nonNull(jsonBody, "jsonBody");
-            return defaultRespondHeaders(
-                    ImpContentType.JSON,
-                    NamedFn.from(
-                            "andJsonBody",
-                            ignored -> () -> new ByteArrayInputStream(jsonBody.getBytes(StandardCharsets.UTF_8))));
+            return defaultRespondHeaders(ImpContentType.JSON, StaticBody.utf8("andJsonBody", jsonBody));
         }
 
         public AlwaysRespondSpecHeaders andXmlBody(@Language("xml") String xmlBody) {
             Preconditions.nonNull(xmlBody, "xmlBody");
-            return defaultRespondHeaders(
-                    ImpContentType.XML,
-                    NamedFn.from(
-                            "andXmlBody",
-                            ignored -> () -> new ByteArrayInputStream(xmlBody.getBytes(StandardCharsets.UTF_8))));
+            return defaultRespondHeaders(ImpContentType.XML, StaticBody.utf8("andXmlBody", xmlBody));
         }
 
         public AlwaysRespondSpecHeaders andDataStreamBody(ImpSupplier<InputStream> dataStreamSupplier) {
@@ -295,6 +284,15 @@ public final class ImpTemplateSpec {
                     contentType, NamedFn.from("andCustomContentTypeStream", ignored -> dataStreamSupplier));
         }
 
+        public AlwaysRespondSpecHeaders andFileBody(Path file) {
+            return defaultRespondHeaders(ImpContentType.OCTET_STREAM, FileBody.of("andFileBody", file));
+        }
+
+        public AlwaysRespondSpecHeaders andCustomContentTypeFile(String contentType, Path file) {
+            Preconditions.nonBlank(contentType, "contentType");
+            return defaultRespondHeaders(contentType, FileBody.of("andCustomContentTypeFile", file));
+        }
+
         private AlwaysRespondSpecHeaders defaultRespondHeaders(
                 CharSequence contentType, NamedFn<ImpRequestView, ImpSupplier<InputStream>> bodyFunction) {
             return new AlwaysRespondSpecHeaders(responseStatus, contentType.toString(), bodyFunction);
@@ -320,10 +318,10 @@ public final class ImpTemplateSpec {
             Preconditions.noNullsInHeaders(headers, "headers");
             var headersCopy = Map.copyOf(headers);
             return new AlwaysRespondSpecEnd(status, responseBodyFunction, existingHeaders -> {
-                var newHeaders = new Headers();
-                newHeaders.putAll(headersCopy);
-                newHeaders.put("Content-Type", List.of(responseContentType));
-                newHeaders.putAll(existingHeaders);
+                var newHeaders = EngineHeaders.newHeaders();
+                EngineHeaders.putAll(newHeaders, headersCopy);
+                EngineHeaders.put(newHeaders, "Content-Type", List.of(responseContentType));
+                EngineHeaders.putAll(newHeaders, existingHeaders);
                 return Map.copyOf(newHeaders);
             });
         }
@@ -336,9 +334,9 @@ public final class ImpTemplateSpec {
 
         public AlwaysRespondSpecEnd andNoAdditionalHeaders() {
             return new AlwaysRespondSpecEnd(status, responseBodyFunction, headers -> {
-                var newHeaders = new Headers();
-                newHeaders.putAll(headers);
-                newHeaders.put("Content-Type", List.of(responseContentType));
+                var newHeaders = EngineHeaders.newHeaders();
+                EngineHeaders.putAll(newHeaders, headers);
+                EngineHeaders.put(newHeaders, "Content-Type", List.of(responseContentType));
                 return Map.copyOf(newHeaders);
             });
         }
@@ -360,11 +358,12 @@ public final class ImpTemplateSpec {
         }
 
         ResponseCandidate toResponseCandidate() {
-            return new ResponseCandidate(ImpMatch.EVERYTHING_INSTANCE, () -> ImpResponse.builder()
+            var response = ImpResponse.builder()
                     .trustedStatus(status)
                     .trustedBody(bodyFunction)
                     .trustedHeaders(headersOperator)
-                    .build());
+                    .buildFrozen();
+            return new ResponseCandidate(ImpMatch.EVERYTHING_INSTANCE, () -> response);
         }
     }
 
@@ -408,8 +407,8 @@ public final class ImpTemplateSpec {
         public SpecFinal fallbackForNonMatching(
                 ImpFn<ImpResponse.BuilderStatus, ImpResponse.BuilderHeaders> fallbackFn) {
             Preconditions.nonNull(fallbackFn, "fallbackFn");
-            var impResponse = fallbackFn.apply(ImpResponse.builder()).build();
-            return new SpecFinal(responseCandidates, candidates -> exchange -> impResponse);
+            var impResponse = fallbackFn.apply(ImpResponse.builder()).buildFrozen();
+            return new SpecFinal(responseCandidates, candidates -> requestView -> impResponse);
         }
 
         public SpecFinal rejectNonMatching() {
@@ -420,13 +419,92 @@ public final class ImpTemplateSpec {
     public static final class SpecFinal {
 
         private final List<ResponseCandidate> responseCandidates;
-        private final ImpFn<List<ResponseCandidate>, ImpFn<HttpExchange, ImpResponse>> fallback;
+        private final ImpFn<List<ResponseCandidate>, ImpFn<ImpRequestView, ImpResponse>> fallback;
+        private final ImpExecutor executor;
+        private final ImpEngine engine;
+        // 0 means that decisions are not cached
+        private final int decisionCacheSize;
+        private final JournalSettings journal;
 
         SpecFinal(
                 List<ResponseCandidate> responseCandidates,
-                ImpFn<List<ResponseCandidate>, ImpFn<HttpExchange, ImpResponse>> fallback) {
+                ImpFn<List<ResponseCandidate>, ImpFn<ImpRequestView, ImpResponse>> fallback,
+                ImpExecutor executor,
+                ImpEngine engine,
+                int decisionCacheSize,
+                JournalSettings journal) {
             this.responseCandidates = responseCandidates;
             this.fallback = fallback;
+            this.executor = executor;
+            this.engine = engine;
+            this.decisionCacheSize = decisionCacheSize;
+            this.journal = journal;
+        }
+
+        SpecFinal(
+                List<ResponseCandidate> responseCandidates,
+                ImpFn<List<ResponseCandidate>, ImpFn<ImpRequestView, ImpResponse>> fallback) {
+            this(
+                    responseCandidates,
+                    fallback,
+                    ImpExecutor.defaultExecutor(),
+                    ImpEngine.jdk(),
+                    0,
+                    JournalSettings.DISABLED);
+        }
+
+        public SpecFinal withExecutor(ImpExecutor executor) {
+            Preconditions.nonNull(executor, "executor");
+            return new SpecFinal(responseCandidates, fallback, executor, engine, decisionCacheSize, journal);
+        }
+
+        public SpecFinal withEngine(ImpEngine engine) {
+            Preconditions.nonNull(engine, "engine");
+            return new SpecFinal(responseCandidates, fallback, executor, engine, decisionCacheSize, journal);
+        }
+
+        /**
+         * Remembers which matcher responded to up to {@code maxEntries} distinct requests, least recently used ones
+         * are evicted. Requests are distinguished only by parts that matchers look at - method, path, referenced
+         * headers and query parameters, and body if any matcher reads it - so repeated requests skip evaluation of
+         * matchers. Cache is not used if any matcher tests body with custom predicate, as its result cannot be told
+         * from body alone.
+         */
+        public SpecFinal withDecisionCache(@Range(from = 1, to = Integer.MAX_VALUE) int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException(
+                        "Decision cache size should be greater than 0. Received " + maxEntries);
+            }
+            return new SpecFinal(responseCandidates, fallback, executor, engine, maxEntries, journal);
+        }
+
+        /**
+         * Keeps most recent {@code capacity} requests in {@link ImpServer#journal()}, with up to 64 KiB of each request
+         * body.
+         */
+        public SpecFinal withRequestJournal(@Range(from = 1, to = Integer.MAX_VALUE) int capacity) {
+            return withRequestJournal(capacity, JournalSettings.DEFAULT_MAX_BODY_BYTES);
+        }
+
+        /**
+         * Keeps most recent {@code capacity} requests in {@link ImpServer#journal()}, with up to {@code maxBodyBytes}
+         * of each request body. Longer bodies are truncated, {@code 0} skips reading body.
+         */
+        public SpecFinal withRequestJournal(
+                @Range(from = 1, to = Integer.MAX_VALUE) int capacity,
+                @Range(from = 0, to = Integer.MAX_VALUE) int maxBodyBytes) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException(
+                        "Request journal capacity should be greater than 0. Received " + capacity);
+            }
+            Preconditions.nonNegative(maxBodyBytes, "maxBodyBytes");
+            return new SpecFinal(
+                    responseCandidates,
+                    fallback,
+                    executor,
+                    engine,
+                    decisionCacheSize,
+                    new JournalSettings(capacity, maxBodyBytes));
         }
 
         public ImpTemplate onPort(@Range(from = 1, to = Integer.MAX_VALUE) int port) {
@@ -438,19 +516,41 @@ public final class ImpTemplateSpec {
         }
 
         public ImpShared startSharedOnPort(@Range(from = 1, to = Integer.MAX_VALUE) int port) {
-            return buildTemplate(PortSupplier.fixed(port)).startShared();
+            return buildTemplate(PortSupplier.fixed(port)).startShared(null);
         }
 
         public ImpShared startSharedOnRandomPort() {
             return buildTemplate(PortSupplier.ofSupplier(InternalUtils::randomPort, true))
-                    .startShared();
+                    .startShared(null);
+        }
+
+        /**
+         * Starts shared server that routes each request by {@code partitionKey}, so that many partitions can be
+         * borrowed at once with {@link ImpShared#borrow(String)}.
+         */
+        public ImpShared startSharedOnPort(
+                @Range(from = 1, to = Integer.MAX_VALUE) int port, ImpPartitionKey partitionKey) {
+            Preconditions.nonNull(partitionKey, "partitionKey");
+            return buildTemplate(PortSupplier.fixed(port)).startShared(partitionKey);
+        }
+
+        /**
+         * Starts shared server that routes each request by {@code partitionKey}, so that many partitions can be
+         * borrowed at once with {@link ImpShared#borrow(String)}.
+         */
+        public ImpShared startSharedOnRandomPort(ImpPartitionKey partitionKey) {
+            Preconditions.nonNull(partitionKey, "partitionKey");
+            return buildTemplate(PortSupplier.ofSupplier(InternalUtils::randomPort, true))
+                    .startShared(partitionKey);
         }
 
         private DefaultImpTemplate buildTemplate(PortSupplier portSupplier) {
             return new DefaultImpTemplate(ImmutableTemplateConfig.builder()
-                    .futureServer(new FutureServer(portSupplier))
-                    .decision(new ResponseDecision(responseCandidates))
+                    .futureServer(new FutureServer(portSupplier, engine.serverEngine()))
+                    .decision(new ResponseDecision(responseCandidates, decisionCacheSize))
                     .fallback(fallback.apply(responseCandidates))
+                    .executor(executor)
+                    .journal(journal)
                     .build());
         }
     }
@@ -1,12 +1,15 @@
 package com.varlanv.imp;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import org.intellij.lang.annotations.RegExp;
 
 final class JaywayJsonPathMatch implements JsonPathMatch {
 
     private static final String GROUP = "JsonPath";
+    private static final ImpCondition.Cost COST = ImpCondition.Cost.JSON_PATH;
     JsonPathInternal.CompiledPath compiledPath;
 
     JaywayJsonPathMatch(JsonPathInternal.CompiledPath compiledPath) {
@@ -17,30 +20,33 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
     public ImpCondition isNull() {
         return new ImpCondition(
                 GROUP,
-                request -> {
-                    var ref = request.jsonPathResultRef(compiledPath);
-                    return ref.isPresent && ref.value == null;
-                },
+                new JsonPathPredicate(compiledPath, ref -> ref.isPresent && ref.value == null),
                 () -> String.format("%s isNull()", compiledPath.stringPath),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "isNull"));
     }
 
     @Override
     public ImpCondition isPresent() {
         return new ImpCondition(
                 GROUP,
-                request -> request.jsonPathResultRef(compiledPath).isPresent,
+                new JsonPathPredicate(compiledPath, ref -> ref.isPresent),
                 () -> String.format("%s isPresent()", compiledPath.stringPath),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "isPresent"));
     }
 
     @Override
     public ImpCondition isNotPresent() {
         return new ImpCondition(
                 GROUP,
-                request -> !request.jsonPathResultRef(compiledPath).isPresent,
+                new JsonPathPredicate(compiledPath, ref -> !ref.isPresent),
                 () -> String.format("%s isNotPresent()", compiledPath.stringPath),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "isNotPresent"));
     }
 
     @Override
@@ -49,7 +55,9 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                 GROUP,
                 ifType(Boolean.class, val -> val),
                 () -> String.format("%s isTrue()", compiledPath.stringPath),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "isTrue"));
     }
 
     @Override
@@ -58,16 +66,21 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                 GROUP,
                 ifType(Boolean.class, val -> !val),
                 () -> String.format("%s isFalse()", compiledPath.stringPath),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "isFalse"));
     }
 
     @Override
     public ImpCondition matches(@RegExp String pattern) {
+        var matcher = RegexMatcher.compile(pattern);
         return new ImpCondition(
                 GROUP,
-                ifType(String.class, val -> val.matches(pattern)),
+                ifType(String.class, matcher::matches),
                 () -> String.format("%s matches(\"%s\")", compiledPath.stringPath, pattern),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "matches", pattern));
     }
 
     @Override
@@ -76,15 +89,16 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                 GROUP,
                 ifType(String.class, val -> Objects.equals(expected, val)),
                 () -> String.format("%s stringEquals(\"%s\")", compiledPath.stringPath, expected),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                Arrays.asList(GROUP, compiledPath.stringPath, "stringEquals", expected));
     }
 
     @Override
     public ImpCondition numberEquals(long expected) {
         return new ImpCondition(
                 GROUP,
-                request -> {
-                    var ref = request.jsonPathResultRef(compiledPath);
+                new JsonPathPredicate(compiledPath, ref -> {
                     if (ref.isPresent) {
                         if (ref.value instanceof Long) {
                             return (Long) ref.value == expected;
@@ -93,17 +107,18 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                         }
                     }
                     return false;
-                },
+                }),
                 () -> String.format("%s numberEquals(%s)", compiledPath.stringPath, expected),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "numberEquals", expected));
     }
 
     @Override
     public ImpCondition decimalEquals(BigDecimal expected) {
         return new ImpCondition(
                 GROUP,
-                request -> {
-                    var ref = request.jsonPathResultRef(compiledPath);
+                new JsonPathPredicate(compiledPath, ref -> {
                     if (ref.isPresent) {
                         if (ref.value instanceof Double) {
                             return expected.compareTo(BigDecimal.valueOf((Double) ref.value)) == 0;
@@ -116,14 +131,15 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                         }
                     }
                     return false;
-                },
+                }),
                 () -> String.format("%s decimalEquals(%s)", compiledPath.stringPath, expected),
-                ImpCondition.Kind.CONDITION);
+                ImpCondition.Kind.CONDITION,
+                COST,
+                List.of(GROUP, compiledPath.stringPath, "decimalEquals", expected));
     }
 
     private <T> ImpPredicate<ImpRequestView> ifType(Class<T> type, ImpPredicate<T> predicate) {
-        return request -> {
-            var ref = request.jsonPathResultRef(compiledPath);
+        return new JsonPathPredicate(compiledPath, ref -> {
             if (ref.isPresent) {
                 if (type.isInstance(ref.value)) {
                     @SuppressWarnings("unchecked")
@@ -132,6 +148,6 @@ final class JaywayJsonPathMatch implements JsonPathMatch {
                 }
             }
             return false;
-        };
+        });
     }
 }
@@ -0,0 +1,122 @@
+package com.varlanv.imp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import org.jspecify.annotations.Nullable;
+
+final class JdkServerEngine implements ServerEngine {
+
+    static final String NAME = "jdk";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public EngineServer bind(int port) throws IOException {
+        return new JdkEngineServer(port, HttpServer.create(new InetSocketAddress(port), 0));
+    }
+
+    private static final class JdkEngineServer implements EngineServer {
+
+        private final int port;
+        private final HttpServer httpServer;
+
+        JdkEngineServer(int port, HttpServer httpServer) {
+            this.port = port;
+            this.httpServer = httpServer;
+        }
+
+        @Override
+        public int port() {
+            return port;
+        }
+
+        @Override
+        public void start(@Nullable ExecutorService executorService, EngineHandler handler) {
+            httpServer.createContext("/", exchange -> handler.handle(new JdkEngineExchange(exchange)));
+            httpServer.setExecutor(executorService);
+            httpServer.start();
+        }
+
+        @Override
+        public void stop() {
+            httpServer.stop(0);
+        }
+    }
+
+    private static final class JdkEngineExchange implements EngineExchange {
+
+        private final HttpExchange exchange;
+
+        JdkEngineExchange(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public String requestMethod() {
+            return exchange.getRequestMethod();
+        }
+
+        @Override
+        public URI requestUri() {
+            return exchange.getRequestURI();
+        }
+
+        @Override
+        public Map<String, List<String>> requestHeaders() {
+            return exchange.getRequestHeaders();
+        }
+
+        @Override
+        public byte[] readRequestBody() throws IOException {
+            return exchange.getRequestBody().readAllBytes();
+        }
+
+        @Override
+        public void sendResponse(int statusCode, Map<String, List<String>> headers, byte[] body) throws IOException {
+            exchange.getResponseHeaders().putAll(headers);
+            if (statusCode < 200) {
+                exchange.sendResponseHeaders(statusCode, -1);
+                exchange.getResponseBody().close();
+            } else {
+                exchange.sendResponseHeaders(statusCode, body.length);
+                var responseBody = exchange.getResponseBody();
+                responseBody.write(body);
+                responseBody.flush();
+                responseBody.close();
+            }
+        }
+
+        @Override
+        public void streamResponse(
+                int statusCode, Map<String, List<String>> headers, InputStream body, long contentLength)
+                throws IOException {
+            try (body) {
+                var responseHeaders = exchange.getResponseHeaders();
+                responseHeaders.putAll(headers);
+                responseHeaders.remove("Content-Length");
+                responseHeaders.remove("Transfer-Encoding");
+                var hasBody = statusCode >= 200 && statusCode != 204 && statusCode != 304;
+                if (!hasBody || contentLength == 0 || "HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(statusCode, -1);
+                    exchange.getResponseBody().close();
+                } else {
+                    // for HttpServer 0 means chunked transfer encoding
+                    exchange.sendResponseHeaders(statusCode, contentLength < 0 ? 0 : contentLength);
+                    try (var responseBody = exchange.getResponseBody()) {
+                        body.transferTo(responseBody);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.varlanv.imp;
+
+// Size of request journal, capacity of 0 means that requests are not journaled
+final class JournalSettings {
+
+    static final JournalSettings DISABLED = new JournalSettings(0, 0);
+    static final int DEFAULT_MAX_BODY_BYTES = 64 * 1024;
+
+    final int capacity;
+    final int maxBodyBytes;
+
+    JournalSettings(int capacity, int maxBodyBytes) {
+        this.capacity = capacity;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    boolean isEnabled() {
+        return capacity > 0;
+    }
+}
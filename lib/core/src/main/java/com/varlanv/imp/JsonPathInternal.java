@@ -3,6 +3,8 @@ package com.varlanv.imp;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import java.util.List;
 import org.jspecify.annotations.Nullable;
 
 final class JsonPathInternal {
@@ -15,31 +17,19 @@ final class JsonPathInternal {
         ImpFn<String, CompiledJson> compiledJsonFnTmp;
         try {
             Class.forName("com.jayway.jsonpath.JsonPath");
-            jsonPathFnTmp = jsonPathString -> {
-                try {
-                    var compiledJsonPath = JsonPath.compile(jsonPathString);
-                    return new JaywayJsonPathMatch(new CompiledPath(jsonPathString, compiledJsonPath));
-                } catch (InvalidPathException e) {
-                    throw new IllegalArgumentException(
-                            String.format(
-                                    "Provided invalid JsonPath - [ %s ]. " + "Check internal error message for details",
-                                    jsonPathString),
-                            e);
-                }
-            };
-            compiledJsonFnTmp = json -> {
-                try {
-                    var compiledJsonPath = JsonPath.parse(json);
-                    return new CompiledJson(compiledJsonPath);
-                } catch (Exception e) {
-                    throw new IllegalStateException(String.format("Failed to parse json string: %s", json), e);
-                }
-            };
+            jsonPathFnTmp = jsonPathString -> new JaywayJsonPathMatch(new CompiledPath(
+                    jsonPathString, Jayway.compile(jsonPathString), JsonPathScanner.steps(jsonPathString)));
+            compiledJsonFnTmp = Jayway::parse;
         } catch (ClassNotFoundException e) {
             var message = "JsonPath library is not found on classpath. "
                     + "Library [ com.jayway.jsonpath:json-path ] is required on classpath to work with jsonPath matchers.";
+            // paths that scanner evaluates on its own do not need the library
             jsonPathFnTmp = path -> {
-                throw new IllegalStateException(message);
+                var steps = JsonPathScanner.steps(path);
+                if (steps == null) {
+                    throw new IllegalStateException(message);
+                }
+                return new JaywayJsonPathMatch(new CompiledPath(path, null, steps));
             };
             compiledJsonFnTmp = json -> {
                 throw new IllegalStateException(message);
@@ -59,6 +49,49 @@ final class JsonPathInternal {
         return compiledJsonFn.apply(json);
     }
 
+    static ResultRef read(CompiledJson json, JsonPath jsonPath) {
+        return Jayway.read(json, jsonPath);
+    }
+
+    static IllegalStateException parseFailure(String json, @Nullable Exception cause) {
+        return new IllegalStateException(String.format("Failed to parse json string: %s", json), cause);
+    }
+
+    // All code that catches Jayway exceptions. Verifier loads caught exception types when it links the class, so such
+    // code is kept out of other classes, which then load without Jayway on classpath
+    private static final class Jayway {
+
+        private Jayway() {}
+
+        static JsonPath compile(String jsonPath) {
+            try {
+                return JsonPath.compile(jsonPath);
+            } catch (InvalidPathException e) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Provided invalid JsonPath - [ %s ]. " + "Check internal error message for details",
+                                jsonPath),
+                        e);
+            }
+        }
+
+        static CompiledJson parse(String json) {
+            try {
+                return new CompiledJson(JsonPath.parse(json));
+            } catch (Exception e) {
+                throw parseFailure(json, e);
+            }
+        }
+
+        static ResultRef read(CompiledJson json, JsonPath jsonPath) {
+            try {
+                return new ResultRef(json.documentContext.read(jsonPath), true);
+            } catch (PathNotFoundException e) {
+                return JsonPathScanner.ABSENT;
+            }
+        }
+    }
+
     static class CompiledJson {
 
         final DocumentContext documentContext;
@@ -71,11 +104,23 @@ final class JsonPathInternal {
     static class CompiledPath {
 
         final String stringPath;
-        final JsonPath jsonPath;
-
-        CompiledPath(String stringPath, JsonPath jsonPath) {
+        // Null when Jayway is not on classpath, then only paths with steps are compiled
+        @Nullable final JsonPath jsonPath;
+        // Null when path needs Jayway to evaluate
+        @Nullable final List<Object> steps;
+        // Evaluates this path alone, when it is not indexed by scanner of all candidates
+        @Nullable private final JsonPathScanner scanner;
+
+        CompiledPath(String stringPath, @Nullable JsonPath jsonPath, @Nullable List<Object> steps) {
             this.stringPath = stringPath;
             this.jsonPath = jsonPath;
+            this.steps = steps;
+            this.scanner = steps == null ? null : JsonPathScanner.ofSteps(steps);
+        }
+
+        ResultRef scan(byte[] body) {
+            var pathScanner = scanner;
+            return pathScanner == null ? JsonPathScanner.UNDECIDED : pathScanner.scan(body)[0];
         }
     }
 
@@ -0,0 +1,23 @@
+package com.varlanv.imp;
+
+// Predicate of jsonPath conditions, tests value at its path. Paths of all candidates are normally evaluated at once by
+// JsonPathScanner, see ImpRequestView#jsonPathResultRef.
+final class JsonPathPredicate implements ImpPredicate<ImpRequestView> {
+
+    private final JsonPathInternal.CompiledPath path;
+    private final ImpPredicate<JsonPathInternal.ResultRef> resultPredicate;
+
+    JsonPathPredicate(JsonPathInternal.CompiledPath path, ImpPredicate<JsonPathInternal.ResultRef> resultPredicate) {
+        this.path = path;
+        this.resultPredicate = resultPredicate;
+    }
+
+    JsonPathInternal.CompiledPath path() {
+        return path;
+    }
+
+    @Override
+    public boolean unsafeTest(ImpRequestView request) throws Exception {
+        return resultPredicate.unsafeTest(request.jsonPathResultRef(path));
+    }
+}
@@ -0,0 +1,666 @@
+package com.varlanv.imp;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+// Evaluates definite json paths - dot and bracket properties and array indexes - directly on body bytes, without
+// building a document tree. Paths of all candidates are resolved in a single pass, values that no path needs are
+// skipped without validation. Keys are read up to the end of body even after every path is resolved, since Jayway
+// takes the last of repeated keys, and so does scanner. Only resolved values are materialized, with same types as
+// Jayway produces with its default json-smart provider. Other paths, and bodies that are not strict JSON, are left to
+// Jayway. Built once, read-only afterwards, so it is safe to read concurrently.
+final class JsonPathScanner {
+
+    // Value of resolved object or array. Jayway returns map or list there, which no condition looks into
+    static final Object CONTAINER = new Object();
+    static final JsonPathInternal.ResultRef ABSENT = new JsonPathInternal.ResultRef(null, false);
+    // Body is not strict JSON, so all paths are left to Jayway, which either parses it or reports it
+    static final JsonPathInternal.ResultRef MALFORMED = new JsonPathInternal.ResultRef(null, false);
+    // Path that scanner does not evaluate, left to Jayway
+    static final JsonPathInternal.ResultRef UNDECIDED = new JsonPathInternal.ResultRef(null, false);
+
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final Node[] NO_NODES = new Node[0];
+    // Longest index that always fits int
+    private static final int MAX_INDEX_DIGITS = 9;
+
+    // Position of each path in scan results, same path compiled twice has two positions
+    private final Map<JsonPathInternal.CompiledPath, Integer> positions = new IdentityHashMap<>();
+    private final Node root = new Node();
+    private final int pathCount;
+
+    JsonPathScanner(List<JsonPathInternal.CompiledPath> paths) {
+        for (var path : paths) {
+            var steps = path.steps;
+            if (steps != null && !positions.containsKey(path)) {
+                var position = positions.size();
+                positions.put(path, position);
+                add(steps, position);
+            }
+        }
+        this.pathCount = positions.size();
+        root.seal();
+    }
+
+    private JsonPathScanner(int pathCount) {
+        this.pathCount = pathCount;
+    }
+
+    // Scanner of single path, which is at position 0
+    static JsonPathScanner ofSteps(List<Object> steps) {
+        var scanner = new JsonPathScanner(1);
+        scanner.add(steps, 0);
+        scanner.root.seal();
+        return scanner;
+    }
+
+    private void add(List<Object> steps, int position) {
+        var node = root;
+        for (var step : steps) {
+            node = node.child(step);
+        }
+        node.terminals = append(node.terminals, position);
+    }
+
+    boolean isEmpty() {
+        return pathCount == 0;
+    }
+
+    // Position of path in results of scan, or -1 if path is not scanned
+    int position(JsonPathInternal.CompiledPath path) {
+        var position = positions.get(path);
+        return position == null ? -1 : position;
+    }
+
+    JsonPathInternal.ResultRef[] scan(byte[] body) {
+        var results = new JsonPathInternal.ResultRef[pathCount];
+        if (pathCount > 0) {
+            try {
+                new Scan(body, results).run(root);
+            } catch (MalformedJsonException e) {
+                Arrays.fill(results, MALFORMED);
+            }
+        }
+        return results;
+    }
+
+    // Steps of path - property names and indexes, or null if path is not definite or uses syntax that only Jayway
+    // supports. Follows Jayway path syntax, where leading '$.' is optional and '$.[0]' is same as '$[0]'.
+    static @Nullable List<Object> steps(String jsonPath) {
+        var path = jsonPath.trim();
+        if (path.startsWith("@")) {
+            return null;
+        } else if (!path.startsWith("$")) {
+            path = "$." + path;
+        }
+        var steps = new ArrayList<Object>();
+        var idx = 1;
+        while (idx < path.length()) {
+            var ch = path.charAt(idx);
+            if (ch == '.') {
+                idx++;
+                if (idx < path.length() && path.charAt(idx) == '[') {
+                    continue;
+                }
+                var end = idx;
+                while (end < path.length() && isNameChar(path.charAt(end))) {
+                    end++;
+                }
+                // empty name covers deep scan, wildcard and trailing dot, other char after name - function call
+                if (end == idx || (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[')) {
+                    return null;
+                }
+                steps.add(path.substring(idx, end));
+                idx = end;
+            } else if (ch == '[') {
+                var close = path.indexOf(']', idx);
+                if (close < 0) {
+                    return null;
+                }
+                var step = bracketStep(path.substring(idx + 1, close));
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+                idx = close + 1;
+            } else {
+                return null;
+            }
+        }
+        return steps;
+    }
+
+    // Quoted property name or non-negative index, everything else - wildcards, slices, filters, unions - needs Jayway
+    private static @Nullable Object bracketStep(String content) {
+        if (content.length() >= 2) {
+            var quote = content.charAt(0);
+            if ((quote == '\'' || quote == '"') && content.charAt(content.length() - 1) == quote) {
+                var name = content.substring(1, content.length() - 1);
+                for (var idx = 0; idx < name.length(); idx++) {
+                    var ch = name.charAt(idx);
+                    if (ch == '\'' || ch == '"' || ch == '\\' || ch == ',') {
+                        return null;
+                    }
+                }
+                return name.isEmpty() ? null : name;
+            }
+        }
+        if (content.isEmpty() || content.length() > MAX_INDEX_DIGITS) {
+            return null;
+        }
+        for (var idx = 0; idx < content.length(); idx++) {
+            var ch = content.charAt(idx);
+            if (ch < '0' || ch > '9') {
+                return null;
+            }
+        }
+        return Integer.parseInt(content);
+    }
+
+    private static boolean isNameChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '-' || ch == '$';
+    }
+
+    private static int[] append(int[] values, int value) {
+        var newValues = Arrays.copyOf(values, values.length + 1);
+        newValues[values.length] = value;
+        return newValues;
+    }
+
+    private static final class Node {
+
+        private String[] names = new String[0];
+        // Names as UTF-8 bytes, compared with raw keys of body
+        private byte[][] nameBytes = new byte[0][];
+        private Node[] properties = NO_NODES;
+        private int[] indexes = NO_POSITIONS;
+        private Node[] elements = NO_NODES;
+        // Positions of paths that end at this node
+        private int[] terminals = NO_POSITIONS;
+        // Positions of paths that end at this node or below it
+        private int[] subtree = NO_POSITIONS;
+
+        Node child(Object step) {
+            if (step instanceof String) {
+                var name = (String) step;
+                for (var idx = 0; idx < names.length; idx++) {
+                    if (names[idx].equals(name)) {
+                        return properties[idx];
+                    }
+                }
+                var node = new Node();
+                names = Arrays.copyOf(names, names.length + 1);
+                names[names.length - 1] = name;
+                nameBytes = Arrays.copyOf(nameBytes, nameBytes.length + 1);
+                nameBytes[nameBytes.length - 1] = name.getBytes(StandardCharsets.UTF_8);
+                properties = Arrays.copyOf(properties, properties.length + 1);
+                properties[properties.length - 1] = node;
+                return node;
+            }
+            var index = (Integer) step;
+            for (var idx = 0; idx < indexes.length; idx++) {
+                if (indexes[idx] == index) {
+                    return elements[idx];
+                }
+            }
+            var node = new Node();
+            indexes = append(indexes, index);
+            elements = Arrays.copyOf(elements, elements.length + 1);
+            elements[elements.length - 1] = node;
+            return node;
+        }
+
+        int[] seal() {
+            var positions = terminals;
+            for (var property : properties) {
+                positions = concat(positions, property.seal());
+            }
+            for (var element : elements) {
+                positions = concat(positions, element.seal());
+            }
+            subtree = positions;
+            return positions;
+        }
+
+        @Nullable Node property(byte[] bytes, int start, int end) {
+            for (var idx = 0; idx < nameBytes.length; idx++) {
+                var name = nameBytes[idx];
+                if (Arrays.equals(bytes, start, end, name, 0, name.length)) {
+                    return properties[idx];
+                }
+            }
+            return null;
+        }
+
+        @Nullable Node property(String name) {
+            for (var idx = 0; idx < names.length; idx++) {
+                if (names[idx].equals(name)) {
+                    return properties[idx];
+                }
+            }
+            return null;
+        }
+
+        @Nullable Node element(int index) {
+            for (var idx = 0; idx < indexes.length; idx++) {
+                if (indexes[idx] == index) {
+                    return elements[idx];
+                }
+            }
+            return null;
+        }
+
+        private static int[] concat(int[] values, int[] otherValues) {
+            if (otherValues.length == 0) {
+                return values;
+            }
+            var newValues = Arrays.copyOf(values, values.length + otherValues.length);
+            System.arraycopy(otherValues, 0, newValues, values.length, otherValues.length);
+            return newValues;
+        }
+    }
+
+    // State of single pass over body, confined to the thread that scans
+    private static final class Scan {
+
+        private final byte[] bytes;
+        private final JsonPathInternal.ResultRef[] results;
+        private int pos;
+        // Bounds of last scanned string, without quotes
+        private int stringStart;
+        private int stringEnd;
+        private boolean stringEscaped;
+
+        Scan(byte[] bytes, JsonPathInternal.ResultRef[] results) {
+            this.bytes = bytes;
+            this.results = results;
+        }
+
+        void run(Node root) {
+            whitespace();
+            value(root);
+            whitespace();
+            if (pos != bytes.length) {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+
+        // Resolves every path of node subtree
+        private void value(@Nullable Node node) {
+            if (node == null) {
+                skip();
+                return;
+            }
+            var first = peek();
+            if (first == '{') {
+                object(node);
+            } else if (first == '[') {
+                array(node);
+            } else {
+                scalar(node);
+            }
+        }
+
+        private void object(Node node) {
+            resolveTerminals(node, CONTAINER);
+            // Jayway treats index on non-array as missing path
+            resolveAll(node.elements, ABSENT);
+            pos++;
+            whitespace();
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    expect('"');
+                    string();
+                    Node child;
+                    if (node.properties.length == 0) {
+                        child = null;
+                    } else if (stringEscaped) {
+                        child = node.property(decodeString());
+                    } else {
+                        child = node.property(bytes, stringStart, stringEnd);
+                    }
+                    whitespace();
+                    expect(':');
+                    whitespace();
+                    if (child != null) {
+                        // paths below repeated key are resolved again, since Jayway takes the last one
+                        unresolve(child);
+                    }
+                    value(child);
+                    whitespace();
+                    var next = next();
+                    if (next == '}') {
+                        break;
+                    } else if (next != ',') {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                    whitespace();
+                }
+            }
+            resolveAll(node.properties, ABSENT);
+        }
+
+        private void array(Node node) {
+            resolveTerminals(node, CONTAINER);
+            resolveAll(node.properties, ABSENT);
+            pos++;
+            whitespace();
+            if (peek() == ']') {
+                pos++;
+            } else {
+                var index = 0;
+                while (true) {
+                    value(node.elements.length == 0 ? null : node.element(index));
+                    index++;
+                    whitespace();
+                    var next = next();
+                    if (next == ']') {
+                        break;
+                    } else if (next != ',') {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                    whitespace();
+                }
+            }
+            // indexes beyond array
+            resolveAll(node.elements, ABSENT);
+        }
+
+        private void scalar(Node node) {
+            @Nullable Object value;
+            var first = peek();
+            if (first == '"') {
+                pos++;
+                string();
+                value = decodeString();
+            } else if (first == 't') {
+                literal("true");
+                value = Boolean.TRUE;
+            } else if (first == 'f') {
+                literal("false");
+                value = Boolean.FALSE;
+            } else if (first == 'n') {
+                literal("null");
+                value = null;
+            } else {
+                value = number();
+            }
+            resolveTerminals(node, value);
+            resolveAll(node.properties, ABSENT);
+            // Jayway treats index on non-array as missing path
+            resolveAll(node.elements, ABSENT);
+        }
+
+        // Paths below node are resolved only while value of its key is read, so results that are already set come
+        // from earlier occurrence of same key
+        private void unresolve(Node node) {
+            for (var position : node.subtree) {
+                results[position] = null;
+            }
+        }
+
+        private void resolveTerminals(Node node, @Nullable Object value) {
+            if (node.terminals.length > 0) {
+                var ref = new JsonPathInternal.ResultRef(value, true);
+                for (var position : node.terminals) {
+                    resolve(position, ref);
+                }
+            }
+        }
+
+        private void resolveAll(Node[] nodes, JsonPathInternal.ResultRef ref) {
+            for (var node : nodes) {
+                for (var position : node.subtree) {
+                    resolve(position, ref);
+                }
+            }
+        }
+
+        private void resolve(int position, JsonPathInternal.ResultRef ref) {
+            if (results[position] == null) {
+                results[position] = ref;
+            }
+        }
+
+        // After opening quote, leaves position after closing quote
+        private void string() {
+            stringStart = pos;
+            stringEscaped = false;
+            while (true) {
+                var value = next();
+                if (value == '"') {
+                    stringEnd = pos - 1;
+                    return;
+                } else if (value == '\\') {
+                    stringEscaped = true;
+                    next();
+                } else if (value >= 0 && value < 0x20) {
+                    throw MalformedJsonException.INSTANCE;
+                }
+            }
+        }
+
+        private String decodeString() {
+            if (!stringEscaped) {
+                return new String(bytes, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+            }
+            var builder = new StringBuilder(stringEnd - stringStart);
+            var runStart = stringStart;
+            var idx = stringStart;
+            while (idx < stringEnd) {
+                if (bytes[idx] != '\\') {
+                    idx++;
+                    continue;
+                }
+                builder.append(new String(bytes, runStart, idx - runStart, StandardCharsets.UTF_8));
+                var escaped = bytes[idx + 1];
+                idx += 2;
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        builder.append((char) escaped);
+                        break;
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        builder.append(hexChar(idx));
+                        idx += 4;
+                        break;
+                    default:
+                        throw MalformedJsonException.INSTANCE;
+                }
+                runStart = idx;
+            }
+            builder.append(new String(bytes, runStart, stringEnd - runStart, StandardCharsets.UTF_8));
+            return builder.toString();
+        }
+
+        private char hexChar(int start) {
+            if (start + 4 > stringEnd) {
+                throw MalformedJsonException.INSTANCE;
+            }
+            var value = 0;
+            for (var idx = start; idx < start + 4; idx++) {
+                var digit = Character.digit(bytes[idx], 16);
+                if (digit < 0) {
+                    throw MalformedJsonException.INSTANCE;
+                }
+                value = value * 16 + digit;
+            }
+            return (char) value;
+        }
+
+        // Same number types as json-smart - Integer or Long, BigInteger beyond long, Double, or BigDecimal for long
+        // decimals
+        private Object number() {
+            var start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            var isInteger = true;
+            if (peek() == '0') {
+                pos++;
+            } else {
+                digits();
+            }
+            if (pos < bytes.length && bytes[pos] == '.') {
+                isInteger = false;
+                pos++;
+                digits();
+            }
+            if (pos < bytes.length && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+                isInteger = false;
+                pos++;
+                if (peek() == '+' || peek() == '-') {
+                    pos++;
+                }
+                digits();
+            }
+            var text = new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1);
+            if (isInteger) {
+                try {
+                    var value = Long.parseLong(text);
+                    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                        return (int) value;
+                    }
+                    return value;
+                } catch (NumberFormatException e) {
+                    return new BigInteger(text);
+                }
+            }
+            return text.length() > 18 ? new BigDecimal(text) : Double.parseDouble(text);
+        }
+
+        private void digits() {
+            var start = pos;
+            while (pos < bytes.length && bytes[pos] >= '0' && bytes[pos] <= '9') {
+                pos++;
+            }
+            if (pos == start) {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+
+        private void literal(String literal) {
+            for (var idx = 0; idx < literal.length(); idx++) {
+                if (next() != literal.charAt(idx)) {
+                    throw MalformedJsonException.INSTANCE;
+                }
+            }
+        }
+
+        // Skips value by structure only - strings and nesting, tokens are not validated
+        private void skip() {
+            var first = peek();
+            if (first == '"') {
+                pos = skipString(pos + 1);
+            } else if (first == '{' || first == '[') {
+                var idx = pos + 1;
+                var depth = 1;
+                while (depth > 0) {
+                    if (idx >= bytes.length) {
+                        throw MalformedJsonException.INSTANCE;
+                    }
+                    var value = bytes[idx++];
+                    if (value == '"') {
+                        idx = skipString(idx);
+                    } else if (value == '{' || value == '[') {
+                        depth++;
+                    } else if (value == '}' || value == ']') {
+                        depth--;
+                    }
+                }
+                pos = idx;
+            } else {
+                var start = pos;
+                while (pos < bytes.length && !isDelimiter(bytes[pos])) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw MalformedJsonException.INSTANCE;
+                }
+            }
+        }
+
+        // From position after opening quote, returns position after closing quote
+        private int skipString(int start) {
+            var idx = start;
+            while (idx < bytes.length) {
+                var value = bytes[idx++];
+                if (value == '"') {
+                    return idx;
+                } else if (value == '\\') {
+                    idx++;
+                }
+            }
+            throw MalformedJsonException.INSTANCE;
+        }
+
+        private static boolean isDelimiter(byte value) {
+            return value == ',' || value == '}' || value == ']' || isWhitespace(value);
+        }
+
+        private static boolean isWhitespace(byte value) {
+            return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+        }
+
+        private void whitespace() {
+            while (pos < bytes.length && isWhitespace(bytes[pos])) {
+                pos++;
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw MalformedJsonException.INSTANCE;
+            }
+        }
+
+        private byte peek() {
+            if (pos >= bytes.length) {
+                throw MalformedJsonException.INSTANCE;
+            }
+            return bytes[pos];
+        }
+
+        private byte next() {
+            var value = peek();
+            pos++;
+            return value;
+        }
+    }
+
+    // Thrown to abandon scan of body that is not strict JSON, shared instance without stack trace
+    private static final class MalformedJsonException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        static final MalformedJsonException INSTANCE = new MalformedJsonException();
+
+        private MalformedJsonException() {
+            super(null, null, false, false);
+        }
+    }
+}
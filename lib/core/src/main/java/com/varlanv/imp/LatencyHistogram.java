@@ -0,0 +1,120 @@
+package com.varlanv.imp;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-memory histogram of durations in nanoseconds. Each power of two range is split into SUB_BUCKETS equal buckets,
+// so that value reported for a bucket is at most 1/SUB_BUCKETS larger than any duration recorded into it. Recording
+// is lock-free, and snapshots can be taken while durations are being recorded. Same as in LongAdder, counts start in
+// a single stripe, and more stripes are added only when threads contend on it, so that hot buckets of busy matcher do
+// not become a point of contention, while histograms that are never contended stay small.
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Durations of 2^36 ns (about 68 seconds) and longer are counted in the last bucket
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    // Power of two, not smaller than number of processors, up to 16
+    static final int MAX_STRIPES = maxStripes(Runtime.getRuntime().availableProcessors());
+
+    private volatile AtomicLongArray[] stripes = {new AtomicLongArray(BUCKET_COUNT)};
+
+    void record(long nanos) {
+        var bucket = bucket(nanos);
+        var current = stripes;
+        var stripe = current[stripeIndex(current.length)];
+        var count = stripe.get(bucket);
+        if (!stripe.compareAndSet(bucket, count, count + 1)) {
+            // other thread updated same stripe at the same time, next durations are spread over more stripes
+            if (current.length < MAX_STRIPES) {
+                expand(current);
+            }
+            stripe.incrementAndGet(bucket);
+        }
+    }
+
+    long[] snapshot() {
+        var snapshot = new long[BUCKET_COUNT];
+        for (var stripe : stripes) {
+            for (var bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                snapshot[bucket] += stripe.get(bucket);
+            }
+        }
+        return snapshot;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    // Existing stripes are kept, so that counts recorded into them, also concurrently with expanding, are not lost
+    private synchronized void expand(AtomicLongArray[] current) {
+        if (stripes == current) {
+            var expanded = Arrays.copyOf(current, current.length * 2);
+            for (var idx = current.length; idx < expanded.length; idx++) {
+                expanded[idx] = new AtomicLongArray(BUCKET_COUNT);
+            }
+            stripes = expanded;
+        }
+    }
+
+    private static int stripeIndex(int stripeCount) {
+        if (stripeCount == 1) {
+            return 0;
+        }
+        // fibonacci hashing spreads sequential thread ids over all stripes
+        var hash = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+        return hash & (stripeCount - 1);
+    }
+
+    static int maxStripes(int processors) {
+        var stripes = 1;
+        while (stripes < processors && stripes < 16) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    static int bucket(long nanos) {
+        var value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var exponent = 63 - Long.numberOfLeadingZeros(value);
+        var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest duration that falls into bucket
+    static long highestValue(int bucket) {
+        var group = bucket / SUB_BUCKETS;
+        var subBucket = bucket % SUB_BUCKETS;
+        if (group == 0) {
+            return subBucket;
+        }
+        var shift = group - 1;
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    // Highest value of bucket that holds given fraction of all recorded durations, or 0 if nothing was recorded
+    static long valueAtQuantile(long[] snapshot, double quantile) {
+        var total = 0L;
+        for (var count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        var rank = Math.max(1, (long) Math.ceil(quantile * total));
+        var seen = 0L;
+        for (var bucket = 0; bucket < snapshot.length; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank) {
+                return highestValue(bucket);
+            }
+        }
+        return highestValue(snapshot.length - 1);
+    }
+}
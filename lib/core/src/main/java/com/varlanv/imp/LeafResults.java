@@ -0,0 +1,53 @@
+package com.varlanv.imp;
+
+import java.util.Arrays;
+
+// Results of leaf conditions evaluated for single request, indexed by leaf slot of CompiledCondition.
+// Identical leaves of all candidates share a slot, so each distinct leaf is evaluated at most once per request.
+// Two bits per slot - evaluated and result. First 64 slots are kept in fields, so that common case does not allocate
+// arrays. Confined to the thread that picks response for request, not thread-safe.
+final class LeafResults {
+
+    private static final long[] EMPTY = new long[0];
+
+    private long evaluatedLow;
+    private long resultsLow;
+    private long[] evaluatedHigh;
+    private long[] resultsHigh;
+
+    LeafResults(int slotCount) {
+        var highWords = slotCount <= Long.SIZE ? 0 : (slotCount - 1) / Long.SIZE;
+        this.evaluatedHigh = highWords == 0 ? EMPTY : new long[highWords];
+        this.resultsHigh = highWords == 0 ? EMPTY : new long[highWords];
+    }
+
+    boolean test(int slot, ImpPredicate<ImpRequestView> predicate, ImpRequestView requestView) {
+        // shift distance is taken modulo 64
+        var bit = 1L << slot;
+        if (slot < Long.SIZE) {
+            if ((evaluatedLow & bit) != 0) {
+                return (resultsLow & bit) != 0;
+            }
+            var result = predicate.test(requestView);
+            evaluatedLow |= bit;
+            if (result) {
+                resultsLow |= bit;
+            }
+            return result;
+        }
+        var word = slot / Long.SIZE - 1;
+        if (word >= evaluatedHigh.length) {
+            evaluatedHigh = Arrays.copyOf(evaluatedHigh, word + 1);
+            resultsHigh = Arrays.copyOf(resultsHigh, word + 1);
+        }
+        if ((evaluatedHigh[word] & bit) != 0) {
+            return (resultsHigh[word] & bit) != 0;
+        }
+        var result = predicate.test(requestView);
+        evaluatedHigh[word] |= bit;
+        if (result) {
+            resultsHigh[word] |= bit;
+        }
+        return result;
+    }
+}
@@ -1,25 +1,44 @@
 package com.varlanv.imp;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 final class MutableImpStatistics {
 
-    private final AtomicInteger hitCount = new AtomicInteger();
-    private final AtomicInteger missCount = new AtomicInteger();
+    // Striped, so that threads handling requests do not contend on single counter
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    // Only matchers that responded at least once, histograms are allocated on first hit
+    private final ConcurrentHashMap<String, MutableMatcherStatistics> matchers = new ConcurrentHashMap<>();
 
-    public int hitCount() {
-        return hitCount.get();
+    public long hitCount() {
+        return hitCount.sum();
     }
 
-    public int missCount() {
-        return missCount.get();
+    public long missCount() {
+        return missCount.sum();
     }
 
-    void incrementHitCount() {
-        hitCount.incrementAndGet();
+    // Returns statistics of matcher, to record handle time of request once response is sent
+    MutableMatcherStatistics recordHit(String matcherId, long matchNanos) {
+        hitCount.increment();
+        var matcher = matchers.get(matcherId);
+        if (matcher == null) {
+            matcher = matchers.computeIfAbsent(matcherId, id -> new MutableMatcherStatistics());
+        }
+        matcher.recordHit(matchNanos);
+        return matcher;
     }
 
     void incrementMissCount() {
-        missCount.incrementAndGet();
+        missCount.increment();
+    }
+
+    Map<String, ImpMatcherStatistics> matchersSnapshot() {
+        var snapshot = new LinkedHashMap<String, ImpMatcherStatistics>();
+        matchers.forEach((id, matcher) -> snapshot.put(id, matcher.snapshot(id)));
+        return snapshot;
     }
 }
@@ -0,0 +1,29 @@
+package com.varlanv.imp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+final class MutableMatcherStatistics {
+
+    private final LongAdder hitCount = new LongAdder();
+    // From start of request handling to picked matcher
+    private final LatencyHistogram matchTime = new LatencyHistogram();
+    // From start of request handling to sent response
+    private final LatencyHistogram handleTime = new LatencyHistogram();
+
+    void recordHit(long matchNanos) {
+        hitCount.increment();
+        matchTime.record(matchNanos);
+    }
+
+    void recordHandleTime(long handleNanos) {
+        handleTime.record(handleNanos);
+    }
+
+    ImpMatcherStatistics snapshot(String id) {
+        return new ImpMatcherStatistics(
+                id,
+                hitCount.sum(),
+                new ImpLatencyStatistics(matchTime.snapshot()),
+                new ImpLatencyStatistics(handleTime.snapshot()));
+    }
+}
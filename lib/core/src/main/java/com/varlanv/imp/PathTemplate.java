@@ -0,0 +1,132 @@
+package com.varlanv.imp;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+// Path template like "/users/{id}/orders/{orderId}", where each variable matches exactly one non-empty segment.
+// Used as predicate of template condition, actual matching is normally done for all templates at once by
+// PathTemplateTrie, see ImpRequestView#matchesPathTemplate
+final class PathTemplate implements ImpPredicate<ImpRequestView> {
+
+    private final String template;
+    private final String[] segments;
+    // null for literal segments
+    private final @Nullable String[] variableNames;
+    private final String literalPrefix;
+
+    private PathTemplate(
+            String template, String[] segments, @Nullable String[] variableNames, String literalPrefix) {
+        this.template = template;
+        this.segments = segments;
+        this.variableNames = variableNames;
+        this.literalPrefix = literalPrefix;
+    }
+
+    static PathTemplate parse(String template) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException(
+                    String.format("Path template should start with '/', but received [ %s ]", template));
+        }
+        var segments = splitPath(template);
+        @Nullable String[] variableNames = new String[segments.length];
+        var knownNames = new HashSet<String>();
+        var literalPrefixEnd = template.length();
+        var offset = 1;
+        for (var idx = 0; idx < segments.length; idx++) {
+            var segment = segments[idx];
+            if (segment.startsWith("{") && segment.endsWith("}") && segment.length() > 2) {
+                var name = segment.substring(1, segment.length() - 1);
+                if (name.isBlank() || name.indexOf('{') >= 0 || name.indexOf('}') >= 0) {
+                    throw new IllegalArgumentException(
+                            String.format("Invalid variable [ %s ] in path template [ %s ]", segment, template));
+                }
+                if (!knownNames.add(name)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Duplicate variable [ %s ] in path template [ %s ]", name, template));
+                }
+                variableNames[idx] = name;
+                literalPrefixEnd = Math.min(literalPrefixEnd, offset);
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Path template variable should take whole segment, but found [ %s ] in [ %s ]",
+                        segment, template));
+            }
+            offset += segment.length() + 1;
+        }
+        return new PathTemplate(template, segments, variableNames, template.substring(0, literalPrefixEnd));
+    }
+
+    // Path part of request target, split by '/' without leading empty segment
+    static String[] splitPath(String uriString) {
+        var pathEnd = uriString.length();
+        for (var idx = 0; idx < uriString.length(); idx++) {
+            var ch = uriString.charAt(idx);
+            if (ch == '?' || ch == '#') {
+                pathEnd = idx;
+                break;
+            }
+        }
+        if (pathEnd == 0 || uriString.charAt(0) != '/') {
+            return new String[0];
+        }
+        return uriString.substring(1, pathEnd).split("/", -1);
+    }
+
+    String template() {
+        return template;
+    }
+
+    String literalPrefix() {
+        return literalPrefix;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    // null for variable segment
+    @Nullable String literalSegment(int idx) {
+        return variableNames[idx] == null ? segments[idx] : null;
+    }
+
+    boolean matches(String[] pathSegments) {
+        if (pathSegments.length != segments.length) {
+            return false;
+        }
+        for (var idx = 0; idx < segments.length; idx++) {
+            if (variableNames[idx] == null ? !segments[idx].equals(pathSegments[idx]) : pathSegments[idx].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Path segments are expected to match this template
+    Map<String, String> variables(String[] pathSegments) {
+        var variables = new LinkedHashMap<String, String>();
+        for (var idx = 0; idx < variableNames.length; idx++) {
+            var name = variableNames[idx];
+            if (name != null) {
+                variables.put(name, decode(pathSegments[idx]));
+            }
+        }
+        return Collections.unmodifiableMap(variables);
+    }
+
+    @Override
+    public boolean unsafeTest(ImpRequestView request) {
+        return request.matchesPathTemplate(this);
+    }
+
+    private static String decode(String segment) {
+        // '+' is literal in path, unlike in form encoding that URLDecoder implements
+        return segment.indexOf('%') < 0
+                ? segment
+                : URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+}
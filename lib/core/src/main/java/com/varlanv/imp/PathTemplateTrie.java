@@ -0,0 +1,79 @@
+package com.varlanv.imp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+
+// Segment trie over all path templates of a template, matches all of them in a single walk over request path.
+// Built once, read-only afterwards, so it is safe to read concurrently.
+final class PathTemplateTrie {
+
+    private static final PathTemplate[] NO_TEMPLATES = new PathTemplate[0];
+
+    private final Node root = new Node();
+    private final Set<PathTemplate> templates = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    PathTemplateTrie(List<PathTemplate> templates) {
+        for (var template : templates) {
+            if (!this.templates.add(template)) {
+                continue;
+            }
+            var node = root;
+            for (var idx = 0; idx < template.segmentCount(); idx++) {
+                var literal = template.literalSegment(idx);
+                if (literal == null) {
+                    var variableChild = node.variableChild;
+                    if (variableChild == null) {
+                        variableChild = new Node();
+                        node.variableChild = variableChild;
+                    }
+                    node = variableChild;
+                } else {
+                    node = node.literalChildren.computeIfAbsent(literal, ignored -> new Node());
+                }
+            }
+            node.templates = Arrays.copyOf(node.templates, node.templates.length + 1);
+            node.templates[node.templates.length - 1] = template;
+        }
+    }
+
+    boolean contains(PathTemplate template) {
+        return templates.contains(template);
+    }
+
+    PathTemplate[] match(String[] pathSegments) {
+        var matched = new ArrayList<PathTemplate>(2);
+        collect(root, pathSegments, 0, matched);
+        return matched.isEmpty() ? NO_TEMPLATES : matched.toArray(NO_TEMPLATES);
+    }
+
+    // Literal and variable branches can both match same segment, so both are followed
+    private static void collect(Node node, String[] pathSegments, int depth, List<PathTemplate> matched) {
+        if (depth == pathSegments.length) {
+            matched.addAll(Arrays.asList(node.templates));
+            return;
+        }
+        var segment = pathSegments[depth];
+        var literalChild = node.literalChildren.get(segment);
+        if (literalChild != null) {
+            collect(literalChild, pathSegments, depth + 1, matched);
+        }
+        var variableChild = node.variableChild;
+        if (variableChild != null && !segment.isEmpty()) {
+            collect(variableChild, pathSegments, depth + 1, matched);
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+        @Nullable private Node variableChild;
+        private PathTemplate[] templates = NO_TEMPLATES;
+    }
+}
@@ -0,0 +1,135 @@
+package com.varlanv.imp;
+
+import java.util.Arrays;
+import org.jspecify.annotations.Nullable;
+
+// Character trie over literal path keys, each key maps to int values (candidate positions).
+// Built once, read-only afterwards, so it is safe to read concurrently.
+final class PathTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Node root = new Node();
+    private boolean empty = true;
+    private boolean hasSubstringKeys;
+
+    void add(RouteHint.PathKey key, int value) {
+        var node = root;
+        var literal = key.literal;
+        for (var idx = 0; idx < literal.length(); idx++) {
+            node = node.childOrCreate(literal.charAt(idx));
+        }
+        if (key.prefix) {
+            node.prefixValues = append(node.prefixValues, value);
+        } else {
+            node.substringValues = append(node.substringValues, value);
+            hasSubstringKeys = true;
+        }
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    // Collects values of all prefix keys that given string starts with, and all substring keys that it contains
+    void collect(String string, IntList target) {
+        collectFrom(string, 0, true, target);
+        if (hasSubstringKeys) {
+            for (var start = 1; start < string.length(); start++) {
+                collectFrom(string, start, false, target);
+            }
+        }
+    }
+
+    private void collectFrom(String string, int start, boolean anchored, IntList target) {
+        var node = root;
+        for (var idx = start; idx < string.length(); idx++) {
+            node = node.child(string.charAt(idx));
+            if (node == null) {
+                return;
+            }
+            if (anchored) {
+                target.addAll(node.prefixValues);
+            }
+            target.addAll(node.substringValues);
+        }
+    }
+
+    private static int[] append(int[] values, int value) {
+        var newValues = Arrays.copyOf(values, values.length + 1);
+        newValues[values.length] = value;
+        return newValues;
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int[] prefixValues = EMPTY;
+        private int[] substringValues = EMPTY;
+
+        @Nullable Node child(char key) {
+            var idx = Arrays.binarySearch(keys, key);
+            return idx < 0 ? null : children[idx];
+        }
+
+        Node childOrCreate(char key) {
+            var idx = Arrays.binarySearch(keys, key);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            // keys are kept sorted for binary search
+            var insertAt = -idx - 1;
+            var child = new Node();
+            var newKeys = new char[keys.length + 1];
+            var newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    static final class IntList {
+
+        private int[] values = EMPTY;
+        private int size;
+
+        void addAll(int[] newValues) {
+            if (newValues.length == 0) {
+                return;
+            }
+            if (size + newValues.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(8, Math.max(values.length * 2, size + newValues.length)));
+            }
+            System.arraycopy(newValues, 0, values, size, newValues.length);
+            size += newValues.length;
+        }
+
+        // Sorts values and removes duplicates, returns new size
+        int sortDistinct() {
+            if (size < 2) {
+                return size;
+            }
+            Arrays.sort(values, 0, size);
+            var distinct = 1;
+            for (var idx = 1; idx < size; idx++) {
+                if (values[idx] != values[distinct - 1]) {
+                    values[distinct++] = values[idx];
+                }
+            }
+            size = distinct;
+            return size;
+        }
+
+        int get(int idx) {
+            return values[idx];
+        }
+    }
+}
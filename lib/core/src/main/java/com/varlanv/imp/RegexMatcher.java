@@ -0,0 +1,138 @@
+package com.varlanv.imp;
+
+import java.util.regex.Pattern;
+import org.jspecify.annotations.Nullable;
+
+// Full match of regex pattern, compiled once when condition is built. Patterns that are only a literal, optionally
+// surrounded by '.*', are matched with plain String operations instead of regex engine - such patterns are common in
+// stubs, and matching them does not need Matcher per request. Result is always the same as of Pattern#matches.
+final class RegexMatcher {
+
+    private static final String META_CHARS = "\\[](){}.*+?^$|";
+    private static final String DOT_ALL_FLAG = "(?s)";
+    private static final String ANY = ".*";
+
+    private final Kind kind;
+    private final Pattern pattern;
+    // Only meaningful for kinds other than REGEX
+    private final String literal;
+    // Whether '.*' can also match line terminators
+    private final boolean dotAll;
+
+    private RegexMatcher(Kind kind, Pattern pattern, String literal, boolean dotAll) {
+        this.kind = kind;
+        this.pattern = pattern;
+        this.literal = literal;
+        this.dotAll = dotAll;
+    }
+
+    static RegexMatcher compile(String pattern) {
+        // compiled in any case, so that invalid pattern is reported when condition is built
+        var compiledPattern = Pattern.compile(pattern);
+        var body = pattern;
+        var dotAll = body.startsWith(DOT_ALL_FLAG);
+        if (dotAll) {
+            body = body.substring(DOT_ALL_FLAG.length());
+        }
+        // anchors at both ends are implied by full match
+        if (body.startsWith("^")) {
+            body = body.substring(1);
+        }
+        if (body.endsWith("$") && !isEscaped(body, body.length() - 1)) {
+            body = body.substring(0, body.length() - 1);
+        }
+        var anyBefore = body.startsWith(ANY);
+        if (anyBefore) {
+            body = body.substring(ANY.length());
+        }
+        var anyAfter = body.endsWith(ANY) && !isEscaped(body, body.length() - ANY.length());
+        if (anyAfter) {
+            body = body.substring(0, body.length() - ANY.length());
+        }
+        var literal = literal(body);
+        if (literal == null) {
+            return new RegexMatcher(Kind.REGEX, compiledPattern, "", false);
+        } else if (anyBefore && anyAfter && !dotAll && hasLineTerminator(literal, 0, literal.length())) {
+            // line terminator is allowed only inside of the occurrence, which plain contains cannot tell
+            return new RegexMatcher(Kind.REGEX, compiledPattern, "", false);
+        }
+        Kind kind;
+        if (anyBefore) {
+            kind = anyAfter ? Kind.CONTAINS : Kind.SUFFIX;
+        } else {
+            kind = anyAfter ? Kind.PREFIX : Kind.EXACT;
+        }
+        return new RegexMatcher(kind, compiledPattern, literal, dotAll);
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    boolean matches(String text) {
+        switch (kind) {
+            case EXACT:
+                return text.equals(literal);
+            case PREFIX:
+                return text.startsWith(literal)
+                        && (dotAll || !hasLineTerminator(text, literal.length(), text.length()));
+            case SUFFIX:
+                return text.endsWith(literal)
+                        && (dotAll || !hasLineTerminator(text, 0, text.length() - literal.length()));
+            case CONTAINS:
+                return (dotAll || !hasLineTerminator(text, 0, text.length())) && text.contains(literal);
+            default:
+                return pattern.matcher(text).matches();
+        }
+    }
+
+    // Text that pattern matches literally, or null if pattern has any construct other than literal chars and escaped
+    // meta chars
+    private static @Nullable String literal(String pattern) {
+        var literal = new StringBuilder(pattern.length());
+        for (var idx = 0; idx < pattern.length(); idx++) {
+            var ch = pattern.charAt(idx);
+            if (ch == '\\') {
+                idx++;
+                // escaped letters and digits are classes, back references or quotes
+                if (idx == pattern.length() || Character.isLetterOrDigit(pattern.charAt(idx))) {
+                    return null;
+                }
+                literal.append(pattern.charAt(idx));
+            } else if (META_CHARS.indexOf(ch) >= 0) {
+                return null;
+            } else {
+                literal.append(ch);
+            }
+        }
+        return literal.toString();
+    }
+
+    // Whether char at index is preceded by odd number of backslashes
+    private static boolean isEscaped(String pattern, int index) {
+        var backslashes = 0;
+        for (var idx = index - 1; idx >= 0 && pattern.charAt(idx) == '\\'; idx--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    // Line terminators that '.' does not match without DOTALL flag
+    private static boolean hasLineTerminator(String text, int from, int to) {
+        for (var idx = from; idx < to; idx++) {
+            var ch = text.charAt(idx);
+            if (ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    enum Kind {
+        EXACT,
+        PREFIX,
+        SUFFIX,
+        CONTAINS,
+        REGEX
+    }
+}
@@ -0,0 +1,114 @@
+package com.varlanv.imp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+final class ResponseBody {
+
+    // Bodies up to this size are buffered and sent with known length, larger ones are streamed with bounded buffer
+    static final int STREAMING_THRESHOLD = 64 * 1024;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private final byte[] bytes;
+    @Nullable private final InputStream stream;
+    @Nullable private final FileChannel file;
+    private final long fileLength;
+
+    private ResponseBody(byte[] bytes, @Nullable InputStream stream, @Nullable FileChannel file, long fileLength) {
+        this.bytes = bytes;
+        this.stream = stream;
+        this.file = file;
+        this.fileLength = fileLength;
+    }
+
+    static ResponseBody buffered(byte[] bytes) {
+        return new ResponseBody(bytes, null, null, 0);
+    }
+
+    static ResponseBody prepare(
+            NamedFn<ImpRequestView, ImpSupplier<InputStream>> bodyFn, ImpRequestView impRequestView) {
+        if (bodyFn instanceof StaticBody) {
+            // encoded once when spec was built, and written to the exchange as is
+            return buffered(((StaticBody) bodyFn).bytes());
+        }
+        if (bodyFn instanceof FileBody) {
+            // file contents are handed to the engine as channel, so they are never copied onto the heap here
+            var fileBody = (FileBody) bodyFn;
+            try {
+                return new ResponseBody(EMPTY_BYTES, null, fileBody.open(), fileBody.length());
+            } catch (IOException e) {
+                return InternalUtils.hide(e);
+            }
+        }
+        var bodyStream = bodyFn.apply(impRequestView).get();
+        byte[] head;
+        try {
+            head = bodyStream.readNBytes(STREAMING_THRESHOLD + 1);
+            if (head.length <= STREAMING_THRESHOLD) {
+                bodyStream.close();
+                return buffered(head);
+            }
+        } catch (IOException e) {
+            closeQuietly(bodyStream, e);
+            return InternalUtils.hide(e);
+        }
+        return new ResponseBody(
+                EMPTY_BYTES, new SequenceInputStream(new ByteArrayInputStream(head), bodyStream), null, 0);
+    }
+
+    void send(EngineExchange exchange, int statusCode, Map<String, List<String>> headers) throws IOException {
+        var bodyStream = stream;
+        var bodyFile = file;
+        if (bodyStream != null) {
+            exchange.streamResponse(statusCode, headers, bodyStream, declaredContentLength(headers));
+        } else if (bodyFile != null) {
+            exchange.sendFileResponse(statusCode, headers, bodyFile, fileLength);
+        } else {
+            exchange.sendResponse(statusCode, headers, bytes);
+        }
+    }
+
+    void discard() {
+        try {
+            var bodyStream = stream;
+            if (bodyStream != null) {
+                bodyStream.close();
+            }
+            var bodyFile = file;
+            if (bodyFile != null) {
+                bodyFile.close();
+            }
+        } catch (IOException ignored) {
+            // noop
+        }
+    }
+
+    private static long declaredContentLength(Map<String, List<String>> headers) {
+        for (var entry : headers.entrySet()) {
+            if ("Content-Length".equalsIgnoreCase(entry.getKey()) && !entry.getValue().isEmpty()) {
+                try {
+                    var contentLength = Long.parseLong(entry.getValue().get(0).trim());
+                    return contentLength < 0 ? -1 : contentLength;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void closeQuietly(InputStream stream, Exception original) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            original.addSuppressed(e);
+        }
+    }
+}
@@ -1,43 +1,195 @@
 package com.varlanv.imp;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.TreeSet;
 import org.jspecify.annotations.Nullable;
 
 final class ResponseDecision {
 
-    private final List<ResponseCandidate> candidates;
+    // Sorted by priority once, so that first matching candidate is the one to respond with
+    private final ResponseCandidate[] candidates;
+    // Conditions of candidates in the same order, compiled once - original trees are only used by Teapot
+    private final CompiledCondition[] conditions;
+    // Number of distinct leaves across all candidates, each has its slot in LeafResults
+    private final int leafCount;
+    private final int[] methodMasks;
+    // Per method, positions of candidates without path constraint, in priority order
+    private final int[][] unroutedByMethod;
+    // Candidates with path constraint are only reachable through the trie
+    private final PathTrie pathTrie = new PathTrie();
+    // Path templates of each candidate, used to select variables of responding candidate
+    private final PathTemplate[][] pathTemplates;
+    @Nullable private final PathTemplateTrie pathTemplateTrie;
+    @Nullable private final BodySubstrings bodySubstrings;
+    @Nullable private final JsonPathScanner jsonPathScanner;
+    // Only set when cache was requested and conditions of all candidates can be fingerprinted
+    @Nullable private final DecisionCache decisionCache;
 
     ResponseDecision(List<ResponseCandidate> candidates) {
-        this.candidates = List.copyOf(candidates);
+        this(candidates, 0);
     }
 
-    @Nullable ResponseCandidate pick(ImpRequestView requestView) {
-        var matchedCandidates = new TreeSet<>(Comparator.comparingInt(ResponseCandidate::priority));
-        for (var candidate : candidates) {
-            try {
-                if (candidate.condition().test(requestView)) {
-                    matchedCandidates.add(candidate);
+    // Decisions are cached for up to cacheSize distinct requests, or not cached at all if cacheSize is 0
+    ResponseDecision(List<ResponseCandidate> candidates, int cacheSize) {
+        var sortedCandidates = new ArrayList<>(candidates);
+        // stable sort, candidates with same priority keep declaration order
+        sortedCandidates.sort(Comparator.comparingInt(ResponseCandidate::priority));
+        this.candidates = sortedCandidates.toArray(new ResponseCandidate[0]);
+        this.conditions = new CompiledCondition[this.candidates.length];
+        this.methodMasks = new int[this.candidates.length];
+        var leafSlots = new HashMap<Object, Integer>();
+        var methods = ImpMethod.values();
+        var unrouted = new int[methods.length][this.candidates.length];
+        var unroutedCounts = new int[methods.length];
+        for (var position = 0; position < this.candidates.length; position++) {
+            var condition = CompiledCondition.compile(this.candidates[position].condition(), leafSlots);
+            conditions[position] = condition;
+            var routeHint = condition.routeHint();
+            methodMasks[position] = routeHint.methodMask;
+            var pathKeys = routeHint.pathKeys;
+            if (pathKeys != null) {
+                for (var pathKey : pathKeys) {
+                    pathTrie.add(pathKey, position);
+                }
+            } else {
+                for (var method : methods) {
+                    if ((routeHint.methodMask & RouteHint.methodBit(method)) != 0) {
+                        unrouted[method.ordinal()][unroutedCounts[method.ordinal()]++] = position;
+                    }
                 }
-            } catch (Exception e) {
-                ImpLog.error(e);
-                var matcherId = candidate.id();
-                throw new RuntimeException(
-                        String.format(
-                                "Exception was thrown by request predicate with id [%s]. Please check your ImpServer configuration for [%s] request matcher. "
-                                        + "Thrown error is [%s]: %s",
-                                matcherId, matcherId, e.getClass().getName(), e.getMessage()),
-                        e);
             }
         }
-        var size = matchedCandidates.size();
-        if (size == 0) {
-            return null;
-        } else if (size == 1) {
-            return matchedCandidates.iterator().next();
+        this.leafCount = leafSlots.size();
+        this.unroutedByMethod = new int[methods.length][];
+        for (var method : methods) {
+            unroutedByMethod[method.ordinal()] =
+                    Arrays.copyOf(unrouted[method.ordinal()], unroutedCounts[method.ordinal()]);
+        }
+        this.pathTemplates = new PathTemplate[this.candidates.length][];
+        var allPathTemplates = new ArrayList<PathTemplate>();
+        for (var position = 0; position < this.candidates.length; position++) {
+            var candidatePathTemplates = new ArrayList<PathTemplate>(0);
+            // negated templates never provide path variables
+            conditions[position].collectLeafPredicates(PathTemplate.class, true, candidatePathTemplates);
+            pathTemplates[position] = candidatePathTemplates.toArray(new PathTemplate[0]);
+            allPathTemplates.addAll(candidatePathTemplates);
+        }
+        this.pathTemplateTrie = allPathTemplates.isEmpty() ? null : new PathTemplateTrie(allPathTemplates);
+        var allBodySubstrings = new ArrayList<BodySubstring>();
+        for (var condition : conditions) {
+            condition.collectLeafPredicates(BodySubstring.class, false, allBodySubstrings);
+        }
+        var indexedBodySubstrings = new BodySubstrings(allBodySubstrings);
+        this.bodySubstrings = indexedBodySubstrings.isEmpty() ? null : indexedBodySubstrings;
+        var jsonPathPredicates = new ArrayList<JsonPathPredicate>();
+        for (var condition : conditions) {
+            condition.collectLeafPredicates(JsonPathPredicate.class, false, jsonPathPredicates);
+        }
+        var jsonPaths = new ArrayList<JsonPathInternal.CompiledPath>(jsonPathPredicates.size());
+        for (var predicate : jsonPathPredicates) {
+            jsonPaths.add(predicate.path());
+        }
+        var indexedJsonPaths = new JsonPathScanner(jsonPaths);
+        this.jsonPathScanner = indexedJsonPaths.isEmpty() ? null : indexedJsonPaths;
+        this.decisionCache = cacheSize > 0 ? DecisionCache.of(conditions, cacheSize) : null;
+    }
+
+    boolean isCached() {
+        return decisionCache != null;
+    }
+
+    @Nullable ResponseCandidate pick(ImpRequestView requestView) {
+        var templateTrie = pathTemplateTrie;
+        if (templateTrie != null) {
+            requestView.usePathTemplates(templateTrie);
+        }
+        var substrings = bodySubstrings;
+        if (substrings != null) {
+            requestView.useBodySubstrings(substrings);
+        }
+        var scanner = jsonPathScanner;
+        if (scanner != null) {
+            requestView.useJsonPathScanner(scanner);
+        }
+        var cache = decisionCache;
+        int position;
+        if (cache == null) {
+            position = pickPosition(requestView);
         } else {
-            return matchedCandidates.first();
+            var fingerprint = cache.fingerprint(requestView);
+            position = cache.get(fingerprint);
+            if (position == DecisionCache.ABSENT) {
+                position = pickPosition(requestView);
+                cache.put(fingerprint, position);
+            }
+        }
+        if (position == DecisionCache.NO_MATCH) {
+            return null;
+        }
+        requestView.selectPathTemplate(matchedPathTemplate(pathTemplates[position], requestView));
+        return candidates[position];
+    }
+
+    // Position of first matching candidate, or DecisionCache.NO_MATCH
+    private int pickPosition(ImpRequestView requestView) {
+        var method = requestView.impMethod();
+        var methodBit = RouteHint.methodBit(method);
+        var unrouted = unroutedByMethod[method.ordinal()];
+        var routed = new PathTrie.IntList();
+        if (!pathTrie.isEmpty()) {
+            pathTrie.collect(requestView.uri().uriString(), routed);
+        }
+        var routedSize = routed.sortDistinct();
+        var leafResults = new LeafResults(leafCount);
+        // merge both lists in priority order, stop on first match
+        var unroutedIdx = 0;
+        var routedIdx = 0;
+        while (unroutedIdx < unrouted.length || routedIdx < routedSize) {
+            int position;
+            if (routedIdx == routedSize
+                    || (unroutedIdx < unrouted.length && unrouted[unroutedIdx] < routed.get(routedIdx))) {
+                position = unrouted[unroutedIdx++];
+            } else {
+                position = routed.get(routedIdx++);
+                if ((methodMasks[position] & methodBit) == 0) {
+                    continue;
+                }
+            }
+            if (matches(candidates[position], conditions[position], requestView, leafResults)) {
+                return position;
+            }
+        }
+        return DecisionCache.NO_MATCH;
+    }
+
+    @Nullable private static PathTemplate matchedPathTemplate(PathTemplate[] templates, ImpRequestView requestView) {
+        for (var template : templates) {
+            if (requestView.matchesPathTemplate(template)) {
+                return template;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(
+            ResponseCandidate candidate,
+            CompiledCondition condition,
+            ImpRequestView requestView,
+            LeafResults leafResults) {
+        try {
+            return condition.test(requestView, leafResults);
+        } catch (Exception e) {
+            ImpLog.error(e);
+            var matcherId = candidate.id();
+            throw new RuntimeException(
+                    String.format(
+                            "Exception was thrown by request predicate with id [%s]. Please check your ImpServer configuration for [%s] request matcher. "
+                                    + "Thrown error is [%s]: %s",
+                            matcherId, matcherId, e.getClass().getName(), e.getMessage()),
+                    e);
         }
     }
 }
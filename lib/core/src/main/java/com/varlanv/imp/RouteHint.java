@@ -0,0 +1,140 @@
+package com.varlanv.imp;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+// Necessary condition for request to match, extracted from condition tree at build time.
+// Request can only match if its method is in methodMask, and its uri string matches at least one of pathKeys.
+final class RouteHint {
+
+    static final int ANY_METHOD = (1 << ImpMethod.values().length) - 1;
+    static final RouteHint ANY = new RouteHint(ANY_METHOD, null);
+    // Condition that can never match, such candidate is not reachable by any method or path
+    static final RouteHint NONE = new RouteHint(0, List.of());
+
+    final int methodMask;
+    // null means that any path can match
+    @Nullable final List<PathKey> pathKeys;
+
+    private RouteHint(int methodMask, @Nullable List<PathKey> pathKeys) {
+        this.methodMask = methodMask;
+        this.pathKeys = pathKeys;
+    }
+
+    static RouteHint method(ImpMethod method) {
+        return new RouteHint(methodBit(method), null);
+    }
+
+    static RouteHint methods(Iterable<String> methods) {
+        var mask = 0;
+        for (var method : methods) {
+            mask |= methodBit(ImpMethod.ofStrict(method));
+        }
+        return new RouteHint(mask, null);
+    }
+
+    static RouteHint pathPrefix(String prefix) {
+        return prefix.isEmpty() ? ANY : new RouteHint(ANY_METHOD, List.of(new PathKey(prefix, true)));
+    }
+
+    static RouteHint pathSubstring(String substring) {
+        return substring.isEmpty() ? ANY : new RouteHint(ANY_METHOD, List.of(new PathKey(substring, false)));
+    }
+
+    // Literal prefix of pattern that is used for full match, empty if it cannot be determined
+    static String regexLiteralPrefix(String pattern) {
+        if (hasTopLevelAlternation(pattern)) {
+            return "";
+        }
+        var start = pattern.startsWith("^") ? 1 : 0;
+        var end = start;
+        while (end < pattern.length() && "\\[](){}.*+?^$|".indexOf(pattern.charAt(end)) < 0) {
+            end++;
+        }
+        if (end < pattern.length() && "*?{".indexOf(pattern.charAt(end)) >= 0) {
+            // last literal character is optional or repeated
+            end--;
+        }
+        return end <= start ? "" : pattern.substring(start, end);
+    }
+
+    private static boolean hasTopLevelAlternation(String pattern) {
+        var depth = 0;
+        var inClass = false;
+        for (var idx = 0; idx < pattern.length(); idx++) {
+            var ch = pattern.charAt(idx);
+            if (ch == '\\') {
+                idx++;
+            } else if (inClass) {
+                inClass = ch != ']';
+            } else if (ch == '[') {
+                inClass = true;
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (ch == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int methodBit(ImpMethod method) {
+        return 1 << method.ordinal();
+    }
+
+    RouteHint and(RouteHint other) {
+        return new RouteHint(methodMask & other.methodMask, morePreciseKeys(pathKeys, other.pathKeys));
+    }
+
+    RouteHint or(RouteHint other) {
+        var keys = pathKeys;
+        var otherKeys = other.pathKeys;
+        List<PathKey> combinedKeys = null;
+        if (keys != null && otherKeys != null) {
+            combinedKeys = new ArrayList<>(keys.size() + otherKeys.size());
+            combinedKeys.addAll(keys);
+            combinedKeys.addAll(otherKeys);
+        }
+        return new RouteHint(methodMask | other.methodMask, combinedKeys);
+    }
+
+    // Both sets of keys are necessary, so any of them can be used - choose the one that is likely to match less
+    @Nullable private static List<PathKey> morePreciseKeys(
+            @Nullable List<PathKey> keys, @Nullable List<PathKey> otherKeys) {
+        if (keys == null) {
+            return otherKeys;
+        } else if (otherKeys == null) {
+            return keys;
+        }
+        var score = precision(keys);
+        var otherScore = precision(otherKeys);
+        if (score != otherScore) {
+            return score > otherScore ? keys : otherKeys;
+        }
+        return keys.size() <= otherKeys.size() ? keys : otherKeys;
+    }
+
+    // Prefix keys are anchored, so they are preferred over substrings of similar length
+    private static int precision(List<PathKey> keys) {
+        var min = Integer.MAX_VALUE;
+        for (var key : keys) {
+            min = Math.min(min, key.literal.length() * 2 + (key.prefix ? 1 : 0));
+        }
+        return min;
+    }
+
+    static final class PathKey {
+
+        final String literal;
+        // true - uri string should start with literal, false - uri string should contain literal
+        final boolean prefix;
+
+        PathKey(String literal, boolean prefix) {
+            this.literal = literal;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpServer;
-
 final class Server {
 
     private final int port;
-    private final HttpServer actualServer;
+    private final EngineServer actualServer;
 
-    Server(int port, HttpServer actualServer) {
+    Server(int port, EngineServer actualServer) {
         this.port = port;
         this.actualServer = actualServer;
     }
@@ -16,7 +14,7 @@ final class Server {
         return port;
     }
 
-    public HttpServer actualServer() {
+    public EngineServer actualServer() {
         return actualServer;
     }
 }
@@ -1,15 +1,18 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpServer;
+import java.util.concurrent.ExecutorService;
+import org.jspecify.annotations.Nullable;
 
 final class StartedServer {
 
     private final int port;
-    private final HttpServer httpServer;
+    private final EngineServer engineServer;
+    @Nullable private final ExecutorService executorService;
 
-    StartedServer(int port, HttpServer httpServer) {
+    StartedServer(int port, EngineServer engineServer, @Nullable ExecutorService executorService) {
         this.port = port;
-        this.httpServer = httpServer;
+        this.engineServer = engineServer;
+        this.executorService = executorService;
     }
 
     public int port() {
@@ -17,6 +20,10 @@ final class StartedServer {
     }
 
     public void dispose() {
-        httpServer.stop(0);
+        try {
+            engineServer.stop();
+        } finally {
+            ImpExecutor.shutdown(executorService);
+        }
     }
 }
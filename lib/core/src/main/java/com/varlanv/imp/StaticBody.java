@@ -0,0 +1,37 @@
+package com.varlanv.imp;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+final class StaticBody implements NamedFn<ImpRequestView, ImpSupplier<InputStream>> {
+
+    private final String name;
+    private final byte[] bytes;
+    private final ImpSupplier<InputStream> streamSupplier;
+
+    private StaticBody(String name, byte[] bytes) {
+        this.name = name;
+        this.bytes = bytes;
+        this.streamSupplier = () -> new ByteArrayInputStream(bytes);
+    }
+
+    static StaticBody utf8(String name, String body) {
+        return new StaticBody(name, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Shared between all responses, must never be modified
+    byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public ImpSupplier<InputStream> unsafeApply(ImpRequestView request) {
+        return streamSupplier;
+    }
+}
@@ -0,0 +1,182 @@
+package com.varlanv.imp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Aho-Corasick automaton over literal needles, finds all of them in a single pass over text.
+// Built once, read-only afterwards, so it is safe to read concurrently.
+final class SubstringAutomaton {
+
+    private static final int[] EMPTY = new int[0];
+
+    // Per state - sorted transition chars and target states, searched with binary search
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] failures;
+    // Per state - indexes of needles that end in this state, including those reachable by failure links
+    private final int[][] outputs;
+    // Bitmap of chars that start at least one needle, in root state other chars are skipped without transitions
+    private final long[] rootChars = new long[(Character.MAX_VALUE + 1) / Long.SIZE];
+    // Same for search over bytes, indexed by unsigned byte value
+    private final boolean[] rootBytes = new boolean[256];
+    private final int needleCount;
+
+    SubstringAutomaton(List<String> needles) {
+        var keys = new ArrayList<char[]>();
+        var targets = new ArrayList<int[]>();
+        var outputs = new ArrayList<int[]>();
+        keys.add(new char[0]);
+        targets.add(EMPTY);
+        outputs.add(EMPTY);
+        for (var needleIdx = 0; needleIdx < needles.size(); needleIdx++) {
+            var needle = needles.get(needleIdx);
+            var state = 0;
+            for (var charIdx = 0; charIdx < needle.length(); charIdx++) {
+                var ch = needle.charAt(charIdx);
+                var stateKeys = keys.get(state);
+                var keyIdx = Arrays.binarySearch(stateKeys, ch);
+                if (keyIdx >= 0) {
+                    state = targets.get(state)[keyIdx];
+                } else {
+                    var newState = keys.size();
+                    keys.add(new char[0]);
+                    targets.add(EMPTY);
+                    outputs.add(EMPTY);
+                    // keys are kept sorted for binary search
+                    var insertAt = -keyIdx - 1;
+                    keys.set(state, insert(stateKeys, insertAt, ch));
+                    targets.set(state, insert(targets.get(state), insertAt, newState));
+                    state = newState;
+                }
+            }
+            outputs.set(state, append(outputs.get(state), needleIdx));
+        }
+        this.keys = keys.toArray(new char[0][]);
+        this.targets = targets.toArray(new int[0][]);
+        this.outputs = outputs.toArray(new int[0][]);
+        this.failures = new int[this.keys.length];
+        this.needleCount = needles.size();
+        for (var ch : this.keys[0]) {
+            rootChars[ch >>> 6] |= 1L << ch;
+            if (ch < rootBytes.length) {
+                rootBytes[ch] = true;
+            }
+        }
+        linkFailures();
+    }
+
+    // Breadth-first, so that failure state of each state is already complete when it is visited
+    private void linkFailures() {
+        var queue = new ArrayDeque<Integer>();
+        for (var child : targets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            var stateKeys = keys[state];
+            for (var keyIdx = 0; keyIdx < stateKeys.length; keyIdx++) {
+                var child = targets[state][keyIdx];
+                var failure = next(failures[state], stateKeys[keyIdx]);
+                failures[child] = failure;
+                if (outputs[failure].length > 0) {
+                    outputs[child] = concat(outputs[child], outputs[failure]);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    // Sets bit (offset + needle index) in found bitset for each needle that text contains
+    void search(String text, long[] found, int offset) {
+        var remaining = needleCount;
+        var state = 0;
+        // plain array access is noticeably faster than charAt on large texts
+        var chars = text.toCharArray();
+        for (var ch : chars) {
+            if (state == 0 && (rootChars[ch >>> 6] & (1L << ch)) == 0) {
+                continue;
+            }
+            state = next(state, ch);
+            if (outputs[state].length > 0) {
+                remaining = markFound(state, found, offset, remaining);
+                if (remaining == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Same as search over text, each byte is taken as char of same value, so needles must consist of such chars
+    void search(byte[] bytes, long[] found, int offset) {
+        var remaining = needleCount;
+        var state = 0;
+        for (var value : bytes) {
+            var ch = (char) (value & 0xFF);
+            if (state == 0 && !rootBytes[ch]) {
+                continue;
+            }
+            state = next(state, ch);
+            if (outputs[state].length > 0) {
+                remaining = markFound(state, found, offset, remaining);
+                if (remaining == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Returns number of needles that are still not found
+    private int markFound(int state, long[] found, int offset, int remaining) {
+        for (var needleIdx : outputs[state]) {
+            var position = offset + needleIdx;
+            var bit = 1L << position;
+            if ((found[position >>> 6] & bit) == 0) {
+                found[position >>> 6] |= bit;
+                remaining--;
+            }
+        }
+        return remaining;
+    }
+
+    private int next(int state, char ch) {
+        while (true) {
+            var keyIdx = Arrays.binarySearch(keys[state], ch);
+            if (keyIdx >= 0) {
+                return targets[state][keyIdx];
+            } else if (state == 0) {
+                return 0;
+            }
+            state = failures[state];
+        }
+    }
+
+    private static char[] insert(char[] values, int insertAt, char value) {
+        var newValues = new char[values.length + 1];
+        System.arraycopy(values, 0, newValues, 0, insertAt);
+        newValues[insertAt] = value;
+        System.arraycopy(values, insertAt, newValues, insertAt + 1, values.length - insertAt);
+        return newValues;
+    }
+
+    private static int[] insert(int[] values, int insertAt, int value) {
+        var newValues = new int[values.length + 1];
+        System.arraycopy(values, 0, newValues, 0, insertAt);
+        newValues[insertAt] = value;
+        System.arraycopy(values, insertAt, newValues, insertAt + 1, values.length - insertAt);
+        return newValues;
+    }
+
+    private static int[] append(int[] values, int value) {
+        var newValues = Arrays.copyOf(values, values.length + 1);
+        newValues[values.length] = value;
+        return newValues;
+    }
+
+    private static int[] concat(int[] values, int[] otherValues) {
+        var newValues = Arrays.copyOf(values, values.length + otherValues.length);
+        System.arraycopy(otherValues, 0, newValues, values.length, otherValues.length);
+        return newValues;
+    }
+}
@@ -1,6 +1,5 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpExchange;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -9,7 +8,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
-final class Teapot implements ImpFn<HttpExchange, ImpResponse> {
+final class Teapot implements ImpFn<ImpRequestView, ImpResponse> {
 
     private final List<ResponseCandidate> candidates;
 
@@ -18,7 +17,7 @@ final class Teapot implements ImpFn<HttpExchange, ImpResponse> {
     }
 
     @Override
-    public ImpResponse unsafeApply(HttpExchange httpExchange) {
+    public ImpResponse unsafeApply(ImpRequestView request) {
         var matchersId = candidates.stream().map(ResponseCandidate::id).collect(Collectors.toList());
         ImpFn<ImpRequestView, ImpSupplier<InputStream>> bodyFn = requestView -> () -> {
             var messageBuilder = new StringBuilder();
@@ -1,6 +1,5 @@
 package com.varlanv.imp;
 
-import com.sun.net.httpserver.HttpExchange;
 import org.immutables.value.Value;
 
 @Value.Immutable
@@ -11,5 +10,9 @@ interface TemplateConfig {
 
     ResponseDecision decision();
 
-    ImpFn<HttpExchange, ImpResponse> fallback();
+    ImpFn<ImpRequestView, ImpResponse> fallback();
+
+    ImpExecutor executor();
+
+    JournalSettings journal();
 }
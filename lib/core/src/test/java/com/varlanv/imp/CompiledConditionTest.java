@@ -0,0 +1,226 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompiledConditionTest implements FastTest {
+
+    private final ImpMatch match = new ImpMatch();
+    private final ImpCondition key1 = match.headers().containsKey("key1");
+    private final ImpCondition key2 = match.headers().containsKey("key2");
+    private final ImpCondition unknown = match.headers().containsKey("unknown");
+
+    @Test
+    @DisplayName("should flatten nested conditions of same kind")
+    void should_flatten_nested_conditions_of_same_kind() {
+        var subject = CompiledCondition.compile(match.and(key1, match.and(key2, match.and(unknown))));
+
+        assertThat(subject.kind).isEqualTo(CompiledCondition.Kind.AND);
+        assertThat(subject.operands)
+                .extracting(operand -> operand.leaf)
+                .containsExactly(key1, key2, unknown);
+    }
+
+    @Test
+    @DisplayName("should push negation of `and` and `or` down to leaves")
+    void should_push_negation_of_and_and_or_down_to_leaves() {
+        var subject = CompiledCondition.compile(match.not(match.or(key1, match.and(key2, match.not(unknown)))));
+
+        assertThat(subject.kind).isEqualTo(CompiledCondition.Kind.AND);
+        assertThat(subject.operands[0].leaf).isSameAs(key1);
+        assertThat(subject.operands[0].negated).isTrue();
+        var negatedAnd = subject.operands[1];
+        assertThat(negatedAnd.kind).isEqualTo(CompiledCondition.Kind.OR);
+        assertThat(negatedAnd.operands).extracting(operand -> operand.leaf).containsExactly(key2, unknown);
+        assertThat(negatedAnd.operands).extracting(operand -> operand.negated).containsExactly(true, false);
+    }
+
+    @Test
+    @DisplayName("should remove double negation")
+    void should_remove_double_negation() {
+        var subject = CompiledCondition.compile(match.not(match.not(key1)));
+
+        assertThat(subject.kind).isEqualTo(CompiledCondition.Kind.LEAF);
+        assertThat(subject.leaf).isSameAs(key1);
+        assertThat(subject.negated).isFalse();
+    }
+
+    @Test
+    @DisplayName("should evaluate repeated leaf only once")
+    void should_evaluate_repeated_leaf_only_once() {
+        var evaluations = new AtomicInteger();
+        var counted = new ImpCondition(
+                ImpCondition.DEFAULT_GROUP,
+                request -> evaluations.incrementAndGet() > 0,
+                () -> "counted",
+                ImpCondition.Kind.CONDITION,
+                ImpCondition.Cost.METHOD_AND_HEADERS);
+        var subject = CompiledCondition.compile(match.and(counted, match.and(key1, counted), counted));
+
+        assertThat(subject.test(request())).isTrue();
+        assertThat(evaluations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should share slot between identical leaves built separately")
+    void should_share_slot_between_identical_leaves_built_separately() {
+        ImpPredicate<String> bodyPredicate = body -> body.isEmpty();
+        var leafSlots = new HashMap<Object, Integer>();
+        var first = CompiledCondition.compile(
+                match.and(
+                        match.headers().containsPair("X-Tenant", "a"),
+                        match.jsonPath("$.type").stringEquals("order"),
+                        match.body().testBodyString(bodyPredicate)),
+                leafSlots);
+        var second = CompiledCondition.compile(
+                match.and(
+                        match.headers().containsPair("X-Tenant", "a"),
+                        match.jsonPath("$.type").stringEquals("order"),
+                        match.body().testBodyString(bodyPredicate),
+                        match.headers().containsPair("X-Tenant", "b"),
+                        match.body().testBodyString(body -> body.isEmpty())),
+                leafSlots);
+
+        // operands are ordered by cost, slots by first appearance
+        assertThat(first.operands).extracting(operand -> operand.slot).containsExactly(0, 2, 1);
+        assertThat(second.operands).extracting(operand -> operand.slot).containsExactly(0, 3, 2, 4, 1);
+        assertThat(leafSlots).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("should treat identical leaves built separately as repeated leaf")
+    void should_treat_identical_leaves_built_separately_as_repeated_leaf() {
+        var subject = CompiledCondition.compile(match.or(
+                match.headers().containsKey("key1"), match.not(match.headers().containsKey("key1"))));
+
+        assertThat(subject).isSameAs(CompiledCondition.TRUE);
+    }
+
+    @Test
+    @DisplayName("should fold leaf combined with its own negation into constant")
+    void should_fold_leaf_combined_with_its_own_negation_into_constant() {
+        var alwaysFalse = CompiledCondition.compile(match.and(key1, key2, match.not(key1)));
+        var alwaysTrue = CompiledCondition.compile(match.or(unknown, match.not(match.and(key2, unknown))));
+
+        assertThat(alwaysFalse).isSameAs(CompiledCondition.FALSE);
+        assertThat(alwaysTrue).isSameAs(CompiledCondition.TRUE);
+        assertThat(alwaysFalse.routeHint().methodMask).isZero();
+        assertThat(alwaysTrue.routeHint()).isSameAs(RouteHint.ANY);
+    }
+
+    @Test
+    @DisplayName("should drop constant that does not affect result")
+    void should_drop_constant_that_does_not_affect_result() {
+        var subject = CompiledCondition.compile(match.or(match.and(key1, match.not(key1)), key2));
+
+        assertThat(subject.kind).isEqualTo(CompiledCondition.Kind.LEAF);
+        assertThat(subject.leaf).isSameAs(key2);
+    }
+
+    @Test
+    @DisplayName("should evaluate cheaper operands first and keep declaration order in explanation")
+    void should_evaluate_cheaper_operands_first_and_keep_declaration_order_in_explanation() {
+        var evaluated = new ArrayList<String>();
+        var declared = match.and(
+                recorded("jsonPath", ImpCondition.Cost.JSON_PATH, evaluated),
+                recorded("body", ImpCondition.Cost.BODY, evaluated),
+                match.or(
+                        recorded("path", ImpCondition.Cost.PATH, evaluated),
+                        recorded("query", ImpCondition.Cost.QUERY, evaluated)),
+                recorded("method", ImpCondition.Cost.METHOD_AND_HEADERS, evaluated),
+                recorded("header", ImpCondition.Cost.METHOD_AND_HEADERS, evaluated));
+
+        assertThat(CompiledCondition.compile(declared).test(request())).isTrue();
+        assertThat(evaluated).containsExactly("method", "header", "query", "body", "jsonPath");
+
+        evaluated.clear();
+        var explanation = declared.toEvaluated(request()).message.joinToBuilder().toString();
+
+        assertThat(evaluated).containsExactly("jsonPath", "body", "path", "method", "header");
+        assertThat(explanation)
+                .containsSubsequence("jsonPath", "body", "OR", "path", "query", "method", "header");
+    }
+
+    @Test
+    @DisplayName("should not evaluate expensive operand when cheap one decides result")
+    void should_not_evaluate_expensive_operand_when_cheap_one_decides_result() {
+        var evaluated = new ArrayList<String>();
+        var subject = CompiledCondition.compile(match.and(
+                recorded("body", ImpCondition.Cost.BODY, evaluated), match.not(match.method().get())));
+
+        assertThat(subject.test(request())).isFalse();
+        assertThat(evaluated).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should agree with declared condition")
+    void should_agree_with_declared_condition() {
+        var subjects = List.of(
+                match.not(match.and(key1, match.or(unknown, match.not(key2)))),
+                match.or(match.not(match.or(key1, key2)), match.and(key1, match.not(unknown))),
+                match.and(match.not(match.not(match.and(key1, key2))), match.or(key2, key2)),
+                match.not(match.or(match.and(key1, key2), match.and(unknown, match.not(key2)))),
+                match.everything());
+        var requests = new ArrayList<ImpRequestView>();
+        for (var headers : List.of(
+                Map.<String, List<String>>of(),
+                Map.of("key1", List.of("value1")),
+                Map.of("key2", List.of("value2")),
+                Map.of("key1", List.of("value1"), "key2", List.of("value2")),
+                Map.of("key1", List.of("value1"), "unknown", List.of("value3")))) {
+            requests.add(request(headers));
+        }
+
+        for (var subject : subjects) {
+            var compiled = CompiledCondition.compile(subject);
+            for (var request : requests) {
+                assertThat(compiled.test(request)).isEqualTo(subject.test(request));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should route by method and path of negated negation")
+    void should_route_by_method_and_path_of_negated_negation() {
+        var subject = CompiledCondition.compile(
+                match.not(match.or(match.not(match.method().post()), match.not(match.path().contains("/users")))));
+
+        var routeHint = subject.routeHint();
+
+        assertThat(routeHint.methodMask).isEqualTo(RouteHint.methodBit(ImpMethod.POST));
+        assertThat(routeHint.pathKeys).singleElement().satisfies(key -> assertThat(key.literal)
+                .isEqualTo("/users"));
+    }
+
+    private ImpCondition recorded(String name, ImpCondition.Cost cost, List<String> evaluated) {
+        return new ImpCondition(
+                ImpCondition.DEFAULT_GROUP,
+                request -> evaluated.add(name),
+                () -> name,
+                ImpCondition.Kind.CONDITION,
+                cost);
+    }
+
+    private ImpRequestView request() {
+        return request(Map.of("key1", List.of("value1")));
+    }
+
+    private ImpRequestView request(Map<String, List<String>> headers) {
+        try {
+            return new ImpRequestView(ImpMethod.GET, headers, () -> new byte[0], new URI("/"));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DecisionCacheTest implements FastTest {
+
+    private final ImpMatch match = new ImpMatch();
+
+    @Test
+    @DisplayName("should evaluate conditions once for requests that differ only in parts that no condition reads")
+    void should_evaluate_conditions_once_for_requests_that_differ_only_in_parts_that_no_condition_reads() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(
+                16,
+                counted(evaluations, match.headers().containsPair("tenant", "first")),
+                counted(evaluations, match.headers().containsPair("tenant", "second")));
+
+        assertThat(pickedId(subject, request("/", Map.of("tenant", List.of("second")), ""))).isEqualTo("stub-1");
+        assertThat(evaluations).hasValue(2);
+        assertThat(pickedId(
+                        subject,
+                        request("/other", Map.of("tenant", List.of("second"), "trace", List.of("1")), "body")))
+                .isEqualTo("stub-1");
+        assertThat(evaluations).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should evaluate conditions again when request differs in part that some condition reads")
+    void should_evaluate_conditions_again_when_request_differs_in_part_that_some_condition_reads() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(
+                16,
+                counted(evaluations, match.headers().containsPair("tenant", "first")),
+                counted(evaluations, match.body().contains("order")),
+                counted(evaluations, match.query().hasKey("expand")));
+
+        assertThat(pickedId(subject, request("/", Map.of("tenant", List.of("first")), ""))).isEqualTo("stub-0");
+        assertThat(pickedId(subject, request("/", Map.of("tenant", List.of("second")), ""))).isNull();
+        assertThat(pickedId(subject, request("/", Map.of(), "order"))).isEqualTo("stub-1");
+        assertThat(pickedId(subject, request("/", Map.of(), "other"))).isNull();
+        assertThat(pickedId(subject, request("/?expand", Map.of(), ""))).isEqualTo("stub-2");
+        assertThat(pickedId(subject, request("/?expand=", Map.of(), ""))).isEqualTo("stub-2");
+        var evaluationsBeforeRepeat = evaluations.get();
+        assertThat(pickedId(subject, request("/", Map.of(), "order"))).isEqualTo("stub-1");
+        assertThat(pickedId(subject, request("/", Map.of(), "other"))).isNull();
+        assertThat(evaluations).hasValue(evaluationsBeforeRepeat);
+    }
+
+    @Test
+    @DisplayName("should expose path variables of responding candidate when decision is cached")
+    void should_expose_path_variables_of_responding_candidate_when_decision_is_cached() {
+        var subject = decision(16, match.path().template("/users/{id}"));
+        var first = request("/users/42", Map.of(), "");
+        var second = request("/users/42", Map.of(), "");
+
+        assertThat(subject.pick(first)).isNotNull();
+        assertThat(subject.pick(second)).isNotNull();
+        assertThat(second.pathVariables()).containsExactly(Map.entry("id", "42"));
+    }
+
+    @Test
+    @DisplayName("should evict least recently used decision when cache is full")
+    void should_evict_least_recently_used_decision_when_cache_is_full() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(2, counted(evaluations, match.headers().containsPair("key", "a")));
+
+        pickedId(subject, request("/", Map.of("key", List.of("a")), ""));
+        pickedId(subject, request("/", Map.of("key", List.of("b")), ""));
+        pickedId(subject, request("/", Map.of("key", List.of("a")), ""));
+        pickedId(subject, request("/", Map.of("key", List.of("c")), ""));
+        assertThat(evaluations).hasValue(3);
+        pickedId(subject, request("/", Map.of("key", List.of("a")), ""));
+        assertThat(evaluations).hasValue(3);
+        pickedId(subject, request("/", Map.of("key", List.of("b")), ""));
+        assertThat(evaluations).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("should not cache decisions when some condition tests body with custom predicate")
+    void should_not_cache_decisions_when_some_condition_tests_body_with_custom_predicate() {
+        assertThat(decision(16, match.method().get(), match.body().testBodyString(body -> body.isEmpty()))
+                        .isCached())
+                .isFalse();
+        assertThat(decision(16, match.method().get(), match.body().contains("order")).isCached())
+                .isTrue();
+    }
+
+    @Test
+    @DisplayName("should consider all header values when some condition looks for value in any header")
+    void should_consider_all_header_values_when_some_condition_looks_for_value_in_any_header() {
+        var subject = decision(16, match.headers().containsValue("expected"));
+
+        assertThat(pickedId(subject, request("/", Map.of("first", List.of("other")), ""))).isNull();
+        assertThat(pickedId(subject, request("/", Map.of("second", List.of("expected")), "")))
+                .isEqualTo("stub-0");
+    }
+
+    @Test
+    @DisplayName("should key body by digest and length, so that equal bodies share decision and others do not")
+    void should_key_body_by_digest_and_length_so_that_equal_bodies_share_decision_and_others_do_not() {
+        var subject = cache(16, match.body().contains("order"));
+        var body = "order-" + "a".repeat(1024);
+
+        var fingerprint = subject.fingerprint(request("/", Map.of(), body));
+
+        assertThat(subject.fingerprint(request("/", Map.of(), body))).isEqualTo(fingerprint);
+        assertThat(subject.fingerprint(request("/", Map.of(), body.replace("order", "other"))))
+                .isNotEqualTo(fingerprint);
+        assertThat(subject.fingerprint(request("/", Map.of(), body + "a"))).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    @DisplayName("should split only large caches into segments, and keep total entries within max entries")
+    void should_split_only_large_caches_into_segments_and_keep_total_entries_within_max_entries() {
+        assertThat(DecisionCache.segmentCount(2, 16)).isOne();
+        assertThat(DecisionCache.segmentCount(DecisionCache.MIN_SEGMENT_ENTRIES * 2 - 1, 16)).isOne();
+        assertThat(DecisionCache.segmentCount(DecisionCache.MIN_SEGMENT_ENTRIES * 2, 16)).isEqualTo(2);
+        assertThat(DecisionCache.segmentCount(1024, 16)).isEqualTo(16);
+        assertThat(DecisionCache.segmentCount(1024, 4)).isEqualTo(4);
+        assertThat(DecisionCache.maxSegments(1)).isOne();
+        assertThat(DecisionCache.maxSegments(6)).isEqualTo(8);
+        assertThat(DecisionCache.maxSegments(64)).isEqualTo(16);
+
+        var subject = cache(100, match.headers().containsPair("key", "a"));
+        for (var idx = 0; idx < 1000; idx++) {
+            subject.put(
+                    subject.fingerprint(request("/", Map.of("key", List.of(String.valueOf(idx))), "")),
+                    DecisionCache.NO_MATCH);
+        }
+
+        assertThat(subject.size()).isPositive().isLessThanOrEqualTo(100);
+        assertThat(subject.segmentCount()).isEqualTo(DecisionCache.segmentCount(100, DecisionCache.MAX_SEGMENTS));
+    }
+
+    private static DecisionCache cache(int maxEntries, ImpCondition condition) {
+        return Objects.requireNonNull(
+                DecisionCache.of(new CompiledCondition[] {CompiledCondition.compile(condition)}, maxEntries));
+    }
+
+    private ResponseDecision decision(int cacheSize, ImpCondition... conditions) {
+        var response = ImpResponse.builder()
+                .status(200)
+                .body(() -> new ByteArrayInputStream(new byte[0]))
+                .build();
+        var candidates = new ArrayList<ResponseCandidate>(conditions.length);
+        for (var idx = 0; idx < conditions.length; idx++) {
+            candidates.add(new ResponseCandidate("stub-" + idx, idx, conditions[idx], () -> response));
+        }
+        return new ResponseDecision(candidates, cacheSize);
+    }
+
+    // Same condition, with same leaf key, that also counts its evaluations
+    private static ImpCondition counted(AtomicInteger evaluations, ImpCondition condition) {
+        return new ImpCondition(
+                condition.group,
+                request -> {
+                    evaluations.incrementAndGet();
+                    return condition.predicate.test(request);
+                },
+                condition.context,
+                condition.kind,
+                condition.cost,
+                Objects.requireNonNull(condition.leafKey),
+                condition.leafRouteHint);
+    }
+
+    private static @Nullable String pickedId(ResponseDecision subject, ImpRequestView request) {
+        var picked = subject.pick(request);
+        return picked == null ? null : picked.id();
+    }
+
+    private static ImpRequestView request(String uri, Map<String, List<String>> headers, String body) {
+        try {
+            return new ImpRequestView(
+                    ImpMethod.GET, headers, () -> body.getBytes(StandardCharsets.UTF_8), new URI(uri));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class FrozenHeadersOperatorTest implements FastTest {
+
+    @Test
+    @DisplayName("should resolve headers once and return same frozen headers for every response")
+    void should_resolve_headers_once_and_return_same_frozen_headers_for_every_response() {
+        var applications = new AtomicInteger();
+        var subject = FrozenHeadersOperator.freeze(headers -> {
+            applications.incrementAndGet();
+            return Map.of("Content-Type", List.of("text/plain"), "X-Stub", List.of("first", "second"));
+        });
+
+        var first = subject.apply(Map.of());
+        var second = subject.apply(Map.of());
+
+        assertThat(first).isSameAs(second).isInstanceOf(FrozenHeaders.class);
+        assertThat(first)
+                .containsOnly(
+                        Map.entry("Content-Type", List.of("text/plain")),
+                        Map.entry("X-Stub", List.of("first", "second")));
+        assertThat(applications).hasValue(1);
+        assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> first.put("X-Other", List.of("value")));
+    }
+
+    @Test
+    @DisplayName("should apply original operator to non-empty headers")
+    void should_apply_original_operator_to_non_empty_headers() {
+        var response = ImpResponse.builder()
+                .status(200)
+                .body(() -> new ByteArrayInputStream(new byte[0]))
+                .headers(Map.of("X-Stub", List.of("stub")))
+                .buildFrozen();
+
+        assertThat(response.headersOperator().apply(Map.of("X-Existing", List.of("existing"))))
+                .containsOnly(Map.entry("X-Stub", List.of("stub")), Map.entry("X-Existing", List.of("existing")));
+    }
+
+    @Test
+    @DisplayName("should serialize header lines once, without headers managed by engine")
+    void should_serialize_header_lines_once_without_headers_managed_by_engine() {
+        var subject = FrozenHeaders.of(Map.of(
+                "X-Stub", List.of("first", "second"),
+                "Content-Length", List.of("10"),
+                "connection", List.of("close")));
+
+        assertThat(subject.serializedLines()).isEqualTo("X-Stub: first\r\nX-Stub: second\r\n");
+        assertThat(FrozenHeaders.of(subject)).isSameAs(subject);
+    }
+}
@@ -0,0 +1,34 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ImpEngineTest implements FastTest {
+
+    @Test
+    @DisplayName("'named' should return built-in jdk engine")
+    void named_should_return_built_in_jdk_engine() {
+        assertThat(ImpEngine.named("jdk")).isSameAs(ImpEngine.jdk());
+    }
+
+    @Test
+    @DisplayName("'named' should fail for unknown engine")
+    void named_should_fail_for_unknown_engine() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> ImpEngine.named("unknown"))
+                .withMessage("Server engine [ unknown ] is not found. Available engines: [jdk]");
+    }
+
+    @Test
+    @DisplayName("'netty' should fail when engine library is not on classpath")
+    void netty_should_fail_when_engine_library_is_not_on_classpath() {
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(ImpEngine::netty)
+                .withMessage("Server engine [ netty ] is not found on classpath. "
+                        + "Library [ com.varlanv.imp-server:netty-bridge ] is required on classpath to use this engine.");
+    }
+}
@@ -1,11 +1,13 @@
 package com.varlanv.imp;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.varlanv.imp.commontest.BaseTest;
 import com.varlanv.imp.commontest.FastTest;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.DisplayName;
@@ -215,6 +217,171 @@ class ImpMatchTest implements FastTest {
         }
     }
 
+    @Nested
+    class PathTemplateSuite implements FastTest {
+
+        @Test
+        @DisplayName("template should match path with variables, ignoring query")
+        void template_should_match_path_with_variables_ignoring_query() {
+            var subject = new ImpMatch().path().template("/users/{id}/orders/{orderId}");
+
+            assertThat(subject.test(requestWithUri("/users/1/orders/2"))).isTrue();
+            assertThat(subject.test(requestWithUri("/users/1/orders/2?expand=true"))).isTrue();
+        }
+
+        @Test
+        @DisplayName("template should not match path with different segments")
+        void template_should_not_match_path_with_different_segments() {
+            var subject = new ImpMatch().path().template("/users/{id}/orders/{orderId}");
+
+            assertThat(subject.test(requestWithUri("/users/1/orders"))).isFalse();
+            assertThat(subject.test(requestWithUri("/users/1/orders/2/items"))).isFalse();
+            assertThat(subject.test(requestWithUri("/users//orders/2"))).isFalse();
+            assertThat(subject.test(requestWithUri("/clients/1/orders/2"))).isFalse();
+        }
+
+        @Test
+        @DisplayName("template without variables should match exact path")
+        void template_without_variables_should_match_exact_path() {
+            var subject = new ImpMatch().path().template("/users/me");
+
+            assertThat(subject.test(requestWithUri("/users/me"))).isTrue();
+            assertThat(subject.test(requestWithUri("/users/me/"))).isFalse();
+        }
+
+        @Test
+        @DisplayName("template should reject invalid variables")
+        void template_should_reject_invalid_variables() {
+            var path = new ImpMatch().path();
+
+            assertThatThrownBy(() -> path.template("users/{id}"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Path template should start with '/', but received [ users/{id} ]");
+            assertThatThrownBy(() -> path.template("/users/{id}/orders/{id}"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Duplicate variable [ id ] in path template [ /users/{id}/orders/{id} ]");
+            assertThatThrownBy(() -> path.template("/users/user-{id}"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage(
+                            "Path template variable should take whole segment, but found [ user-{id} ] in [ /users/user-{id} ]");
+        }
+    }
+
+    @Nested
+    class BodySuite implements FastTest {
+
+        private final ImpMatch match = new ImpMatch();
+        private final ImpRequestView request =
+                requestWithBody("{\"name\":\"Grüße\",\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+        @Test
+        @DisplayName("byte matchers should match multibyte characters of UTF-8 body")
+        void byte_matchers_should_match_multibyte_characters_of_utf_8_body() {
+            assertThat(match.body().contains("Grüße").test(request)).isTrue();
+            assertThat(match.body().contains("Grüsse").test(request)).isFalse();
+            assertThat(match.body().startsWith("{\"name\"").test(request)).isTrue();
+            assertThat(match.body().startsWith("\"name\"").test(request)).isFalse();
+            assertThat(match.body().endsWith("\"id\":1}").test(request)).isTrue();
+            assertThat(match.body().endsWith("\"id\":1").test(request)).isFalse();
+            assertThat(match.body().endsWith("{\"name\":\"Grüße\",\"id\":1}!").test(request)).isFalse();
+        }
+
+        @Test
+        @DisplayName("`hasLength` should count bytes, not characters")
+        void has_length_should_count_bytes_not_characters() {
+            assertThat(match.body().hasLength(25).test(request)).isTrue();
+            assertThat(match.body().hasLength(23).test(request)).isFalse();
+            assertThat(match.body().hasLength(0).test(requestWithBody(new byte[0]))).isTrue();
+            assertThatThrownBy(() -> match.body().hasLength(-1))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("negative values are not supported - length");
+        }
+
+        @Test
+        @DisplayName("`hasBytes` should match body that is not valid UTF-8")
+        void has_bytes_should_match_body_that_is_not_valid_utf_8() {
+            var bytes = new byte[] {(byte) 0xFF, 0, (byte) 0xC3};
+            var subject = match.body().hasBytes(bytes);
+            bytes[0] = 1;
+
+            assertThat(subject.test(requestWithBody(new byte[] {(byte) 0xFF, 0, (byte) 0xC3})))
+                    .isTrue();
+            assertThat(subject.test(requestWithBody(bytes))).isFalse();
+            assertThat(subject.test(requestWithBody(new byte[] {(byte) 0xFF, 0}))).isFalse();
+        }
+    }
+
+    @Nested
+    class EvaluationSuite implements FastTest {
+
+        @Test
+        @DisplayName("`test` should agree with explained evaluation for nested conditions")
+        void test_should_agree_with_explained_evaluation_for_nested_conditions() {
+            var match = new ImpMatch();
+            var request = requestWithHeaders(headers);
+            var subjects = List.of(
+                    match.and(
+                            match.headers().containsKey("key1"),
+                            match.or(match.headers().containsKey("unknown"), match.headers().containsKey("key2"))),
+                    match.and(
+                            match.headers().containsKey("key1"),
+                            match.or(
+                                    match.headers().containsKey("unknown1"),
+                                    match.not(match.headers().containsKey("key2")))),
+                    match.or(
+                            match.and(match.headers().containsKey("unknown"), match.headers().containsKey("key1")),
+                            match.not(match.headers().containsKey("unknown"))),
+                    match.everything(),
+                    match.not(match.and(match.headers().containsKey("key1"), match.headers().containsKey("unknown"))),
+                    match.not(match.or(match.headers().containsKey("unknown"), match.headers().containsKey("key2"))),
+                    match.not(match.not(match.or(
+                            match.headers().containsKey("unknown"), match.headers().containsKey("key2")))));
+
+            for (var subject : subjects) {
+                assertThat(subject.test(request)).isEqualTo(subject.toEvaluated(request).result);
+            }
+            assertThat(subjects)
+                    .extracting(subject -> subject.test(request))
+                    .containsExactly(true, false, true, true, true, false, true);
+        }
+
+        @Test
+        @DisplayName("`test` should not evaluate remaining conditions after result is known")
+        void test_should_not_evaluate_remaining_conditions_after_result_is_known() {
+            var match = new ImpMatch();
+            var failing = new ImpCondition(
+                    ImpCondition.DEFAULT_GROUP,
+                    request -> {
+                        throw new IllegalStateException("should not be evaluated");
+                    },
+                    () -> "failing",
+                    ImpCondition.Kind.CONDITION,
+                    ImpCondition.Cost.METHOD_AND_HEADERS);
+
+            assertThat(match.and(match.headers().containsKey("unknown"), failing)
+                            .test(requestWithHeaders(headers)))
+                    .isFalse();
+            assertThat(match.or(match.headers().containsKey("key1"), failing).test(requestWithHeaders(headers)))
+                    .isTrue();
+        }
+    }
+
+    private ImpRequestView requestWithUri(String uri) {
+        try {
+            return new ImpRequestView(ImpMethod.GET, Map.of(), () -> new byte[0], new URI(uri));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+
+    private ImpRequestView requestWithBody(byte[] body) {
+        try {
+            return new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, new URI("/"));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+
     private ImpRequestView requestWithHeaders(Map<String, List<String>> headers) {
         try {
             return new ImpRequestView(ImpMethod.GET, headers, () -> new byte[0], new URI(""));
@@ -0,0 +1,163 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ImpRequestJournalTest implements FastTest {
+
+    @Test
+    @DisplayName("should keep only most recent entries up to capacity, but count all requests")
+    void should_keep_only_most_recent_entries_up_to_capacity_but_count_all_requests() {
+        var subject = new ImpRequestJournal(new JournalSettings(3, 16));
+        for (var idx = 0; idx < 5; idx++) {
+            record(subject, idx % 2 == 0 ? "even" : null, "/path/" + idx, "body");
+        }
+
+        assertThat(subject.entries())
+                .extracting(ImpJournalEntry::sequence, ImpJournalEntry::path)
+                .containsExactly(tuple(2L, "/path/2"), tuple(3L, "/path/3"), tuple(4L, "/path/4"));
+        assertThat(subject.count()).isEqualTo(5);
+        assertThat(subject.countByMatcherId("even")).isEqualTo(3);
+        assertThat(subject.countByMatcherId("other")).isZero();
+        assertThat(subject.unmatchedCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should find kept entries by path")
+    void should_find_kept_entries_by_path() {
+        var subject = new ImpRequestJournal(new JournalSettings(10, 16));
+        record(subject, "id", "/orders?page=1", "");
+        record(subject, "id", "/users", "");
+        record(subject, "id", "/orders?page=2", "");
+
+        assertThat(subject.findByPath("/orders"))
+                .extracting(entry -> entry.uri().getQuery())
+                .containsExactly("page=1", "page=2");
+        assertThat(subject.findByPath("/missing")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should find by path only among entries that are still kept")
+    void should_find_by_path_only_among_entries_that_are_still_kept() {
+        var subject = new ImpRequestJournal(new JournalSettings(2, 16));
+        record(subject, "id", "/orders?page=1", "");
+        record(subject, "id", "/users", "");
+        record(subject, "id", "/orders?page=2", "");
+
+        assertThat(subject.findByPath("/orders")).extracting(ImpJournalEntry::sequence).containsExactly(2L);
+        assertThat(subject.findByPath("/users")).extracting(ImpJournalEntry::sequence).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("should copy request and truncate body to max body bytes")
+    void should_copy_request_and_truncate_body_to_max_body_bytes() {
+        var subject = new ImpRequestJournal(new JournalSettings(10, 4));
+        record(subject, "id", "/short", "abc");
+        record(subject, "id", "/long", "abcdef");
+
+        var entries = subject.entries();
+
+        assertThat(entries.get(0).bodyString()).isEqualTo("abc");
+        assertThat(entries.get(0).isBodyTruncated()).isFalse();
+        assertThat(entries.get(1).bodyString()).isEqualTo("abcd");
+        assertThat(entries.get(1).isBodyTruncated()).isTrue();
+        assertThat(entries.get(1).method()).isEqualTo("POST");
+        assertThat(entries.get(1).matcherId()).isEqualTo("id");
+        assertThat(entries.get(1).headers().get("x-request")).containsExactly("value");
+    }
+
+    @Test
+    @DisplayName("should return entries once expected number of requests arrives")
+    void should_return_entries_once_expected_number_of_requests_arrives() throws Exception {
+        var subject = new ImpRequestJournal(new JournalSettings(100, 0));
+        var threads = 4;
+        var requestsPerThread = 25;
+        var start = new CountDownLatch(1);
+        var workers = new ArrayList<Thread>();
+        for (var threadIdx = 0; threadIdx < threads; threadIdx++) {
+            var id = "matcher-" + threadIdx;
+            var worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    BaseTest.hide(e);
+                }
+                for (var idx = 0; idx < requestsPerThread; idx++) {
+                    record(subject, id, "/", "");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+
+        var entries = subject.awaitRequests(threads * requestsPerThread, Duration.ofSeconds(5));
+        for (var worker : workers) {
+            worker.join();
+        }
+
+        assertThat(entries).hasSize(threads * requestsPerThread);
+        assertThat(entries.stream().map(ImpJournalEntry::sequence).collect(Collectors.toList()))
+                .isSorted()
+                .doesNotHaveDuplicates();
+        for (var threadIdx = 0; threadIdx < threads; threadIdx++) {
+            assertThat(subject.countByMatcherId("matcher-" + threadIdx)).isEqualTo(requestsPerThread);
+        }
+    }
+
+    @Test
+    @DisplayName("should fail when expected number of requests does not arrive within timeout")
+    void should_fail_when_expected_number_of_requests_does_not_arrive_within_timeout() {
+        var subject = new ImpRequestJournal(new JournalSettings(10, 0));
+        record(subject, "id", "/", "");
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> subject.awaitRequests(2, Duration.ofMillis(20)))
+                .withMessage("Expected at least 2 requests within PT0.02S, but 1 requests were received");
+    }
+
+    @Test
+    @DisplayName("should fail on queries when journal is not enabled")
+    void should_fail_on_queries_when_journal_is_not_enabled() {
+        var subject = new ImpRequestJournal(JournalSettings.DISABLED);
+        record(subject, "id", "/", "");
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(subject::count)
+                .withMessage(
+                        "Request journal is not enabled. Use `withRequestJournal` when building server to enable it.");
+        assertThatExceptionOfType(IllegalStateException.class).isThrownBy(() -> subject.findByPath("/"));
+    }
+
+    private static void record(ImpRequestJournal subject, @Nullable String matcherId, String uri, String body) {
+        try {
+            var parsedUri = new URI(uri);
+            subject.record(
+                    matcherId,
+                    new ImpRequestView(
+                            ImpMethod.POST,
+                            Map.of("X-Request", List.of("value")),
+                            () -> body.getBytes(StandardCharsets.UTF_8),
+                            parsedUri),
+                    parsedUri);
+        } catch (URISyntaxException e) {
+            BaseTest.hide(e);
+        }
+    }
+}
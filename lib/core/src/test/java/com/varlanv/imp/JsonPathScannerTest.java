@@ -0,0 +1,229 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import com.varlanv.imp.commontest.FastTest;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.intellij.lang.annotations.Language;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JsonPathScannerTest implements FastTest {
+
+    @Nested
+    class StepsSuite implements FastTest {
+
+        @Test
+        @DisplayName("should parse dot and bracket properties and indexes")
+        void should_parse_dot_and_bracket_properties_and_indexes() {
+            assertThat(JsonPathScanner.steps("$.orders[1]['total-sum'].value"))
+                    .containsExactly("orders", 1, "total-sum", "value");
+            assertThat(JsonPathScanner.steps("$[0][\"key\"]")).containsExactly(0, "key");
+            assertThat(JsonPathScanner.steps("$.[0]")).containsExactly(0);
+            assertThat(JsonPathScanner.steps("key.nested")).containsExactly("key", "nested");
+            assertThat(JsonPathScanner.steps("$")).isEmpty();
+        }
+
+        @ParameterizedTest
+        @ValueSource(
+                strings = {
+                    "$..key",
+                    "$.*",
+                    "$[*]",
+                    "$.key[-1]",
+                    "$.key[0:2]",
+                    "$.key[0,1]",
+                    "$['a','b']",
+                    "$.key[?(@.price > 10)]",
+                    "$.key.length()",
+                    "@.key",
+                    "$.key.",
+                    "$.ke][]y",
+                    "$.key[1"
+                })
+        @DisplayName("should leave paths that are not definite or need Jayway syntax to Jayway")
+        void should_leave_paths_that_are_not_definite_or_need_jayway_syntax_to_jayway(String path) {
+            assertThat(JsonPathScanner.steps(path)).isNull();
+        }
+    }
+
+    @Nested
+    class ScanSuite implements FastTest {
+
+        @Language("json")
+        private final String json =
+                """
+            {
+                "string": "a\\"b\\u00fc\\n",
+                "int": -12,
+                "long": 1234444444444444444,
+                "bigInteger": 123444444444444444444,
+                "double": 123.456,
+                "decimal": 123.45623123123456789,
+                "exponent": 1e2,
+                "true": true,
+                "null": null,
+                "nested": {"list": [{"key": "first"}, {"key": "second"}]},
+                "escaped\\u0020key": "grüße"
+            }
+            """;
+
+        @Test
+        @DisplayName("should resolve all paths in single pass with same value types as Jayway")
+        void should_resolve_all_paths_in_single_pass_with_same_value_types_as_jayway() {
+            var results = scan(
+                    json,
+                    "$.string",
+                    "$.int",
+                    "$.long",
+                    "$.bigInteger",
+                    "$.double",
+                    "$.decimal",
+                    "$.exponent",
+                    "$.true",
+                    "$.null",
+                    "$.nested.list[1].key",
+                    "$['escaped key']",
+                    "$.nested");
+
+            assertThat(values(results))
+                    .containsExactly(
+                            "a\"bü\n",
+                            -12,
+                            1234444444444444444L,
+                            new BigInteger("123444444444444444444"),
+                            123.456,
+                            new BigDecimal("123.45623123123456789"),
+                            100.0,
+                            true,
+                            null,
+                            "second",
+                            "grüße",
+                            JsonPathScanner.CONTAINER);
+            for (var result : results) {
+                assertThat(result.isPresent).isTrue();
+            }
+        }
+
+        @Test
+        @DisplayName("should resolve missing keys, indexes beyond array and properties of non-objects as absent")
+        void should_resolve_missing_keys_indexes_beyond_array_and_properties_of_non_objects_as_absent() {
+            var results = scan(json, "$.missing", "$.nested.list[2]", "$.nested.list.key", "$.int.key", "$.null[0]");
+
+            assertThat(results).containsOnly(JsonPathScanner.ABSENT);
+        }
+
+        @Test
+        @DisplayName("should resolve index on non-array value as absent, same as Jayway")
+        void should_resolve_index_on_non_array_value_as_absent_same_as_jayway() {
+            var paths = new String[] {"$.nested[0]", "$.string[0]", "$.int[0]", "$.nested[0].key"};
+            var results = scan(json, paths);
+
+            assertThat(results).containsOnly(JsonPathScanner.ABSENT);
+            for (var path : paths) {
+                assertThatExceptionOfType(PathNotFoundException.class).isThrownBy(() -> JsonPath.read(json, path));
+            }
+        }
+
+        @Test
+        @DisplayName("should read rest of body after all paths are resolved, and leave malformed rest to Jayway")
+        void should_read_rest_of_body_after_all_paths_are_resolved_and_leave_malformed_rest_to_jayway() {
+            var results = scan(
+                    "{\"first\": 1, \"second\": [true, 2], \"rest\": {\"nested\": [1, {\"deep\": null}]}}",
+                    "$.first",
+                    "$.second[0]");
+
+            assertThat(values(results)).containsExactly(1, true);
+            assertThat(scan("{\"first\": 1, \"rest\": not json", "$.first")).containsOnly(JsonPathScanner.MALFORMED);
+        }
+
+        @Test
+        @DisplayName("should take last of repeated keys on the way to path, same as Jayway")
+        void should_take_last_of_repeated_keys_on_the_way_to_path_same_as_jayway() {
+            var bodiesByPath = List.of(
+                    List.of("$.type", "{\"type\": \"a\", \"type\": \"b\"}"),
+                    List.of("$.type", "{\"type\": \"a\", \"other\": [1], \"type\": \"b\"}"),
+                    List.of("$.nested.type", "{\"nested\": {\"type\": \"a\"}, \"nested\": {\"type\": \"b\"}}"),
+                    List.of("$.list[1]", "{\"list\": [\"a\", \"a\"], \"list\": [\"a\", \"b\"]}"));
+            for (var bodyByPath : bodiesByPath) {
+                var path = bodyByPath.get(0);
+                var body = bodyByPath.get(1);
+
+                assertThat(values(scan(body, path))).containsExactly("b");
+                assertThat(JsonPath.<Object>read(body, path)).isEqualTo("b");
+            }
+        }
+
+        @Test
+        @DisplayName("should resolve path as absent when last of repeated keys does not have it, same as Jayway")
+        void should_resolve_path_as_absent_when_last_of_repeated_keys_does_not_have_it_same_as_jayway() {
+            for (var body : List.of(
+                    "{\"nested\": {\"type\": \"a\"}, \"nested\": {\"other\": \"b\"}}",
+                    "{\"nested\": {\"type\": \"a\"}, \"nested\": 1}")) {
+                assertThat(scan(body, "$.nested.type")).containsOnly(JsonPathScanner.ABSENT);
+                assertThatExceptionOfType(PathNotFoundException.class)
+                        .isThrownBy(() -> JsonPath.read(body, "$.nested.type"));
+            }
+        }
+
+        @ParameterizedTest
+        @ValueSource(
+                strings = {
+                    "{\"key : val}",
+                    "{'key': 'val'}",
+                    "{\"key\": 01}",
+                    "{\"key\": tru}",
+                    "{\"other\": 1} trailing",
+                    ""
+                })
+        @DisplayName("should mark all paths as malformed when body is not strict json")
+        void should_mark_all_paths_as_malformed_when_body_is_not_strict_json(String body) {
+            var results = scan(body, "$.key", "$.missing");
+
+            assertThat(results).containsOnly(JsonPathScanner.MALFORMED);
+        }
+
+        @Test
+        @DisplayName("should give each compiled path its own position, also for same path string")
+        void should_give_each_compiled_path_its_own_position_also_for_same_path_string() {
+            var first = compiledPath("$.int");
+            var second = compiledPath("$.int");
+            var subject = new JsonPathScanner(List.of(first, second, compiledPath("$..int")));
+
+            var results = subject.scan(json.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(subject.position(first)).isEqualTo(0);
+            assertThat(subject.position(second)).isEqualTo(1);
+            assertThat(results).hasSize(2);
+            assertThat(values(results)).containsExactly(-12, -12);
+        }
+    }
+
+    private static JsonPathInternal.ResultRef[] scan(String json, String... paths) {
+        var compiledPaths = new ArrayList<JsonPathInternal.CompiledPath>();
+        for (var path : paths) {
+            compiledPaths.add(compiledPath(path));
+        }
+        return new JsonPathScanner(compiledPaths).scan(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonPathInternal.CompiledPath compiledPath(String path) {
+        return new JsonPathInternal.CompiledPath(path, null, JsonPathScanner.steps(path));
+    }
+
+    private static List<@Nullable Object> values(JsonPathInternal.ResultRef[] results) {
+        return Arrays.asList(Arrays.stream(results).map(ref -> ref.value).toArray());
+    }
+}
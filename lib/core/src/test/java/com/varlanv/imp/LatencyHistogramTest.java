@@ -0,0 +1,117 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest implements FastTest {
+
+    @Test
+    @DisplayName("should put each value into bucket whose highest value is at most one eighth larger")
+    void should_put_each_value_into_bucket_whose_highest_value_is_at_most_one_eighth_larger() {
+        var previousBucket = 0;
+        for (var value = 0L; value < 1L << 36; value = value < 100_000 ? value + 1 : value * 3 / 2) {
+            var bucket = LatencyHistogram.bucket(value);
+            var highestValue = LatencyHistogram.highestValue(bucket);
+
+            assertThat(bucket).isBetween(previousBucket, LatencyHistogram.BUCKET_COUNT - 1);
+            assertThat(highestValue).isGreaterThanOrEqualTo(value).isLessThanOrEqualTo(value + value / 8);
+            previousBucket = bucket;
+        }
+    }
+
+    @Test
+    @DisplayName("should count negative and too large values in first and last buckets")
+    void should_count_negative_and_too_large_values_in_first_and_last_buckets() {
+        assertThat(LatencyHistogram.bucket(-1)).isZero();
+        assertThat(LatencyHistogram.bucket(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+        assertThat(LatencyHistogram.highestValue(LatencyHistogram.BUCKET_COUNT - 1))
+                .isEqualTo((1L << 36) - 1);
+    }
+
+    @Test
+    @DisplayName("should report percentiles of recorded durations")
+    void should_report_percentiles_of_recorded_durations() {
+        var subject = new LatencyHistogram();
+        for (var idx = 0; idx < 989; idx++) {
+            subject.record(1_000);
+        }
+        for (var idx = 0; idx < 10; idx++) {
+            subject.record(1_000_000);
+        }
+        subject.record(1_000_000_000);
+
+        var statistics = new ImpLatencyStatistics(subject.snapshot());
+
+        assertThat(statistics.count()).isEqualTo(1_000);
+        assertThat(statistics.p50()).isBetween(Duration.ofNanos(1_000), Duration.ofNanos(1_125));
+        assertThat(statistics.p99()).isBetween(Duration.ofNanos(1_000_000), Duration.ofNanos(1_125_000));
+        assertThat(statistics.p999()).isBetween(Duration.ofNanos(1_000_000), Duration.ofNanos(1_125_000));
+    }
+
+    @Test
+    @DisplayName("should keep single stripe without contention, and count every duration recorded concurrently")
+    void should_keep_single_stripe_without_contention_and_count_every_duration_recorded_concurrently()
+            throws Exception {
+        var subject = new LatencyHistogram();
+        for (var idx = 0; idx < 1_000; idx++) {
+            subject.record(1_000);
+        }
+
+        assertThat(subject.stripeCount()).isOne();
+
+        var threads = 8;
+        var recordsPerThread = 20_000;
+        var start = new CountDownLatch(1);
+        var workers = new ArrayList<Thread>();
+        for (var threadIdx = 0; threadIdx < threads; threadIdx++) {
+            var worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    BaseTest.hide(e);
+                }
+                for (var idx = 0; idx < recordsPerThread; idx++) {
+                    subject.record(1_000);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (var worker : workers) {
+            worker.join();
+        }
+
+        var snapshot = subject.snapshot();
+        assertThat(snapshot[LatencyHistogram.bucket(1_000)]).isEqualTo(1_000L + threads * recordsPerThread);
+        assertThat(Arrays.stream(snapshot).sum()).isEqualTo(1_000L + threads * recordsPerThread);
+        assertThat(subject.stripeCount()).isBetween(1, LatencyHistogram.MAX_STRIPES);
+    }
+
+    @Test
+    @DisplayName("should allow up to power of two stripes not smaller than processors count, but at most 16")
+    void should_allow_up_to_power_of_two_stripes_not_smaller_than_processors_count_but_at_most_16() {
+        assertThat(LatencyHistogram.maxStripes(1)).isOne();
+        assertThat(LatencyHistogram.maxStripes(3)).isEqualTo(4);
+        assertThat(LatencyHistogram.maxStripes(8)).isEqualTo(8);
+        assertThat(LatencyHistogram.maxStripes(96)).isEqualTo(16);
+    }
+
+    @Test
+    @DisplayName("should report zero percentiles when nothing was recorded")
+    void should_report_zero_percentiles_when_nothing_was_recorded() {
+        var statistics = new ImpLatencyStatistics(new LatencyHistogram().snapshot());
+
+        assertThat(statistics.count()).isZero();
+        assertThat(statistics.p50()).isZero();
+        assertThat(statistics.p999()).isZero();
+    }
+}
@@ -0,0 +1,80 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RegexMatcherTest implements FastTest {
+
+    private static final List<String> texts = List.of(
+            "",
+            "order",
+            "order-1",
+            "new order",
+            "an order-1 here",
+            "order\n",
+            "\norder",
+            "line\norder\nline",
+            "order.json",
+            "order$",
+            "a\u2028order",
+            "ORDER");
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "order",
+                "^order$",
+                "order.*",
+                ".*order",
+                ".*order.*",
+                "(?s).*order.*",
+                "(?s)order.*",
+                "(?s).*order",
+                "order\\.json",
+                "order\\.*",
+                "order\\$",
+                ".*",
+                "(?s).*",
+                ".*.*",
+                "order-\\d",
+                "order|new order",
+                "(?i)order",
+                ".*order.*?",
+                ".*\n.*",
+                "(?s).*\n.*",
+                "\\Qorder\\E"
+            })
+    @DisplayName("should match same texts as `Pattern.matches`")
+    void should_match_same_texts_as_pattern_matches(String pattern) {
+        var subject = RegexMatcher.compile(pattern);
+
+        for (var text : texts) {
+            assertThat(subject.matches(text)).as(text).isEqualTo(Pattern.matches(pattern, text));
+        }
+    }
+
+    @Test
+    @DisplayName("should use plain string operations for literal patterns")
+    void should_use_plain_string_operations_for_literal_patterns() {
+        assertThat(RegexMatcher.compile("^/api/orders$").kind()).isEqualTo(RegexMatcher.Kind.EXACT);
+        assertThat(RegexMatcher.compile("/api/orders/.*").kind()).isEqualTo(RegexMatcher.Kind.PREFIX);
+        assertThat(RegexMatcher.compile(".*\\.json").kind()).isEqualTo(RegexMatcher.Kind.SUFFIX);
+        assertThat(RegexMatcher.compile("(?s).*\"type\":\"order\".*").kind()).isEqualTo(RegexMatcher.Kind.CONTAINS);
+        assertThat(RegexMatcher.compile("/api/orders/\\d+").kind()).isEqualTo(RegexMatcher.Kind.REGEX);
+    }
+
+    @Test
+    @DisplayName("should fail on invalid pattern when compiled")
+    void should_fail_on_invalid_pattern_when_compiled() {
+        assertThatExceptionOfType(PatternSyntaxException.class).isThrownBy(() -> RegexMatcher.compile("order["));
+    }
+}
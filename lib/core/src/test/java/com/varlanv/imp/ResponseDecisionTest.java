@@ -0,0 +1,261 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.BaseTest;
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ResponseDecisionTest implements FastTest {
+
+    private final ImpMatch match = new ImpMatch();
+
+    @Test
+    @DisplayName("should evaluate only candidates routed by method and path")
+    void should_evaluate_only_candidates_routed_by_method_and_path() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(
+                5_000,
+                idx -> match.and(
+                        match.method().get(), match.path().contains("/stubs/" + idx + "/"), counted(evaluations)));
+
+        var picked = subject.pick(request(ImpMethod.GET, "/stubs/42/details"));
+
+        assertThat(picked).isNotNull().extracting(ResponseCandidate::id).isEqualTo("stub-42");
+        assertThat(evaluations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should not evaluate candidates when request method does not match")
+    void should_not_evaluate_candidates_when_request_method_does_not_match() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(
+                1_000,
+                idx -> match.and(
+                        match.method().get(), match.path().contains("/stubs/" + idx + "/"), counted(evaluations)));
+
+        assertThat(subject.pick(request(ImpMethod.POST, "/stubs/42/details"))).isNull();
+        assertThat(evaluations).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("should route candidates by literal prefix of path pattern")
+    void should_route_candidates_by_literal_prefix_of_path_pattern() {
+        var evaluations = new AtomicInteger();
+        var subject = decision(
+                1_000, idx -> match.and(match.path().matches("/items/" + idx + "/\\d+"), counted(evaluations)));
+
+        var picked = subject.pick(request(ImpMethod.DELETE, "/items/7/123"));
+
+        assertThat(picked).isNotNull().extracting(ResponseCandidate::id).isEqualTo("stub-7");
+        // "/items/7/" is the only literal prefix of request path
+        assertThat(evaluations).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should pick candidate that cannot be indexed if it has higher priority than routed one")
+    void should_pick_candidate_that_cannot_be_indexed_if_it_has_higher_priority_than_routed_one() {
+        var response = response();
+        var subject = new ResponseDecision(List.of(
+                new ResponseCandidate("routed", 0, match.path().contains("/users"), () -> response),
+                new ResponseCandidate(
+                        "not-routed", -1, match.not(match.path().contains("/orders")), () -> response),
+                new ResponseCandidate(
+                        "or-routed",
+                        -2,
+                        match.or(match.path().contains("/orders"), match.headers().containsKey("unknown")),
+                        () -> response)));
+
+        var picked = subject.pick(request(ImpMethod.GET, "/users"));
+
+        assertThat(picked).isNotNull().extracting(ResponseCandidate::id).isEqualTo("not-routed");
+    }
+
+    @Test
+    @DisplayName("should route alternatives of `or` to each of its path keys")
+    void should_route_alternatives_of_or_to_each_of_its_path_keys() {
+        var response = response();
+        var subject = new ResponseDecision(List.of(new ResponseCandidate(
+                "either",
+                0,
+                match.and(
+                        match.method().anyOf("GET", "PUT"),
+                        match.or(match.path().contains("/first"), match.path().matches("/second/.*"))),
+                () -> response)));
+
+        assertThat(subject.pick(request(ImpMethod.PUT, "/api/first"))).isNotNull();
+        assertThat(subject.pick(request(ImpMethod.GET, "/second/1"))).isNotNull();
+        assertThat(subject.pick(request(ImpMethod.GET, "/api/second/1"))).isNull();
+        assertThat(subject.pick(request(ImpMethod.POST, "/api/first"))).isNull();
+    }
+
+    @Test
+    @DisplayName("should evaluate leaf shared by all candidates once per request")
+    void should_evaluate_leaf_shared_by_all_candidates_once_per_request() {
+        var evaluations = new AtomicInteger();
+        var shared = counted(evaluations);
+        var subject = decision(1_000, idx -> match.and(shared, match.headers().containsKey("key-" + idx)));
+
+        assertThat(subject.pick(request(ImpMethod.GET, "/"))).isNull();
+        assertThat(evaluations).hasValue(1);
+        assertThat(subject.pick(request(ImpMethod.GET, "/"))).isNull();
+        assertThat(evaluations).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should match body substrings of all candidates in single pass")
+    void should_match_body_substrings_of_all_candidates_in_single_pass() {
+        var response = response();
+        var candidates = new ArrayList<>(List.of(
+                new ResponseCandidate(
+                        "both",
+                        0,
+                        match.and(match.body().contains("alpha"), match.body().containsIgnoreCase("GAMMA")),
+                        () -> response),
+                new ResponseCandidate("negated", 1, match.not(match.body().contains("beta")), () -> response),
+                new ResponseCandidate("ignoreCase", 2, match.body().containsIgnoreCase("Beta"), () -> response)));
+        // enough substrings of both kinds to be indexed
+        for (var idx = 0; idx < BodySubstrings.MIN_AUTOMATON_NEEDLES; idx++) {
+            candidates.add(new ResponseCandidate(
+                    "filler" + idx,
+                    3 + idx,
+                    match.and(
+                            match.body().contains("filler" + idx), match.body().containsIgnoreCase("Filler" + idx)),
+                    () -> response));
+        }
+        var subject = new ResponseDecision(candidates);
+
+        assertThat(subject.pick(requestWithBody("alpha gamma")))
+                .isNotNull()
+                .extracting(ResponseCandidate::id)
+                .isEqualTo("both");
+        assertThat(subject.pick(requestWithBody("alpha Gamma")))
+                .isNotNull()
+                .extracting(ResponseCandidate::id)
+                .isEqualTo("both");
+        assertThat(subject.pick(requestWithBody("Alpha gamma")))
+                .isNotNull()
+                .extracting(ResponseCandidate::id)
+                .isEqualTo("negated");
+        assertThat(subject.pick(requestWithBody("alpha BETA")))
+                .isNotNull()
+                .extracting(ResponseCandidate::id)
+                .isEqualTo("negated");
+        assertThat(subject.pick(requestWithBody("alpha beta")))
+                .isNotNull()
+                .extracting(ResponseCandidate::id)
+                .isEqualTo("ignoreCase");
+    }
+
+    @Test
+    @DisplayName("should expose path variables of template from responding candidate")
+    void should_expose_path_variables_of_template_from_responding_candidate() {
+        var response = response();
+        var subject = new ResponseDecision(List.of(
+                new ResponseCandidate(
+                        "user",
+                        0,
+                        match.and(match.path().template("/users/{userId}"), match.method().delete()),
+                        () -> response),
+                new ResponseCandidate("any", 1, match.path().template("/users/{id}"), () -> response),
+                new ResponseCandidate("other", 2, match.path().template("/{resource}/{id}"), () -> response)));
+
+        var getRequest = request(ImpMethod.GET, "/users/42");
+        var deleteRequest = request(ImpMethod.DELETE, "/users/42");
+        var otherRequest = request(ImpMethod.GET, "/orders/a%2Fb");
+
+        assertThat(subject.pick(getRequest)).isNotNull().extracting(ResponseCandidate::id).isEqualTo("any");
+        assertThat(getRequest.pathVariables()).containsExactly(Map.entry("id", "42"));
+        assertThat(subject.pick(deleteRequest)).isNotNull().extracting(ResponseCandidate::id).isEqualTo("user");
+        assertThat(deleteRequest.pathVariables()).containsExactly(Map.entry("userId", "42"));
+        assertThat(subject.pick(otherRequest)).isNotNull().extracting(ResponseCandidate::id).isEqualTo("other");
+        assertThat(otherRequest.pathVariables())
+                .containsExactly(Map.entry("resource", "orders"), Map.entry("id", "a/b"));
+    }
+
+    @Test
+    @DisplayName("should expose empty path variables when responding candidate has no template")
+    void should_expose_empty_path_variables_when_responding_candidate_has_no_template() {
+        var response = response();
+        var subject = new ResponseDecision(List.of(
+                new ResponseCandidate("template", 0, match.path().template("/users/{id}"), () -> response),
+                new ResponseCandidate(
+                        "negated", 1, match.not(match.path().template("/users/{id}")), () -> response)));
+        var request = request(ImpMethod.GET, "/orders/1");
+
+        assertThat(subject.pick(request)).isNotNull().extracting(ResponseCandidate::id).isEqualTo("negated");
+        assertThat(request.pathVariables()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+            value = {
+                "/users/\\d+ -> /users/",
+                "^/users/1 -> /users/1",
+                "/users? -> /user",
+                "/users/1+ -> /users/1",
+                "/users|/orders -> ''",
+                "(?i)/users -> ''",
+                ".*/users -> ''",
+                "/users/(a|b) -> /users/"
+            },
+            delimiterString = " -> ")
+    @DisplayName("should extract literal prefix from path pattern")
+    void should_extract_literal_prefix_from_path_pattern(String pattern, String expectedPrefix) {
+        assertThat(RouteHint.regexLiteralPrefix(pattern)).isEqualTo(expectedPrefix);
+    }
+
+    private ResponseDecision decision(int candidatesCount, IntFunction<ImpCondition> conditionFactory) {
+        var response = response();
+        var candidates = new ArrayList<ResponseCandidate>(candidatesCount);
+        for (var idx = 0; idx < candidatesCount; idx++) {
+            candidates.add(new ResponseCandidate("stub-" + idx, idx, conditionFactory.apply(idx), () -> response));
+        }
+        return new ResponseDecision(candidates);
+    }
+
+    private static ImpCondition counted(AtomicInteger evaluations) {
+        return new ImpCondition(
+                ImpCondition.DEFAULT_GROUP,
+                request -> evaluations.incrementAndGet() > 0,
+                () -> "counted",
+                ImpCondition.Kind.CONDITION,
+                ImpCondition.Cost.METHOD_AND_HEADERS);
+    }
+
+    private ImpResponse response() {
+        return ImpResponse.builder()
+                .status(200)
+                .body(() -> new ByteArrayInputStream(new byte[0]))
+                .build();
+    }
+
+    private ImpRequestView requestWithBody(String body) {
+        try {
+            return new ImpRequestView(
+                    ImpMethod.POST, Map.of(), () -> body.getBytes(StandardCharsets.UTF_8), new URI("/"));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+
+    private ImpRequestView request(ImpMethod method, String path) {
+        try {
+            return new ImpRequestView(method, Map.of(), () -> new byte[0], new URI(path));
+        } catch (URISyntaxException e) {
+            return BaseTest.hide(e);
+        }
+    }
+}
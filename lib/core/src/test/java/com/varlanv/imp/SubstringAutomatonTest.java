@@ -0,0 +1,64 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.commontest.FastTest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SubstringAutomatonTest implements FastTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ushers", "she", "his hers", "", "h", "hehehe", "sHe"})
+    @DisplayName("should find same needles as `String.contains`, including overlapping ones")
+    void should_find_same_needles_as_string_contains_including_overlapping_ones(String text) {
+        var needles = List.of("he", "she", "his", "hers", "e");
+        var subject = new SubstringAutomaton(needles);
+        var found = new long[1];
+
+        subject.search(text, found, 0);
+
+        for (var idx = 0; idx < needles.size(); idx++) {
+            assertThat((found[0] & (1L << idx)) != 0)
+                    .as(needles.get(idx))
+                    .isEqualTo(text.contains(needles.get(idx)));
+        }
+    }
+
+    @Test
+    @DisplayName("should mark needles with offset across multiple words of bitset")
+    void should_mark_needles_with_offset_across_multiple_words_of_bitset() {
+        var needles = new ArrayList<String>();
+        for (var idx = 0; idx < 130; idx++) {
+            needles.add("<" + idx + ">");
+        }
+        var subject = new SubstringAutomaton(needles);
+        var found = new long[3];
+
+        subject.search("<1><70><125><130>", found, 10);
+
+        assertThat(found[0]).isEqualTo(1L << 11);
+        assertThat(found[1]).isEqualTo(1L << (80 - 64));
+        assertThat(found[2]).isEqualTo(1L << (135 - 128));
+    }
+
+    @Test
+    @DisplayName("should search bytes, taking each byte as char of same value")
+    void should_search_bytes_taking_each_byte_as_char_of_same_value() {
+        var byteNeedles = new ArrayList<String>();
+        for (var needle : List.of("ü", "ß", "é", "e")) {
+            byteNeedles.add(new String(needle.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1));
+        }
+        var subject = new SubstringAutomaton(byteNeedles);
+        var found = new long[1];
+
+        subject.search("Grüße".getBytes(StandardCharsets.UTF_8), found, 0);
+
+        assertThat(found[0]).isEqualTo(0b1011L);
+    }
+}
@@ -171,6 +171,141 @@ class ImpServerIntegrationTest implements FastTest {
                     });
         }
 
+        @Test
+        @DisplayName("When matchers respond to requests, should keep hit count and latencies of each matcher")
+        void when_matchers_respond_to_requests_should_keep_hit_count_and_latencies_of_each_matcher() {
+            ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("first")
+                            .priority(0)
+                            .match(match -> match.path().contains("first"))
+                            .respondWithStatus(200)
+                            .andTextBody("first")
+                            .andNoAdditionalHeaders())
+                    .matchRequest(spec -> spec.id("second")
+                            .priority(1)
+                            .match(match -> match.path().contains("second"))
+                            .respondWithStatus(200)
+                            .andTextBody("second")
+                            .andNoAdditionalHeaders())
+                    .matchRequest(spec -> spec.id("unused")
+                            .priority(2)
+                            .match(match -> match.path().contains("unused"))
+                            .respondWithStatus(200)
+                            .andTextBody("unused")
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        for (var path : List.of("/first", "/first", "/second", "/first", "/other")) {
+                            var request = HttpRequest.newBuilder(
+                                            new URI(String.format("http://localhost:%d%s", impServer.port(), path)))
+                                    .build();
+                            sendHttpRequest(request, HttpResponse.BodyHandlers.ofString())
+                                    .join();
+                        }
+
+                        var statistics = impServer.statistics();
+                        assertThat(statistics.hitCountAsLong()).isEqualTo(4);
+                        assertThat(statistics.missCountAsLong()).isOne();
+                        assertThat(statistics.matchers()).containsOnlyKeys("first", "second");
+                        assertThat(statistics.matcher("unused")).isNull();
+                        var first = Objects.requireNonNull(statistics.matcher("first"));
+                        assertThat(first.id()).isEqualTo("first");
+                        assertThat(first.hitCount()).isEqualTo(3);
+                        assertThat(first.matchTime().count()).isEqualTo(3);
+                        assertThat(first.matchTime().p50()).isPositive();
+                        assertThat(first.matchTime().p50()).isLessThanOrEqualTo(first.matchTime().p99());
+                        assertThat(first.matchTime().p99()).isLessThanOrEqualTo(first.matchTime().p999());
+                        // handle time is recorded after response is sent
+                        assertThat(first.handleTime().count()).isBetween(2L, 3L);
+                        assertThat(Objects.requireNonNull(statistics.matcher("second")).hitCount())
+                                .isOne();
+                    });
+        }
+
+        @Test
+        @DisplayName("When request journal is enabled, should keep most recent requests and count them by matcher id")
+        void when_request_journal_is_enabled_should_keep_most_recent_requests_and_count_them_by_matcher_id() {
+            ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("orders")
+                            .priority(0)
+                            .match(match -> match.path().contains("orders"))
+                            .respondWithStatus(200)
+                            .andTextBody("orders")
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .withRequestJournal(2, 3)
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        for (var path : List.of("/orders/1", "/other", "/orders/2")) {
+                            var request = HttpRequest.newBuilder(
+                                            new URI(String.format("http://localhost:%d%s", impServer.port(), path)))
+                                    .header("X-Trace", path)
+                                    .POST(HttpRequest.BodyPublishers.ofString("body"))
+                                    .build();
+                            sendHttpRequest(request, HttpResponse.BodyHandlers.ofString())
+                                    .join();
+                        }
+
+                        var journal = impServer.journal();
+                        var entries = journal.awaitRequests(3, Duration.ofSeconds(5));
+                        assertThat(entries).extracting(ImpJournalEntry::path).containsExactly("/other", "/orders/2");
+                        assertThat(journal.count()).isEqualTo(3);
+                        assertThat(journal.countByMatcherId("orders")).isEqualTo(2);
+                        assertThat(journal.unmatchedCount()).isOne();
+                        var last = journal.findByPath("/orders/2").get(0);
+                        assertThat(last.matcherId()).isEqualTo("orders");
+                        assertThat(last.method()).isEqualTo("POST");
+                        assertThat(last.headers().get("X-Trace")).containsExactly("/orders/2");
+                        assertThat(last.bodyString()).isEqualTo("bod");
+                        assertThat(last.isBodyTruncated()).isTrue();
+                    });
+        }
+
+        @Test
+        @DisplayName("When request journal is enabled and matcher throws exception, should journal request as unmatched")
+        void when_request_journal_is_enabled_and_matcher_throws_exception_should_journal_request_as_unmatched() {
+            ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("throwing")
+                            .priority(0)
+                            .match(match -> match.body().testBodyString(str -> {
+                                throw new RuntimeException("matcher exception");
+                            }))
+                            .respondWithStatus(200)
+                            .andTextBody("response body")
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .withRequestJournal(2, 16)
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        var response = sendHttpRequestWithBody(
+                                        impServer.port(), "body", HttpResponse.BodyHandlers.ofString())
+                                .join();
+
+                        var journal = impServer.journal();
+                        var entries = journal.awaitRequests(1, Duration.ofSeconds(5));
+                        assertThat(response.statusCode()).isEqualTo(418);
+                        assertThat(entries).hasSize(1);
+                        assertThat(entries.get(0).matcherId()).isNull();
+                        assertThat(entries.get(0).bodyString()).isEqualTo("body");
+                        assertThat(journal.count()).isOne();
+                        assertThat(journal.unmatchedCount()).isOne();
+                        assertThat(journal.countByMatcherId("throwing")).isZero();
+                    });
+        }
+
+        @Test
+        @DisplayName("When request journal is not enabled, should fail on journal queries")
+        void when_request_journal_is_not_enabled_should_fail_on_journal_queries() {
+            ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("ok").andNoAdditionalHeaders())
+                    .onRandomPort()
+                    .useServer(impServer -> assertThatExceptionOfType(IllegalStateException.class)
+                            .isThrownBy(() -> impServer.journal().entries())
+                            .withMessage("Request journal is not enabled. Use `withRequestJournal` when building server"
+                                    + " to enable it."));
+        }
+
         @Nested
         @Isolated
         class ConcurrencySuite {
@@ -218,6 +353,124 @@ class ImpServerIntegrationTest implements FastTest {
                             }
                         });
             }
+
+            @Test
+            @DisplayName("When using bounded pool executor, slow request should not block other requests")
+            void when_using_bounded_pool_executor_slow_request_should_not_block_other_requests() {
+                var slowRequestLatch = new CountDownLatch(1);
+                ImpServer.httpTemplate()
+                        .matchRequest(spec -> spec.id("slow")
+                                .priority(0)
+                                .match(match -> match.path().contains("slow"))
+                                .respondWithStatus(200)
+                                .andBodyBasedOnRequest("text/plain", request -> () -> {
+                                    if (!slowRequestLatch.await(5, TimeUnit.SECONDS)) {
+                                        throw new TimeoutException("Slow request was not released");
+                                    }
+                                    return new ByteArrayInputStream("slow".getBytes(StandardCharsets.UTF_8));
+                                })
+                                .andNoAdditionalHeaders())
+                        .matchRequest(spec -> spec.id("fast")
+                                .priority(1)
+                                .match(match -> match.path().contains("fast"))
+                                .respondWithStatus(200)
+                                .andBodyBasedOnRequest("text/plain", request -> () -> {
+                                    slowRequestLatch.countDown();
+                                    return new ByteArrayInputStream("fast".getBytes(StandardCharsets.UTF_8));
+                                })
+                                .andNoAdditionalHeaders())
+                        .rejectNonMatching()
+                        .withExecutor(ImpExecutor.boundedPool(2))
+                        .onRandomPort()
+                        .useServer(impServer -> {
+                            var slowResponse = sendHttpRequest(
+                                    HttpRequest.newBuilder(new URI(
+                                                    String.format("http://localhost:%d/slow", impServer.port())))
+                                            .build(),
+                                    HttpResponse.BodyHandlers.ofString());
+                            var fastResponse = sendHttpRequest(
+                                            HttpRequest.newBuilder(new URI(String.format(
+                                                            "http://localhost:%d/fast", impServer.port())))
+                                                    .build(),
+                                            HttpResponse.BodyHandlers.ofString())
+                                    .join();
+
+                            assertThat(fastResponse.body()).isEqualTo("fast");
+                            assertThat(slowResponse.join().body()).isEqualTo("slow");
+                            assertThat(impServer.statistics().hitCount()).isEqualTo(2);
+                        });
+            }
+
+            @Test
+            @DisplayName("When using caller thread executor, should respond to request")
+            void when_using_caller_thread_executor_should_respond_to_request() {
+                ImpServer.httpTemplate()
+                        .alwaysRespond(spec ->
+                                spec.withStatus(200).andTextBody("some body").andNoAdditionalHeaders())
+                        .withExecutor(ImpExecutor.callerThread())
+                        .onRandomPort()
+                        .useServer(impServer -> {
+                            var response = sendHttpRequest(impServer.port(), HttpResponse.BodyHandlers.ofString())
+                                    .join();
+
+                            assertThat(response.statusCode()).isEqualTo(200);
+                            assertThat(response.body()).isEqualTo("some body");
+                        });
+            }
+
+            @Test
+            @DisplayName("Bounded pool executor with less than one thread should be rejected")
+            void bounded_pool_executor_with_less_than_one_thread_should_be_rejected() {
+                assertThatExceptionOfType(IllegalArgumentException.class)
+                        .isThrownBy(() -> ImpExecutor.boundedPool(0))
+                        .withMessage("Bounded pool size should be greater than 0. Received 0");
+            }
+        }
+
+        @Test
+        @DisplayName("When decision cache is used, should respond to repeated and changed requests by matching matcher")
+        void when_decision_cache_is_used_should_respond_to_repeated_and_changed_requests_by_matching_matcher() {
+            ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("first")
+                            .priority(0)
+                            .match(match -> match.headers().containsPair("tenant", "first"))
+                            .respondWithStatus(200)
+                            .andTextBody("first")
+                            .andNoAdditionalHeaders())
+                    .matchRequest(spec -> spec.id("second")
+                            .priority(1)
+                            .match(match -> match.headers().containsPair("tenant", "second"))
+                            .respondWithStatus(200)
+                            .andTextBody("second")
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .withDecisionCache(16)
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        var bodies = new ArrayList<String>();
+                        for (var tenant : List.of("first", "first", "second", "first", "other")) {
+                            bodies.add(sendHttpRequestWithHeaders(
+                                            impServer.port(),
+                                            Map.of("tenant", List.of(tenant)),
+                                            HttpResponse.BodyHandlers.ofString())
+                                    .join()
+                                    .body());
+                        }
+
+                        assertThat(bodies.subList(0, 4)).containsExactly("first", "first", "second", "first");
+                        assertThat(impServer.statistics().hitCount()).isEqualTo(4);
+                        assertThat(impServer.statistics().missCount()).isEqualTo(1);
+                    });
+        }
+
+        @Test
+        @DisplayName("Decision cache with less than one entry should be rejected")
+        void decision_cache_with_less_than_one_entry_should_be_rejected() {
+            assertThatExceptionOfType(IllegalArgumentException.class)
+                    .isThrownBy(() -> ImpServer.httpTemplate()
+                            .alwaysRespond(spec -> spec.withStatus(200).andTextBody("any").andNoAdditionalHeaders())
+                            .withDecisionCache(0))
+                    .withMessage("Decision cache size should be greater than 0. Received 0");
         }
 
         @ParameterizedTest
@@ -339,6 +592,97 @@ class ImpServerIntegrationTest implements FastTest {
                     });
         }
 
+        @Test
+        @DisplayName("server should stream large data body without content length")
+        void server_should_stream_large_data_body_without_content_length() {
+            var expected = new byte[1024 * 1024];
+            for (var idx = 0; idx < expected.length; idx++) {
+                expected[idx] = (byte) idx;
+            }
+
+            ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200)
+                            .andDataStreamBody(() -> new ByteArrayInputStream(expected))
+                            .andNoAdditionalHeaders())
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        var response = sendHttpRequest(impServer.port(), HttpResponse.BodyHandlers.ofByteArray())
+                                .join();
+
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        assertThat(response.body()).isEqualTo(expected);
+                        assertThat(response.headers().firstValue("Content-Length")).isEmpty();
+                    });
+        }
+
+        @Test
+        @DisplayName("server should stream large data body with content length from response headers")
+        void server_should_stream_large_data_body_with_content_length_from_response_headers() {
+            var expected = new byte[1024 * 1024];
+            Arrays.fill(expected, (byte) 'a');
+
+            ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200)
+                            .andDataStreamBody(() -> new ByteArrayInputStream(expected))
+                            .andAdditionalHeaders(
+                                    Map.of("Content-Length", List.of(String.valueOf(expected.length)))))
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        var response = sendHttpRequest(impServer.port(), HttpResponse.BodyHandlers.ofByteArray())
+                                .join();
+
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        assertThat(response.body()).isEqualTo(expected);
+                        assertThat(response.headers().firstValue("Content-Length"))
+                                .contains(String.valueOf(expected.length));
+                    });
+        }
+
+        @Test
+        @DisplayName("template should respond with file contents from `andFileBody`")
+        void template_should_respond_with_file_contents_from_andfilebody() {
+            var expected = new byte[1024 * 1024];
+            new Random(42).nextBytes(expected);
+            consumeTempFile(tempFile -> {
+                Files.write(tempFile, expected);
+                ImpServer.httpTemplate()
+                        .alwaysRespond(spec -> spec.withStatus(200).andFileBody(tempFile).andNoAdditionalHeaders())
+                        .onRandomPort()
+                        .useServer(impServer -> {
+                            var responses =
+                                    sendManyHttpRequests(3, impServer.port(), HttpResponse.BodyHandlers.ofByteArray());
+                            for (var futureResponse : responses) {
+                                var response = futureResponse.join();
+
+                                assertThat(response.statusCode()).isEqualTo(200);
+                                assertThat(response.body()).isEqualTo(expected);
+                                assertThat(response.headers().map()).hasSize(3).satisfies(headers -> {
+                                    assertThat(headers)
+                                            .containsEntry("Content-Type", List.of("application/octet-stream"));
+                                    assertThat(headers)
+                                            .containsEntry("Content-Length", List.of(String.valueOf(expected.length)));
+                                    assertThat(headers).containsKey("date");
+                                });
+                            }
+                        });
+            });
+        }
+
+        @Test
+        @DisplayName("`andFileBody` should fail when file does not exist")
+        void andfilebody_should_fail_when_file_does_not_exist() {
+            useTempDir(tempDir -> {
+                var missingFile = tempDir.resolve("missing.json");
+
+                assertThatExceptionOfType(IllegalArgumentException.class)
+                        .isThrownBy(() -> ImpServer.httpTemplate()
+                                .alwaysRespond(spec -> spec.withStatus(200)
+                                        .andFileBody(missingFile)
+                                        .andNoAdditionalHeaders()))
+                        .withMessage("File [ %s ] does not exist or is not a regular file", missingFile);
+            });
+        }
+
         @Test
         @DisplayName("template should be able to reuse file stream supplier from `andDataStreamBody`")
         void template_should_be_able_to_reuse_file_stream_supplier_from_anddatastreambody() {
@@ -2340,6 +2684,58 @@ class ImpServerIntegrationTest implements FastTest {
             });
         }
 
+        @Test
+        @DisplayName("should be able to match by negated `and` and `or` and explain them when not matched")
+        void should_be_able_to_match_by_negated_and_and_or_and_explain_them_when_not_matched() {
+            var subject = ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("negatedAnd")
+                            .priority(0)
+                            .match(match -> match.not(
+                                    match.and(match.query().hasKey("query1"), match.query().hasKey("query2"))))
+                            .respondWithStatus(200)
+                            .andTextBody("negated and")
+                            .andNoAdditionalHeaders())
+                    .matchRequest(spec -> spec.id("negatedOr")
+                            .priority(1)
+                            .match(match -> match.not(
+                                    match.or(match.query().hasKey("query3"), match.query().hasKey("query4"))))
+                            .respondWithStatus(200)
+                            .andTextBody("negated or")
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .onRandomPort();
+
+            subject.useServer(impServer -> {
+                var negatedAndResponse = sendHttpRequest(
+                                HttpRequest.newBuilder(new URI(String.format(
+                                                "http://localhost:%d/some/path?query1=param1", impServer.port())))
+                                        .build(),
+                                HttpResponse.BodyHandlers.ofString())
+                        .join();
+                var negatedOrResponse = sendHttpRequest(
+                                HttpRequest.newBuilder(new URI(String.format(
+                                                "http://localhost:%d/some/path?query1=param1&query2=param2",
+                                                impServer.port())))
+                                        .build(),
+                                HttpResponse.BodyHandlers.ofString())
+                        .join();
+                var notMatchedResponse = sendHttpRequest(
+                                HttpRequest.newBuilder(new URI(String.format(
+                                                "http://localhost:%d/some/path?query1=param1&query2=param2&query3=",
+                                                impServer.port())))
+                                        .build(),
+                                HttpResponse.BodyHandlers.ofString())
+                        .join();
+
+                assertThat(negatedAndResponse.body()).isEqualTo("negated and");
+                assertThat(negatedOrResponse.body()).isEqualTo("negated or");
+                assertThat(notMatchedResponse.statusCode()).isEqualTo(418);
+                assertThat(notMatchedResponse.body())
+                        .contains("NOT -> false\n |---> AND -> true\n")
+                        .contains("NOT -> false\n |---> OR  -> true\n");
+            });
+        }
+
         @Test
         @DisplayName("should be able to match by query `hasKey and hasKey` when both matches succeeded")
         void should_be_able_to_match_by_query_haskey_and_haskey_when_both_matches_succeeded() {
@@ -2684,6 +3080,60 @@ class ImpServerIntegrationTest implements FastTest {
                     });
         }
 
+        @Test
+        @DisplayName("should be able to build response based on path variables of `template` matcher")
+        void should_be_able_to_build_response_based_on_path_variables_of_template_matcher() {
+            ImpServer.httpTemplate()
+                    .matchRequest(spec -> spec.id("order")
+                            .priority(0)
+                            .match(match -> match.path().template("/users/{userId}/orders/{orderId}"))
+                            .respondWithStatus(200)
+                            .andBodyBasedOnRequest(
+                                    "text/plain",
+                                    request -> () -> new ByteArrayInputStream(String.format(
+                                                    "user %s, order %s",
+                                                    request.pathVariables().get("userId"),
+                                                    request.pathVariables().get("orderId"))
+                                            .getBytes(StandardCharsets.UTF_8)))
+                            .andNoAdditionalHeaders())
+                    .matchRequest(spec -> spec.id("user")
+                            .priority(1)
+                            .match(match -> match.path().template("/users/{id}"))
+                            .respondWithStatus(200)
+                            .andBodyBasedOnRequest(
+                                    "text/plain",
+                                    request -> () -> new ByteArrayInputStream(
+                                            ("user " + request.pathVariables()).getBytes(StandardCharsets.UTF_8)))
+                            .andNoAdditionalHeaders())
+                    .rejectNonMatching()
+                    .onRandomPort()
+                    .useServer(impServer -> {
+                        var orderResponse = sendHttpRequest(
+                                        HttpRequest.newBuilder(new URI(String.format(
+                                                        "http://localhost:%d/users/42/orders/7?expand=true",
+                                                        impServer.port())))
+                                                .build(),
+                                        HttpResponse.BodyHandlers.ofString())
+                                .join();
+                        var userResponse = sendHttpRequest(
+                                        HttpRequest.newBuilder(new URI(
+                                                        String.format("http://localhost:%d/users/42", impServer.port())))
+                                                .build(),
+                                        HttpResponse.BodyHandlers.ofString())
+                                .join();
+                        var unknownResponse = sendHttpRequest(
+                                        HttpRequest.newBuilder(new URI(String.format(
+                                                        "http://localhost:%d/users/42/orders", impServer.port())))
+                                                .build(),
+                                        HttpResponse.BodyHandlers.ofString())
+                                .join();
+
+                        assertThat(orderResponse.body()).isEqualTo("user 42, order 7");
+                        assertThat(userResponse.body()).isEqualTo("user {id=42}");
+                        assertThat(unknownResponse.statusCode()).isEqualTo(418);
+                    });
+        }
+
         @Test
         @DisplayName(
                 "should take matcher with lowest priority value when multiple matchers matched request and matcher is last in list")
@@ -3823,6 +4273,155 @@ class ImpServerIntegrationTest implements FastTest {
                     }));
         }
 
+        @Test
+        @DisplayName("when partitions are borrowed at the same time, should route requests by header to partitions")
+        void when_partitions_are_borrowed_at_the_same_time_should_route_requests_by_header_to_partitions() {
+            var sharedServer = ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("shared").andNoAdditionalHeaders())
+                    .startSharedOnRandomPort(ImpPartitionKey.header("X-Tenant"));
+            ImpFn<String, String> sendAs = tenant -> sendHttpRequest(
+                            HttpRequest.newBuilder(new URI(String.format("http://localhost:%d/", sharedServer.port())))
+                                    .header("X-Tenant", tenant)
+                                    .build(),
+                            HttpResponse.BodyHandlers.ofString())
+                    .join()
+                    .body();
+            try {
+                var firstStatistics = sharedServer
+                        .borrow("first")
+                        .alwaysRespond(spec -> spec.withStatus(200).andTextBody("first").andNoAdditionalHeaders())
+                        .useServer(firstServer -> {
+                            var secondStatistics = sharedServer
+                                    .borrow("second")
+                                    .alwaysRespond(spec ->
+                                            spec.withStatus(200).andTextBody("second").andNoAdditionalHeaders())
+                                    .useServer(secondServer -> {
+                                        assertThat(sendAs.apply("first")).isEqualTo("first");
+                                        assertThat(sendAs.apply("second")).isEqualTo("second");
+                                        assertThat(sendAs.apply("third")).isEqualTo("shared");
+                                    });
+                            assertThat(secondStatistics.hitCount()).isOne();
+                            assertThat(sendAs.apply("second")).isEqualTo("shared");
+                            assertThat(sendAs.apply("first")).isEqualTo("first");
+                        });
+                assertThat(firstStatistics.hitCount()).isEqualTo(2);
+                assertThat(sendAs.apply("first")).isEqualTo("shared");
+                assertThat(sharedServer.statistics().hitCount()).isEqualTo(3);
+            } finally {
+                sharedServer.dispose();
+            }
+        }
+
+        @Test
+        @DisplayName("when partitioned by path prefix, should route request to partition named by first path segment")
+        void when_partitioned_by_path_prefix_should_route_request_to_partition_named_by_first_path_segment() {
+            var sharedServer = ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("shared").andNoAdditionalHeaders())
+                    .startSharedOnRandomPort(ImpPartitionKey.pathPrefix());
+            ImpFn<String, String> send = path -> sendHttpRequest(
+                            HttpRequest.newBuilder(new URI(
+                                            String.format("http://localhost:%d%s", sharedServer.port(), path)))
+                                    .build(),
+                            HttpResponse.BodyHandlers.ofString())
+                    .join()
+                    .body();
+            try {
+                sharedServer
+                        .borrow("orders")
+                        .matchRequest(spec -> spec.id("order")
+                                .priority(0)
+                                .match(match -> match.path().matches("/orders/\\d+"))
+                                .respondWithStatus(200)
+                                .andTextBody("order")
+                                .andNoAdditionalHeaders())
+                        .rejectNonMatching()
+                        .useServer(impServer -> {
+                            assertThat(send.apply("/orders/1")).isEqualTo("order");
+                            assertThat(send.apply("/orders")).contains("No matching handler for request");
+                            assertThat(send.apply("/users/1")).isEqualTo("shared");
+                            assertThat(send.apply("/")).isEqualTo("shared");
+                        });
+            } finally {
+                sharedServer.dispose();
+            }
+        }
+
+        @Test
+        @DisplayName("when partition is already borrowed, should fail to borrow it again")
+        void when_partition_is_already_borrowed_should_fail_to_borrow_it_again() {
+            var sharedServer = ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("shared").andNoAdditionalHeaders())
+                    .startSharedOnRandomPort(ImpPartitionKey.host());
+            try {
+                ImpFn<String, ImpBorrowed> borrow = partition -> sharedServer
+                        .borrow(partition)
+                        .alwaysRespond(spec -> spec.withStatus(200).andTextBody(partition).andNoAdditionalHeaders());
+                borrow.apply("localhost").useServer(impServer -> {
+                    assertThat(sendHttpRequest(impServer.port(), HttpResponse.BodyHandlers.ofString())
+                                    .join()
+                                    .body())
+                            .isEqualTo("localhost");
+                    assertThatExceptionOfType(IllegalStateException.class)
+                            .isThrownBy(() -> borrow.apply("localhost").useServer(ignored -> {}))
+                            .withMessage("Partition [ localhost ] is already borrowed. "
+                                    + "Each partition can be used by only one borrower at a time.");
+                });
+                borrow.apply("localhost").useServer(impServer -> {});
+            } finally {
+                sharedServer.dispose();
+            }
+        }
+
+        @Test
+        @DisplayName("when partition is borrowed, should fail to borrow whole server, and the other way around")
+        void when_partition_is_borrowed_should_fail_to_borrow_whole_server_and_the_other_way_around() {
+            var sharedServer = ImpServer.httpTemplate()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("shared").andNoAdditionalHeaders())
+                    .startSharedOnRandomPort(ImpPartitionKey.header("X-Tenant"));
+            ImpFn<String, ImpBorrowed> borrowPartition = partition -> sharedServer
+                    .borrow(partition)
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody(partition).andNoAdditionalHeaders());
+            ImpSupplier<ImpBorrowed> borrowWhole = () -> sharedServer
+                    .borrow()
+                    .alwaysRespond(spec -> spec.withStatus(200).andTextBody("whole").andNoAdditionalHeaders());
+            try {
+                borrowPartition.apply("first").useServer(impServer -> {
+                    assertThatExceptionOfType(IllegalStateException.class)
+                            .isThrownBy(() -> borrowWhole.get().useServer(ignored -> {}))
+                            .withMessage("Cannot borrow whole server while partitions [ first ] are borrowed. "
+                                    + "Whole server can be borrowed only when none of its partitions is borrowed.");
+                });
+                borrowWhole.get().useServer(impServer -> {
+                    assertThatExceptionOfType(IllegalStateException.class)
+                            .isThrownBy(() -> borrowPartition.apply("first").useServer(ignored -> {}))
+                            .withMessage("Cannot borrow partition [ first ] while whole server is borrowed. "
+                                    + "Partitions can be borrowed only when whole server is not borrowed.");
+                    assertThat(sendHttpRequest(
+                                    HttpRequest.newBuilder(new URI(
+                                                    String.format("http://localhost:%d/", impServer.port())))
+                                            .header("X-Tenant", "first")
+                                            .build(),
+                                    HttpResponse.BodyHandlers.ofString())
+                            .join()
+                            .body())
+                            .isEqualTo("whole");
+                });
+                borrowPartition.apply("first").useServer(impServer -> {});
+            } finally {
+                sharedServer.dispose();
+            }
+        }
+
+        @Test
+        @DisplayName("when shared server was started without partition key, should fail to borrow partition")
+        void when_shared_server_was_started_without_partition_key_should_fail_to_borrow_partition() {
+            useDefaultSharedServer(sharedServer -> assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(() -> sharedServer.borrow("first"))
+                    .withMessage("Cannot borrow partition [ first ] from server that was started without "
+                            + "partition key. Use `startSharedOnPort(port, partitionKey)` or "
+                            + "`startSharedOnRandomPort(partitionKey)` to start partitioned server."));
+        }
+
         void useDefaultSharedServer(ThrowingConsumer<ImpShared> consumer) {
             var originalBody = "some text";
             int originalStatus = 200;
@@ -4434,46 +5033,6 @@ class ImpServerIntegrationTest implements FastTest {
                     .satisfies(e -> expectSelfie(e.getMessage()).toMatchDisk());
         }
 
-        @Test
-        @DisplayName("should fail immediately when try negate nested `and` matcher")
-        void should_fail_immediately_when_try_negate_nested_and_matcher() {
-            assertThatExceptionOfType(IllegalArgumentException.class)
-                    .isThrownBy(() -> ImpServer.httpTemplate().matchRequest(spec -> spec.id("id")
-                            .priority(0)
-                            .match(match ->
-                                    match.or(match.not(match.and(match.headers().containsKey("key")))))
-                            .respondWithStatus(200)
-                            .andTextBody("")
-                            .andNoAdditionalHeaders()))
-                    .satisfies(e -> expectSelfie(e.getMessage()).toMatchDisk());
-        }
-
-        @Test
-        @DisplayName("should fail immediately when try negate `and` matcher")
-        void should_fail_immediately_when_try_negate_and_matcher() {
-            assertThatExceptionOfType(IllegalArgumentException.class)
-                    .isThrownBy(() -> ImpServer.httpTemplate().matchRequest(spec -> spec.id("id")
-                            .priority(0)
-                            .match(match -> match.not(match.and(match.headers().containsKey("key"))))
-                            .respondWithStatus(200)
-                            .andTextBody("")
-                            .andNoAdditionalHeaders()))
-                    .satisfies(e -> expectSelfie(e.getMessage()).toMatchDisk());
-        }
-
-        @Test
-        @DisplayName("should fail immediately when try negate `or` matcher")
-        void should_fail_immediately_when_try_negate_or_matcher() {
-            assertThatExceptionOfType(IllegalArgumentException.class)
-                    .isThrownBy(() -> ImpServer.httpTemplate().matchRequest(spec -> spec.id("id")
-                            .priority(0)
-                            .match(match -> match.not(match.or(match.headers().containsKey("key"))))
-                            .respondWithStatus(200)
-                            .andTextBody("")
-                            .andNoAdditionalHeaders()))
-                    .satisfies(e -> expectSelfie(e.getMessage()).toMatchDisk());
-        }
-
         @Test
         @DisplayName("'startSharedOnPort' should fail immediately if provided negative port")
         void startsharedonport_should_fail_immediately_if_provided_negative_port() {
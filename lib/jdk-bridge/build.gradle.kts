@@ -5,7 +5,9 @@ plugins {
 }
 
 dependencies {
+    implementation(projects.lib.bridgeModel)
     compileOnly(libs.jaywayJsonPath)
     testImplementation(libs.jaywayJsonPath)
     testImplementation(libs.selfie)
+    testImplementation(projects.lib.core)
 }
@@ -0,0 +1,71 @@
+package com.varlanv.imp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import org.jspecify.annotations.Nullable;
+
+final class NioBlockingWriter implements Closeable {
+
+    private static final long WRITE_TIMEOUT_MILLIS = 30_000;
+
+    private final SocketChannel channel;
+    @Nullable private Selector writeSelector;
+
+    NioBlockingWriter(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    void write(ByteBuffer... buffers) throws IOException {
+        var last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            if (channel.write(buffers) == 0) {
+                awaitWritable();
+            }
+        }
+    }
+
+    // zero-copy transfer from file to socket, where supported by OS
+    void transferFrom(FileChannel file, long count) throws IOException {
+        var position = 0L;
+        while (position < count) {
+            var transferred = file.transferTo(position, count - position, channel);
+            if (transferred == 0) {
+                if (position >= file.size()) {
+                    throw new IOException(String.format(
+                            "File is shorter than expected length [%d], file was modified while being sent", count));
+                }
+                awaitWritable();
+            }
+            position += transferred;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        var selector = writeSelector;
+        if (selector != null) {
+            writeSelector = null;
+            selector.close();
+        }
+    }
+
+    // channel stays registered with server selector, separate selector is only used to wait for socket send buffer
+    private void awaitWritable() throws IOException {
+        var selector = writeSelector;
+        if (selector == null) {
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_WRITE);
+            writeSelector = selector;
+        }
+        if (selector.select(WRITE_TIMEOUT_MILLIS) == 0) {
+            throw new IOException(
+                    String.format("Timed out after [%d] ms while waiting to write response", WRITE_TIMEOUT_MILLIS));
+        }
+        selector.selectedKeys().clear();
+    }
+}
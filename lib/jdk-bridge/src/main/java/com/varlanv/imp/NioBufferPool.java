@@ -0,0 +1,36 @@
+package com.varlanv.imp;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class NioBufferPool {
+
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    ByteBuffer acquire() {
+        var buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        pooledCount.decrementAndGet();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer.capacity() != BUFFER_SIZE) {
+            return;
+        }
+        if (pooledCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            buffer.clear();
+            buffers.offer(buffer);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+}
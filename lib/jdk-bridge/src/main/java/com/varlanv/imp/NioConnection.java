@@ -0,0 +1,204 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import org.jspecify.annotations.Nullable;
+
+final class NioConnection {
+
+    private static final byte[] CONTINUE_RESPONSE =
+            "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final NioEngineServer server;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final NioRequestParser parser;
+    private ByteBuffer readBuffer;
+    private ByteBuffer @Nullable [] pendingWrite;
+    private boolean keepAliveAfterWrite;
+    private boolean inFlight;
+    private boolean continueSent;
+    private boolean closed;
+
+    NioConnection(NioEngineServer server, SocketChannel channel, SelectionKey key) {
+        this.server = server;
+        this.channel = channel;
+        this.key = key;
+        this.parser = new NioRequestParser(server.maxRequestBodySize());
+        this.readBuffer = server.bufferPool().acquire();
+    }
+
+    NioBufferPool bufferPool() {
+        return server.bufferPool();
+    }
+
+    // selector thread only
+    void onReadable() {
+        try {
+            ensureReadCapacity();
+            var read = channel.read(readBuffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            processBufferedInput();
+        } catch (IOException | IllegalStateException e) {
+            close();
+        }
+    }
+
+    // selector thread only
+    void onWritable() {
+        try {
+            writePending();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    // may be called from any thread, write itself is always performed on selector thread
+    void submitResponse(ByteBuffer[] buffers, boolean keepAlive) {
+        server.executeOnSelector(() -> {
+            if (closed) {
+                releaseWriteBuffers(buffers);
+                return;
+            }
+            pendingWrite = buffers;
+            keepAliveAfterWrite = keepAlive;
+            try {
+                writePending();
+            } catch (IOException e) {
+                close();
+            }
+        });
+    }
+
+    // Streamed responses are written by handler thread directly, selector does not touch the channel while request is
+    // in flight
+    NioBlockingWriter blockingWriter() {
+        return new NioBlockingWriter(channel);
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // noop
+        }
+        var buffers = pendingWrite;
+        if (buffers != null) {
+            pendingWrite = null;
+            releaseWriteBuffers(buffers);
+        }
+        server.bufferPool().release(readBuffer);
+        server.onConnectionClosed(this);
+    }
+
+    private void processBufferedInput() throws IOException {
+        // pending write is either response, or interim 100 Continue, after which reading resumes
+        if (inFlight || closed || pendingWrite != null) {
+            return;
+        }
+        boolean complete;
+        try {
+            complete = parser.parse(readBuffer);
+        } catch (IllegalArgumentException e) {
+            respondWithoutBody("400 Bad Request", false);
+            return;
+        }
+        if (complete) {
+            inFlight = true;
+            continueSent = false;
+            key.interestOps(0);
+            var bodyTooLarge = parser.isBodyTooLarge();
+            var request = parser.completeRequest();
+            if (bodyTooLarge) {
+                respondWithoutBody("413 Request Entity Too Large", request.isKeepAlive());
+                return;
+            }
+            NioEngineExchange exchange;
+            try {
+                exchange = new NioEngineExchange(this, request);
+            } catch (IllegalArgumentException e) {
+                respondWithoutBody("400 Bad Request", false);
+                return;
+            }
+            server.dispatch(this, exchange);
+        } else if (!continueSent && parser.expectsContinue()) {
+            continueSent = true;
+            if (parser.isBodyTooLarge()) {
+                // client waits before sending body, so it is rejected right away and never read
+                respondWithoutBody("413 Request Entity Too Large", false);
+                return;
+            }
+            // written through same path as responses, so that full send buffer does not stall selector thread
+            pendingWrite = new ByteBuffer[] {ByteBuffer.wrap(CONTINUE_RESPONSE)};
+            keepAliveAfterWrite = true;
+            writePending();
+        }
+    }
+
+    private void writePending() throws IOException {
+        var buffers = pendingWrite;
+        if (buffers == null) {
+            return;
+        }
+        channel.write(buffers);
+        if (buffers[buffers.length - 1].hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        pendingWrite = null;
+        releaseWriteBuffers(buffers);
+        if (keepAliveAfterWrite) {
+            inFlight = false;
+            key.interestOps(SelectionKey.OP_READ);
+            // request could have been pipelined, so try to process what is already in the buffer
+            processBufferedInput();
+        } else {
+            close();
+        }
+    }
+
+    private void respondWithoutBody(String status, boolean keepAlive) {
+        var response = String.format(
+                "HTTP/1.1 %s\r\nContent-Length: 0\r\nConnection: %s\r\n\r\n",
+                status, keepAlive ? "keep-alive" : "close");
+        inFlight = true;
+        pendingWrite = new ByteBuffer[] {ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1))};
+        keepAliveAfterWrite = keepAlive;
+        try {
+            writePending();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void ensureReadCapacity() {
+        if (!readBuffer.hasRemaining()) {
+            var newCapacity = readBuffer.capacity() * 2;
+            if (newCapacity > NioRequestParser.MAX_HEADERS_SIZE * 2) {
+                // body bytes are consumed on each parse, so full buffer at this point means oversized headers
+                throw new IllegalStateException("Read buffer overflow");
+            }
+            var newBuffer = ByteBuffer.allocate(newCapacity);
+            readBuffer.flip();
+            newBuffer.put(readBuffer);
+            server.bufferPool().release(readBuffer);
+            readBuffer = newBuffer;
+        }
+    }
+
+    private void releaseWriteBuffers(ByteBuffer[] buffers) {
+        // only the first buffer (response headers) is acquired from the pool, body buffers are wrapped arrays
+        server.bufferPool().release(buffers[0]);
+    }
+}
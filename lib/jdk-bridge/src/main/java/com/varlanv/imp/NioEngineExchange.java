@@ -0,0 +1,234 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class NioEngineExchange implements EngineExchange {
+
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+    private static final Volatile<CachedDate> cachedDate = new Volatile<>(new CachedDate(0, ""));
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final NioConnection connection;
+    private final NioRequest request;
+    private final URI requestUri;
+    private final AtomicBoolean responseSent = new AtomicBoolean();
+
+    NioEngineExchange(NioConnection connection, NioRequest request) {
+        this.connection = connection;
+        this.request = request;
+        try {
+            this.requestUri = new URI(request.target);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Malformed request target [ " + request.target + " ]", e);
+        }
+    }
+
+    @Override
+    public String requestMethod() {
+        return request.method;
+    }
+
+    @Override
+    public URI requestUri() {
+        return requestUri;
+    }
+
+    @Override
+    public Map<String, List<String>> requestHeaders() {
+        return request.headers;
+    }
+
+    @Override
+    public byte[] readRequestBody() {
+        return request.body;
+    }
+
+    @Override
+    public void sendResponse(int statusCode, Map<String, List<String>> headers, byte[] body) throws IOException {
+        markResponseSent();
+        var keepAlive = request.isKeepAlive();
+        var hasBody = hasBody(statusCode);
+        var writeBody = hasBody && body.length > 0 && !"HEAD".equals(request.method);
+        var headerBytes = headerBlock(statusCode, headers, hasBody ? body.length : -1, false, keepAlive);
+        var headerBuffer = connection.bufferPool().acquire();
+        ByteBuffer[] buffers;
+        if (headerBytes.length <= headerBuffer.capacity()) {
+            headerBuffer.put(headerBytes).flip();
+        } else {
+            connection.bufferPool().release(headerBuffer);
+            headerBuffer = ByteBuffer.wrap(headerBytes);
+        }
+        if (writeBody) {
+            // body is wrapped as is, without copying, and written together with headers in one gathering write
+            buffers = new ByteBuffer[] {headerBuffer, ByteBuffer.wrap(body)};
+        } else {
+            buffers = new ByteBuffer[] {headerBuffer};
+        }
+        connection.submitResponse(buffers, keepAlive);
+    }
+
+    @Override
+    public void streamResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long contentLength)
+            throws IOException {
+        try (body) {
+            markResponseSent();
+            var hasBody = hasBody(statusCode);
+            var writeBody = hasBody && contentLength != 0 && !"HEAD".equals(request.method);
+            var chunked = hasBody && contentLength < 0 && !request.http10;
+            // HTTP/1.0 has no chunked encoding, so body of unknown length is delimited by closing connection
+            var keepAlive = request.isKeepAlive() && (!hasBody || contentLength >= 0 || chunked);
+            var headerBytes = headerBlock(statusCode, headers, hasBody ? contentLength : -1, chunked, keepAlive);
+            if (!writeBody) {
+                connection.submitResponse(new ByteBuffer[] {ByteBuffer.wrap(headerBytes)}, keepAlive);
+                return;
+            }
+            var chunk = connection.bufferPool().acquire();
+            try (var writer = connection.blockingWriter()) {
+                writer.write(ByteBuffer.wrap(headerBytes));
+                var remaining = contentLength;
+                int read;
+                while ((read = body.read(chunk.array(), chunk.arrayOffset(), chunk.capacity())) >= 0) {
+                    if (read == 0) {
+                        continue;
+                    }
+                    if (contentLength >= 0) {
+                        if (read > remaining) {
+                            throw new IOException(String.format(
+                                    "Response body is longer than declared Content-Length [%d]", contentLength));
+                        }
+                        remaining -= read;
+                    }
+                    chunk.clear().limit(read);
+                    if (chunked) {
+                        writer.write(ByteBuffer.wrap(chunkHeader(read)), chunk, ByteBuffer.wrap(CRLF));
+                    } else {
+                        writer.write(chunk);
+                    }
+                }
+                if (remaining > 0) {
+                    throw new IOException(String.format(
+                            "Response body is shorter than declared Content-Length [%d]", contentLength));
+                }
+            } finally {
+                connection.bufferPool().release(chunk);
+            }
+            var last = chunked ? ByteBuffer.wrap(LAST_CHUNK) : ByteBuffer.allocate(0);
+            connection.submitResponse(new ByteBuffer[] {last}, keepAlive);
+        }
+    }
+
+    @Override
+    public void sendFileResponse(int statusCode, Map<String, List<String>> headers, FileChannel file, long length)
+            throws IOException {
+        try (file) {
+            markResponseSent();
+            var hasBody = hasBody(statusCode);
+            var keepAlive = request.isKeepAlive();
+            var headerBytes = headerBlock(statusCode, headers, hasBody ? length : -1, false, keepAlive);
+            if (!hasBody || length == 0 || "HEAD".equals(request.method)) {
+                connection.submitResponse(new ByteBuffer[] {ByteBuffer.wrap(headerBytes)}, keepAlive);
+                return;
+            }
+            try (var writer = connection.blockingWriter()) {
+                writer.write(ByteBuffer.wrap(headerBytes));
+                writer.transferFrom(file, length);
+            }
+            connection.submitResponse(new ByteBuffer[] {ByteBuffer.allocate(0)}, keepAlive);
+        }
+    }
+
+    private void markResponseSent() {
+        if (!responseSent.compareAndSet(false, true)) {
+            throw new IllegalStateException("Response was already sent for this exchange");
+        }
+    }
+
+    private byte[] headerBlock(
+            int statusCode, Map<String, List<String>> headers, long contentLength, boolean chunked, boolean keepAlive) {
+        var headerBlock = new StringBuilder(256);
+        var status = ImpHttpStatus.forCodeNullable(statusCode);
+        headerBlock
+                .append(request.http10 ? "HTTP/1.0 " : "HTTP/1.1 ")
+                .append(statusCode)
+                .append(' ')
+                .append(status == null ? "" : status.description())
+                .append("\r\n");
+        headerBlock.append("Date: ").append(currentDate()).append("\r\n");
+        if (headers instanceof FrozenHeaders) {
+            // static response headers, serialized once when stub was built
+            headerBlock.append(((FrozenHeaders) headers).serializedLines());
+        } else {
+            for (var entry : headers.entrySet()) {
+                var key = entry.getKey();
+                if (EngineHeaders.isManagedByEngine(key)) {
+                    continue;
+                }
+                for (var value : entry.getValue()) {
+                    headerBlock.append(key).append(": ").append(value).append("\r\n");
+                }
+            }
+        }
+        if (chunked) {
+            headerBlock.append("Transfer-Encoding: chunked\r\n");
+        } else if (contentLength >= 0) {
+            headerBlock.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        if (!keepAlive) {
+            headerBlock.append("Connection: close\r\n");
+        } else if (request.http10) {
+            headerBlock.append("Connection: keep-alive\r\n");
+        }
+        headerBlock.append("\r\n");
+        return headerBlock.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean hasBody(int statusCode) {
+        return statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+
+    private static byte[] chunkHeader(int size) {
+        return (Integer.toHexString(size) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    boolean isResponseSent() {
+        return responseSent.get();
+    }
+
+    private static String currentDate() {
+        var nowSeconds = System.currentTimeMillis() / 1000;
+        var cached = cachedDate.get();
+        if (cached.epochSecond == nowSeconds) {
+            return cached.value;
+        }
+        var value = DATE_FORMATTER.format(ZonedDateTime.now(ZoneOffset.UTC));
+        cachedDate.set(new CachedDate(nowSeconds, value));
+        return value;
+    }
+
+    private static final class CachedDate {
+
+        final long epochSecond;
+        final String value;
+
+        CachedDate(long epochSecond, String value) {
+            this.epochSecond = epochSecond;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.jspecify.annotations.Nullable;
+
+final class NioEngineServer implements EngineServer {
+
+    private final int port;
+    private final ServerSocketChannel serverChannel;
+    private final NioBufferPool bufferPool;
+    private final int maxRequestBodySize;
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final Set<NioConnection> connections = new HashSet<>();
+    private final Selector selector;
+    private volatile boolean running;
+    @Nullable private volatile Thread selectorThread;
+    @Nullable private ExecutorService executorService;
+    private EngineHandler handler = exchange -> {
+        throw new IllegalStateException("Server is not started");
+    };
+
+    NioEngineServer(int port, ServerSocketChannel serverChannel, NioBufferPool bufferPool, int maxRequestBodySize)
+            throws IOException {
+        this.port = port;
+        this.serverChannel = serverChannel;
+        this.bufferPool = bufferPool;
+        this.maxRequestBodySize = maxRequestBodySize;
+        this.selector = Selector.open();
+    }
+
+    @Override
+    public int port() {
+        return port;
+    }
+
+    @Override
+    public void start(@Nullable ExecutorService executorService, EngineHandler handler) {
+        if (running) {
+            throw new IllegalStateException("Server is already started");
+        }
+        this.executorService = executorService;
+        this.handler = handler;
+        try {
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            InternalUtils.hide(e);
+        }
+        running = true;
+        var thread = new Thread(this::runSelectorLoop, "imp-nio-selector-" + port);
+        selectorThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        var thread = selectorThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeQuietly();
+    }
+
+    NioBufferPool bufferPool() {
+        return bufferPool;
+    }
+
+    int maxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    void executeOnSelector(Runnable task) {
+        if (Thread.currentThread() == selectorThread) {
+            task.run();
+        } else {
+            selectorTasks.offer(task);
+            selector.wakeup();
+        }
+    }
+
+    void dispatch(NioConnection connection, NioEngineExchange exchange) {
+        var executor = executorService;
+        if (executor == null) {
+            handle(connection, exchange);
+        } else {
+            try {
+                executor.execute(() -> handle(connection, exchange));
+            } catch (RejectedExecutionException e) {
+                connection.close();
+            }
+        }
+    }
+
+    void onConnectionClosed(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    private void handle(NioConnection connection, NioEngineExchange exchange) {
+        try {
+            handler.handle(exchange);
+            if (!exchange.isResponseSent()) {
+                exchange.sendResponse(500, Map.of(), new byte[0]);
+            }
+        } catch (Exception e) {
+            ImpLog.error(e);
+            if (exchange.isResponseSent()) {
+                executeOnSelector(connection::close);
+            } else {
+                try {
+                    exchange.sendResponse(
+                            500,
+                            Map.of("Connection", List.of("close")),
+                            Objects.requireNonNullElse(e.getMessage(), "").getBytes(StandardCharsets.UTF_8));
+                } catch (Exception sendException) {
+                    executeOnSelector(connection::close);
+                }
+            }
+        }
+    }
+
+    private void runSelectorLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                var selectedKeys = selector.selectedKeys();
+                for (var key : selectedKeys) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        var connection = (NioConnection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        } else if (key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+                }
+                selectedKeys.clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                ImpLog.error(e);
+            }
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    private void accept() throws IOException {
+        while (true) {
+            var channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            var key = channel.register(selector, SelectionKey.OP_READ);
+            var connection = new NioConnection(this, channel, key);
+            key.attach(connection);
+            connections.add(connection);
+        }
+    }
+
+    private synchronized void closeQuietly() {
+        if (!selector.isOpen()) {
+            return;
+        }
+        if (Thread.currentThread() == selectorThread || !isSelectorThreadAlive()) {
+            for (var connection : new ArrayList<>(connections)) {
+                connection.close();
+            }
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // noop
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // noop
+        }
+    }
+
+    private boolean isSelectorThreadAlive() {
+        var thread = selectorThread;
+        return thread != null && thread.isAlive();
+    }
+}
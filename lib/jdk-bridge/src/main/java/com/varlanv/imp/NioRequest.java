@@ -0,0 +1,35 @@
+package com.varlanv.imp;
+
+import java.util.List;
+import java.util.Map;
+
+final class NioRequest {
+
+    final String method;
+    final String target;
+    final boolean http10;
+    final Map<String, List<String>> headers;
+    final byte[] body;
+
+    NioRequest(String method, String target, boolean http10, Map<String, List<String>> headers, byte[] body) {
+        this.method = method;
+        this.target = target;
+        this.http10 = http10;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    boolean isKeepAlive() {
+        var connectionValues = headers.get("Connection");
+        if (connectionValues != null) {
+            for (var value : connectionValues) {
+                if ("close".equalsIgnoreCase(value)) {
+                    return false;
+                } else if ("keep-alive".equalsIgnoreCase(value)) {
+                    return true;
+                }
+            }
+        }
+        return !http10;
+    }
+}
@@ -0,0 +1,289 @@
+package com.varlanv.imp;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+final class NioRequestParser {
+
+    static final int MAX_HEADERS_SIZE = 64 * 1024;
+    // Body buffer starts at most this large and grows as bytes arrive, so that Content-Length alone cannot make
+    // server allocate more than client actually sends
+    static final int INITIAL_BODY_CAPACITY = 64 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final int maxBodySize;
+    private State state = State.HEADERS;
+    private int headersScanOffset;
+    @Nullable private String method;
+    @Nullable private String target;
+    private boolean http10;
+    private Map<String, List<String>> headers = EngineHeaders.newHeaders();
+    private byte[] fixedBody = EMPTY_BODY;
+    private int fixedBodyLength;
+    private int fixedBodyOffset;
+    @Nullable private ByteArrayOutputStream chunkedBody;
+    private long chunkedBodyLength;
+    private long chunkRemaining;
+    // Body over maxBodySize is read to the end and dropped, so that connection can still be used for next request
+    private boolean bodyTooLarge;
+
+    NioRequestParser(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    // Buffer is expected to be in write mode, and is left in write mode with consumed bytes removed
+    boolean parse(ByteBuffer buffer) {
+        while (true) {
+            if (state == State.HEADERS) {
+                var headersEnd = findHeadersEnd(buffer);
+                if (headersEnd < 0) {
+                    return false;
+                }
+                parseHeaders(buffer, headersEnd);
+                consume(buffer, headersEnd);
+                headersScanOffset = 0;
+            } else if (state == State.FIXED_BODY) {
+                var toCopy = Math.min(buffer.position(), fixedBodyLength - fixedBodyOffset);
+                if (!bodyTooLarge && fixedBodyOffset + toCopy > fixedBody.length) {
+                    var newCapacity = Math.max(2L * fixedBody.length, fixedBodyOffset + toCopy);
+                    fixedBody = Arrays.copyOf(fixedBody, (int) Math.min(newCapacity, fixedBodyLength));
+                }
+                buffer.flip();
+                if (bodyTooLarge) {
+                    buffer.position(buffer.position() + toCopy);
+                } else {
+                    buffer.get(fixedBody, fixedBodyOffset, toCopy);
+                }
+                buffer.compact();
+                fixedBodyOffset += toCopy;
+                if (fixedBodyOffset < fixedBodyLength) {
+                    return false;
+                }
+                state = State.COMPLETE;
+            } else if (state == State.CHUNK_SIZE) {
+                var line = readLine(buffer);
+                if (line == null) {
+                    return false;
+                }
+                var extensionIdx = line.indexOf(';');
+                var sizeString = (extensionIdx < 0 ? line : line.substring(0, extensionIdx)).trim();
+                try {
+                    chunkRemaining = Long.parseLong(sizeString, 16);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Malformed chunk size [ " + sizeString + " ]", e);
+                }
+                if (chunkRemaining < 0) {
+                    throw new IllegalArgumentException("Malformed chunk size [ " + sizeString + " ]");
+                }
+                state = chunkRemaining == 0 ? State.CHUNK_TRAILERS : State.CHUNK_DATA;
+            } else if (state == State.CHUNK_DATA) {
+                var toCopy = (int) Math.min(buffer.position(), chunkRemaining);
+                if (toCopy == 0) {
+                    return false;
+                }
+                chunkedBodyLength += toCopy;
+                if (!bodyTooLarge && chunkedBodyLength > maxBodySize) {
+                    bodyTooLarge = true;
+                    // bytes received so far are dropped too
+                    chunkedBody = new ByteArrayOutputStream(0);
+                }
+                buffer.flip();
+                if (!bodyTooLarge) {
+                    chunkedBodyStream().write(buffer.array(), buffer.arrayOffset() + buffer.position(), toCopy);
+                }
+                buffer.position(buffer.position() + toCopy);
+                buffer.compact();
+                chunkRemaining -= toCopy;
+                if (chunkRemaining == 0) {
+                    state = State.CHUNK_DATA_END;
+                }
+            } else if (state == State.CHUNK_DATA_END) {
+                var line = readLine(buffer);
+                if (line == null) {
+                    return false;
+                }
+                if (!line.isEmpty()) {
+                    throw new IllegalArgumentException("Malformed chunk - missing CRLF after chunk data");
+                }
+                state = State.CHUNK_SIZE;
+            } else if (state == State.CHUNK_TRAILERS) {
+                var line = readLine(buffer);
+                if (line == null) {
+                    return false;
+                }
+                if (line.isEmpty()) {
+                    state = State.COMPLETE;
+                }
+            } else {
+                return true;
+            }
+        }
+    }
+
+    // Known once headers are parsed for Content-Length, and once limit is crossed for chunked body. Request is still
+    // completed as usual, but without body
+    boolean isBodyTooLarge() {
+        return bodyTooLarge;
+    }
+
+    NioRequest completeRequest() {
+        var chunkedBodyStream = chunkedBody;
+        var body = chunkedBodyStream == null ? fixedBody : chunkedBodyStream.toByteArray();
+        var request = new NioRequest(
+                Preconditions.nonNull(method, "method"),
+                Preconditions.nonNull(target, "target"),
+                http10,
+                headers,
+                body);
+        reset();
+        return request;
+    }
+
+    private void reset() {
+        state = State.HEADERS;
+        headersScanOffset = 0;
+        method = null;
+        target = null;
+        http10 = false;
+        headers = EngineHeaders.newHeaders();
+        fixedBody = EMPTY_BODY;
+        fixedBodyLength = 0;
+        fixedBodyOffset = 0;
+        chunkedBody = null;
+        chunkedBodyLength = 0;
+        chunkRemaining = 0;
+        bodyTooLarge = false;
+    }
+
+    private int findHeadersEnd(ByteBuffer buffer) {
+        var array = buffer.array();
+        var base = buffer.arrayOffset();
+        var limit = buffer.position();
+        for (var idx = Math.max(headersScanOffset, 3); idx < limit; idx++) {
+            if (array[base + idx] == LF
+                    && array[base + idx - 1] == CR
+                    && array[base + idx - 2] == LF
+                    && array[base + idx - 3] == CR) {
+                return idx + 1;
+            }
+        }
+        headersScanOffset = Math.max(limit, 3);
+        if (limit >= MAX_HEADERS_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Request headers exceed maximum size of [%d] bytes", MAX_HEADERS_SIZE));
+        }
+        return -1;
+    }
+
+    private void parseHeaders(ByteBuffer buffer, int headersEnd) {
+        var headersString =
+                new String(buffer.array(), buffer.arrayOffset(), headersEnd - 4, StandardCharsets.ISO_8859_1);
+        var lines = headersString.split("\r\n", -1);
+        var lineIdx = 0;
+        // RFC 9112 - server should ignore at least one empty line received prior to the request-line
+        while (lineIdx < lines.length && lines[lineIdx].isEmpty()) {
+            lineIdx++;
+        }
+        if (lineIdx == lines.length) {
+            throw new IllegalArgumentException("Missing request line");
+        }
+        var requestLine = lines[lineIdx++].split(" ", -1);
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            throw new IllegalArgumentException("Malformed request line");
+        }
+        method = requestLine[0];
+        target = requestLine[1];
+        http10 = "HTTP/1.0".equals(requestLine[2]);
+        for (; lineIdx < lines.length; lineIdx++) {
+            var line = lines[lineIdx];
+            var colonIdx = line.indexOf(':');
+            if (colonIdx <= 0) {
+                throw new IllegalArgumentException("Malformed header line");
+            }
+            var key = EngineHeaders.normalizeKey(line.substring(0, colonIdx));
+            var value = line.substring(colonIdx + 1).trim();
+            headers.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        }
+        var transferEncoding = firstHeader("Transfer-Encoding");
+        if (transferEncoding != null && transferEncoding.toLowerCase(Locale.ROOT).contains("chunked")) {
+            chunkedBody = new ByteArrayOutputStream();
+            state = State.CHUNK_SIZE;
+            return;
+        }
+        var contentLength = firstHeader("Content-Length");
+        if (contentLength == null) {
+            state = State.COMPLETE;
+            return;
+        }
+        int length;
+        try {
+            length = Integer.parseInt(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed Content-Length [ " + contentLength + " ]", e);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Malformed Content-Length [ " + contentLength + " ]");
+        }
+        bodyTooLarge = length > maxBodySize;
+        fixedBody = length == 0 || bodyTooLarge ? EMPTY_BODY : new byte[Math.min(length, INITIAL_BODY_CAPACITY)];
+        fixedBodyLength = length;
+        state = length == 0 ? State.COMPLETE : State.FIXED_BODY;
+    }
+
+    boolean expectsContinue() {
+        var expect = firstHeader("Expect");
+        return expect != null && "100-continue".equalsIgnoreCase(expect) && state != State.COMPLETE;
+    }
+
+    @Nullable private String firstHeader(String key) {
+        var values = headers.get(key);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private ByteArrayOutputStream chunkedBodyStream() {
+        return Preconditions.nonNull(chunkedBody, "chunkedBody");
+    }
+
+    @Nullable private static String readLine(ByteBuffer buffer) {
+        var array = buffer.array();
+        var base = buffer.arrayOffset();
+        var limit = buffer.position();
+        for (var idx = 1; idx < limit; idx++) {
+            if (array[base + idx] == LF && array[base + idx - 1] == CR) {
+                var line = new String(array, base, idx - 1, StandardCharsets.ISO_8859_1);
+                consume(buffer, idx + 1);
+                return line;
+            }
+        }
+        if (limit >= MAX_HEADERS_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Chunk line exceeds maximum size of [%d] bytes", MAX_HEADERS_SIZE));
+        }
+        return null;
+    }
+
+    private static void consume(ByteBuffer buffer, int count) {
+        buffer.flip();
+        buffer.position(count);
+        buffer.compact();
+    }
+
+    private enum State {
+        HEADERS,
+        FIXED_BODY,
+        CHUNK_SIZE,
+        CHUNK_DATA,
+        CHUNK_DATA_END,
+        CHUNK_TRAILERS,
+        COMPLETE
+    }
+}
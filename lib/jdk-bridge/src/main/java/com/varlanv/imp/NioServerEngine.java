@@ -0,0 +1,38 @@
+package com.varlanv.imp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+public final class NioServerEngine implements ServerEngine {
+
+    static final String NAME = "nio";
+    private static final int BACKLOG = 1024;
+
+    private final int maxRequestBodySize;
+
+    public NioServerEngine() {
+        this(EngineLimits.MAX_REQUEST_BODY_SIZE);
+    }
+
+    NioServerEngine(int maxRequestBodySize) {
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public EngineServer bind(int port) throws IOException {
+        var serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+            return new NioEngineServer(port, serverChannel, new NioBufferPool(), maxRequestBodySize);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class NioServerEngineTest implements FastTest {
+
+    @Test
+    @DisplayName("should serve multiple requests with request body and headers")
+    void should_serve_multiple_requests_with_request_body_and_headers() {
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("echo")
+                        .priority(0)
+                        .match(match -> match.headers().containsKey("X-Test"))
+                        .respondWithStatus(200)
+                        .andBodyBasedOnRequest(
+                                "text/plain",
+                                request -> () -> new ByteArrayInputStream(
+                                        ("echo:" + request.body()).getBytes(StandardCharsets.UTF_8)))
+                        .andAdditionalHeaders(Map.of("X-Response", List.of("value"))))
+                .rejectNonMatching()
+                .withEngine(ImpEngine.nio())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    for (var idx = 0; idx < 5; idx++) {
+                        var request = HttpRequest.newBuilder(
+                                        new URI(String.format("http://localhost:%d/", impServer.port())))
+                                .header("x-test", "any")
+                                .POST(HttpRequest.BodyPublishers.ofString("body" + idx))
+                                .build();
+                        var response = sendHttpRequest(request, HttpResponse.BodyHandlers.ofString())
+                                .join();
+
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        assertThat(response.body()).isEqualTo("echo:body" + idx);
+                        assertThat(response.headers().map())
+                                .containsOnlyKeys("content-type", "content-length", "date", "x-response")
+                                .containsEntry("x-response", List.of("value"));
+                    }
+                    assertThat(impServer.statistics().hitCount()).isEqualTo(5);
+                });
+    }
+
+    @Test
+    @DisplayName("should decode chunked request body")
+    void should_decode_chunked_request_body() {
+        ImpServer.httpTemplate()
+                .alwaysRespond(spec -> spec.withStatus(200).andTextBody("ok").andNoAdditionalHeaders())
+                .withEngine(ImpEngine.nio())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    try (var socket = new Socket("localhost", impServer.port())) {
+                        socket.getOutputStream()
+                                .write(("POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n"
+                                                + "Connection: close\r\n\r\n3\r\nabc\r\n0\r\n\r\n")
+                                        .getBytes(StandardCharsets.ISO_8859_1));
+                        var response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+                        assertThat(response).startsWith("HTTP/1.1 200 OK\r\n").endsWith("\r\n\r\nok");
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("should respond to pipelined requests in order")
+    void should_respond_to_pipelined_requests_in_order() {
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("first")
+                        .priority(0)
+                        .match(match -> match.path().contains("first"))
+                        .respondWithStatus(200)
+                        .andTextBody("first")
+                        .andNoAdditionalHeaders())
+                .matchRequest(spec -> spec.id("second")
+                        .priority(1)
+                        .match(match -> match.path().contains("second"))
+                        .respondWithStatus(201)
+                        .andTextBody("second")
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .withEngine(ImpEngine.nio())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    try (var socket = new Socket("localhost", impServer.port())) {
+                        socket.getOutputStream()
+                                .write(("GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                                                + "GET /second HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                                        .getBytes(StandardCharsets.ISO_8859_1));
+                        var response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+                        assertThat(response.indexOf("HTTP/1.1 200 OK")).isZero();
+                        assertThat(response.indexOf("HTTP/1.1 201 Created"))
+                                .isGreaterThan(response.indexOf("first"));
+                        assertThat(response).endsWith("second");
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("should respond with bad request to malformed request")
+    void should_respond_with_bad_request_to_malformed_request() {
+        ImpServer.httpTemplate()
+                .alwaysRespond(spec -> spec.withStatus(200).andTextBody("ok").andNoAdditionalHeaders())
+                .withEngine(ImpEngine.nio())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    try (var socket = new Socket("localhost", impServer.port())) {
+                        socket.getOutputStream().write("garbage\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                        var response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+                        assertThat(response).startsWith("HTTP/1.1 400 Bad Request\r\n");
+                        assertThat(impServer.statistics().hitCount()).isZero();
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("should read body larger than initial body buffer, and not allocate declared length up front")
+    void should_read_body_larger_than_initial_body_buffer_and_not_allocate_declared_length_up_front() {
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("length")
+                        .priority(0)
+                        .match(ImpMatch::everything)
+                        .respondWithStatus(200)
+                        .andBodyBasedOnRequest(
+                                "text/plain",
+                                request -> () -> new ByteArrayInputStream(String.valueOf(
+                                                request.body().length())
+                                        .getBytes(StandardCharsets.UTF_8)))
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .withEngine(ImpEngine.nio())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    try (var socket = new Socket("localhost", impServer.port())) {
+                        // client declares 2 GiB, but sends only few bytes and disconnects
+                        socket.getOutputStream()
+                                .write(("POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 2147483647\r\n\r\nabc")
+                                        .getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                    var body = "a".repeat(NioRequestParser.INITIAL_BODY_CAPACITY * 3 + 1);
+                    var request = HttpRequest.newBuilder(
+                                    new URI(String.format("http://localhost:%d/", impServer.port())))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+
+                    var response = sendHttpRequest(request, HttpResponse.BodyHandlers.ofString())
+                            .join();
+
+                    assertThat(response.body()).isEqualTo(String.valueOf(body.length()));
+                });
+    }
+
+    @Test
+    @DisplayName("should reject body over limit with 413 without calling handler, and keep connection open")
+    void should_reject_body_over_limit_with_413_without_calling_handler_and_keep_connection_open() throws Exception {
+        var handled = new AtomicInteger();
+        useServer(
+                new NioServerEngine(16),
+                exchange -> {
+                    handled.incrementAndGet();
+                    echo(exchange);
+                },
+                port -> {
+                    var response = exchange(
+                            port,
+                            "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 17\r\n\r\n" + "a".repeat(17)
+                                    + "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                                    + "8\r\naaaaaaaa\r\n9\r\nbbbbbbbbb\r\n0\r\n\r\n"
+                                    + "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 16\r\n"
+                                    + "Connection: close\r\n\r\n" + "c".repeat(16));
+
+                    assertThat(response).startsWith("HTTP/1.1 413 Request Entity Too Large\r\n");
+                    assertThat(response.indexOf("HTTP/1.1 413 ", 1)).isPositive();
+                    assertThat(response).endsWith("echo:" + "c".repeat(16));
+                    assertThat(handled).hasValue(1);
+                });
+    }
+
+    @Test
+    @DisplayName("should answer expect continue with 100 Continue, and with 413 when declared body is over limit")
+    void should_answer_expect_continue_with_100_continue_and_with_413_when_declared_body_is_over_limit()
+            throws Exception {
+        useServer(new NioServerEngine(16), NioServerEngineTest::echo, port -> {
+            try (var socket = new Socket("localhost", port)) {
+                socket.setSoTimeout(5_000);
+                var output = socket.getOutputStream();
+                var input = socket.getInputStream();
+                output.write(("POST / HTTP/1.1\r\nHost: localhost\r\nExpect: 100-continue\r\nContent-Length: 3\r\n"
+                                + "Connection: close\r\n\r\n")
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                var interim = "HTTP/1.1 100 Continue\r\n\r\n";
+                assertThat(new String(input.readNBytes(interim.length()), StandardCharsets.ISO_8859_1))
+                        .isEqualTo(interim);
+
+                output.write("abc".getBytes(StandardCharsets.ISO_8859_1));
+
+                assertThat(new String(input.readAllBytes(), StandardCharsets.ISO_8859_1))
+                        .startsWith("HTTP/1.1 200 OK\r\n")
+                        .endsWith("echo:abc");
+            }
+            assertThat(exchange(
+                            port,
+                            "POST / HTTP/1.1\r\nHost: localhost\r\nExpect: 100-continue\r\nContent-Length: 17\r\n\r\n"))
+                    .startsWith("HTTP/1.1 413 Request Entity Too Large\r\n")
+                    .contains("Connection: close\r\n");
+        });
+    }
+
+    @Test
+    @DisplayName("should throw exception if failed to acquire specific port within available retries")
+    void should_throw_exception_if_failed_to_acquire_specific_port_within_available_retries() throws Exception {
+        var engine = new NioServerEngine();
+        var occupied = engine.bind(randomPort());
+        var futureServer = new FutureServer(PortSupplier.fixed(occupied.port()), engine);
+
+        try {
+            assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(futureServer::createServer)
+                    .withMessage("Could not acquire port [%d] after [5] retries - port is in use", occupied.port());
+        } finally {
+            occupied.stop();
+        }
+    }
+
+    private void useServer(NioServerEngine engine, EngineHandler handler, ThrowingConsumer<Integer> action)
+            throws Exception {
+        var server = new FutureServer(PortSupplier.ofSupplier(this::randomPort, true), engine).createServer();
+        try {
+            server.actualServer().start(null, handler);
+            action.accept(server.port());
+        } finally {
+            server.actualServer().stop();
+        }
+    }
+
+    private static String exchange(int port, String request) throws IOException {
+        try (var socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5_000);
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static void echo(EngineExchange exchange) throws IOException {
+        var body = new String(exchange.readRequestBody(), StandardCharsets.ISO_8859_1);
+        exchange.sendResponse(200, Map.of(), ("echo:" + body).getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
@@ -5,7 +5,14 @@ plugins {
 }
 
 dependencies {
+    implementation(projects.lib.bridgeModel)
+    implementation(libs.nettyCodecHttp)
+    // epoll transport is used when present on classpath together with native library, nio transport otherwise
+    compileOnly(libs.nettyTransportNativeEpoll)
     compileOnly(libs.jaywayJsonPath)
     testImplementation(libs.jaywayJsonPath)
+    testImplementation(libs.nettyTransportNativeEpoll)
     testImplementation(libs.selfie)
+    testImplementation(projects.lib.core)
+    testRuntimeOnly(variantOf(libs.nettyTransportNativeEpoll) { classifier("linux-x86_64") })
 }
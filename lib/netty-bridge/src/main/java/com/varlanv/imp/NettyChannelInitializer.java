@@ -0,0 +1,31 @@
+package com.varlanv.imp;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerExpectContinueHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+final class NettyChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    private final NettyEngineServer server;
+    private final int maxContentLength;
+
+    NettyChannelInitializer(NettyEngineServer server, int maxContentLength) {
+        this.server = server;
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    protected void initChannel(SocketChannel channel) {
+        server.onConnectionOpened(channel);
+        channel.pipeline()
+                .addLast(new HttpServerCodec())
+                .addLast(new ChunkedWriteHandler())
+                .addLast(new HttpServerExpectContinueHandler())
+                // bodies over maxContentLength are answered by aggregator with 413 and never reach request handler
+                .addLast(new HttpObjectAggregator(maxContentLength))
+                .addLast(new NettyRequestHandler(server));
+    }
+}
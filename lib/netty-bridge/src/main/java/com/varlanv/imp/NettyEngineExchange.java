@@ -0,0 +1,202 @@
+package com.varlanv.imp;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class NettyEngineExchange implements EngineExchange {
+
+    private static final int STREAM_CHUNK_SIZE = 16 * 1024;
+
+    private final NettyRequestHandler requestHandler;
+    private final ChannelHandlerContext ctx;
+    private final String method;
+    private final URI requestUri;
+    private final HttpVersion protocolVersion;
+    private final boolean keepAlive;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final AtomicBoolean responseSent = new AtomicBoolean();
+
+    NettyEngineExchange(
+            NettyRequestHandler requestHandler,
+            ChannelHandlerContext ctx,
+            String method,
+            String target,
+            HttpVersion protocolVersion,
+            boolean keepAlive,
+            Map<String, List<String>> headers,
+            byte[] body) {
+        this.requestHandler = requestHandler;
+        this.ctx = ctx;
+        this.method = method;
+        this.protocolVersion = protocolVersion;
+        this.keepAlive = keepAlive;
+        this.headers = headers;
+        this.body = body;
+        try {
+            this.requestUri = new URI(target);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Malformed request target [ " + target + " ]", e);
+        }
+    }
+
+    @Override
+    public String requestMethod() {
+        return method;
+    }
+
+    @Override
+    public URI requestUri() {
+        return requestUri;
+    }
+
+    @Override
+    public Map<String, List<String>> requestHeaders() {
+        return headers;
+    }
+
+    @Override
+    public byte[] readRequestBody() {
+        return body;
+    }
+
+    @Override
+    public void sendResponse(int statusCode, Map<String, List<String>> headers, byte[] body) {
+        markResponseSent();
+        var hasBody = hasBody(statusCode);
+        var writeBody = hasBody && body.length > 0 && !"HEAD".equals(method);
+        // body array is not modified after response is sent, so it is written without copying
+        var content = writeBody ? Unpooled.wrappedBuffer(body) : Unpooled.EMPTY_BUFFER;
+        var response = new DefaultFullHttpResponse(protocolVersion, responseStatus(statusCode), content);
+        copyHeaders(headers, response);
+        if (hasBody) {
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, body.length);
+        }
+        HttpUtil.setKeepAlive(response, keepAlive);
+        onWritten(ctx.writeAndFlush(response), keepAlive);
+    }
+
+    @Override
+    public void streamResponse(int statusCode, Map<String, List<String>> headers, InputStream body, long contentLength)
+            throws IOException {
+        markResponseSent();
+        var hasBody = hasBody(statusCode);
+        var writeBody = hasBody && contentLength != 0 && !"HEAD".equals(method);
+        var chunked = hasBody && contentLength < 0 && !HttpVersion.HTTP_1_0.equals(protocolVersion);
+        // HTTP/1.0 has no chunked encoding, so body of unknown length is delimited by closing connection
+        var keepAliveAfterWrite = keepAlive && (!hasBody || contentLength >= 0 || chunked);
+        var response = new DefaultHttpResponse(protocolVersion, responseStatus(statusCode));
+        copyHeaders(headers, response);
+        if (chunked) {
+            HttpUtil.setTransferEncodingChunked(response, true);
+        } else if (hasBody && contentLength >= 0) {
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        }
+        HttpUtil.setKeepAlive(response, keepAliveAfterWrite);
+        ctx.write(response);
+        if (writeBody) {
+            // stream is read on event loop by ChunkedWriteHandler only when channel is writable, and closed at the end
+            onWritten(
+                    ctx.writeAndFlush(new HttpChunkedInput(new ChunkedStream(body, STREAM_CHUNK_SIZE))),
+                    keepAliveAfterWrite);
+        } else {
+            body.close();
+            onWritten(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT), keepAliveAfterWrite);
+        }
+    }
+
+    @Override
+    public void sendFileResponse(int statusCode, Map<String, List<String>> headers, FileChannel file, long length)
+            throws IOException {
+        markResponseSent();
+        var hasBody = hasBody(statusCode);
+        var response = new DefaultHttpResponse(protocolVersion, responseStatus(statusCode));
+        copyHeaders(headers, response);
+        if (hasBody) {
+            response.headers().set(HttpHeaderNames.CONTENT_LENGTH, length);
+        }
+        HttpUtil.setKeepAlive(response, keepAlive);
+        ctx.write(response);
+        if (hasBody && length > 0 && !"HEAD".equals(method)) {
+            // written with sendfile where transport supports it, file channel is closed when region is released
+            ctx.write(new DefaultFileRegion(file, 0, length));
+        } else {
+            file.close();
+        }
+        onWritten(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT), keepAlive);
+    }
+
+    private void markResponseSent() {
+        if (!responseSent.compareAndSet(false, true)) {
+            throw new IllegalStateException("Response was already sent for this exchange");
+        }
+    }
+
+    private void copyHeaders(Map<String, List<String>> headers, HttpResponse response) {
+        var responseHeaders = response.headers();
+        responseHeaders.set(HttpHeaderNames.DATE, DateFormatter.format(new Date()));
+        for (var entry : headers.entrySet()) {
+            var key = entry.getKey();
+            if (!EngineHeaders.isManagedByEngine(key)) {
+                responseHeaders.add(key, entry.getValue());
+            }
+        }
+    }
+
+    private void onWritten(ChannelFuture writeFuture, boolean keepAliveAfterWrite) {
+        if (keepAliveAfterWrite) {
+            writeFuture.addListener((ChannelFutureListener) future -> {
+                if (future.isSuccess()) {
+                    requestHandler.onResponseWritten(ctx);
+                } else {
+                    ctx.close();
+                }
+            });
+        } else {
+            writeFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static boolean hasBody(int statusCode) {
+        return statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+
+    boolean isResponseSent() {
+        return responseSent.get();
+    }
+
+    void close() {
+        ctx.close();
+    }
+
+    private static HttpResponseStatus responseStatus(int statusCode) {
+        // netty has no reason phrase for some codes (e.g. 418), so descriptions are taken from ImpHttpStatus
+        var status = ImpHttpStatus.forCodeNullable(statusCode);
+        return status == null
+                ? HttpResponseStatus.valueOf(statusCode)
+                : HttpResponseStatus.valueOf(statusCode, status.description());
+    }
+}
@@ -0,0 +1,103 @@
+package com.varlanv.imp;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.jspecify.annotations.Nullable;
+
+final class NettyEngineServer implements EngineServer {
+
+    private final int port;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final ChannelGroup connections = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    @Nullable private volatile Channel serverChannel;
+    @Nullable private volatile ExecutorService executorService;
+    private volatile EngineHandler handler = exchange -> {
+        throw new IllegalStateException("Server is not started");
+    };
+
+    NettyEngineServer(int port, EventLoopGroup bossGroup, EventLoopGroup workerGroup) {
+        this.port = port;
+        this.bossGroup = bossGroup;
+        this.workerGroup = workerGroup;
+    }
+
+    @Override
+    public int port() {
+        return port;
+    }
+
+    @Override
+    public void start(@Nullable ExecutorService executorService, EngineHandler handler) {
+        var channel = Preconditions.nonNull(serverChannel, "serverChannel");
+        this.executorService = executorService;
+        this.handler = handler;
+        channel.config().setAutoRead(true);
+        channel.read();
+    }
+
+    @Override
+    public void stop() {
+        var channel = serverChannel;
+        if (channel != null) {
+            channel.close().awaitUninterruptibly();
+        }
+        connections.close().awaitUninterruptibly();
+        NettyServerEngine.shutdown(bossGroup);
+        NettyServerEngine.shutdown(workerGroup);
+    }
+
+    void bound(Channel serverChannel) {
+        this.serverChannel = serverChannel;
+    }
+
+    void onConnectionOpened(Channel channel) {
+        connections.add(channel);
+    }
+
+    void dispatch(ChannelHandlerContext ctx, NettyEngineExchange exchange) {
+        var executor = executorService;
+        if (executor == null) {
+            handle(exchange);
+        } else {
+            try {
+                executor.execute(() -> handle(exchange));
+            } catch (RejectedExecutionException e) {
+                ctx.close();
+            }
+        }
+    }
+
+    private void handle(NettyEngineExchange exchange) {
+        try {
+            handler.handle(exchange);
+            if (!exchange.isResponseSent()) {
+                exchange.sendResponse(500, Map.of(), new byte[0]);
+            }
+        } catch (Exception e) {
+            ImpLog.error(e);
+            if (exchange.isResponseSent()) {
+                exchange.close();
+            } else {
+                try {
+                    exchange.sendResponse(
+                            500,
+                            Map.of("Connection", List.of("close")),
+                            Objects.requireNonNullElse(e.getMessage(), "").getBytes(StandardCharsets.UTF_8));
+                } catch (Exception sendException) {
+                    exchange.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.varlanv.imp;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+final class NettyRequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private final NettyEngineServer server;
+    // accessed only from channel event loop
+    private final Queue<NettyEngineExchange> pipelined = new ArrayDeque<>();
+    private boolean inFlight;
+
+    NettyRequestHandler(NettyEngineServer server) {
+        this.server = server;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        if (request.decoderResult().isFailure()) {
+            respondBadRequest(ctx);
+            return;
+        }
+        Map<String, List<String>> headers = EngineHeaders.newHeaders();
+        for (var header : request.headers()) {
+            headers.computeIfAbsent(EngineHeaders.normalizeKey(header.getKey()), k -> new ArrayList<>(1))
+                    .add(header.getValue());
+        }
+        NettyEngineExchange exchange;
+        try {
+            exchange = new NettyEngineExchange(
+                    this,
+                    ctx,
+                    request.method().name(),
+                    request.uri(),
+                    request.protocolVersion(),
+                    HttpUtil.isKeepAlive(request),
+                    headers,
+                    // request is released after this method returns, so body is copied before dispatching
+                    ByteBufUtil.getBytes(request.content()));
+        } catch (IllegalArgumentException e) {
+            respondBadRequest(ctx);
+            return;
+        }
+        if (inFlight) {
+            // responses must be written in request order, so pipelined requests wait for the previous response
+            pipelined.add(exchange);
+        } else {
+            inFlight = true;
+            ctx.channel().config().setAutoRead(false);
+            server.dispatch(ctx, exchange);
+        }
+    }
+
+    // called from channel event loop after keep-alive response is written
+    void onResponseWritten(ChannelHandlerContext ctx) {
+        var next = pipelined.poll();
+        if (next == null) {
+            inFlight = false;
+            ctx.channel().config().setAutoRead(true);
+        } else {
+            server.dispatch(ctx, next);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        ctx.close();
+    }
+
+    private static void respondBadRequest(ChannelHandlerContext ctx) {
+        var response = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST, Unpooled.EMPTY_BUFFER);
+        response.headers()
+                .set(HttpHeaderNames.CONTENT_LENGTH, 0)
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+}
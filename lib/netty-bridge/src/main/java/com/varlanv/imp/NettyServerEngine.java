@@ -0,0 +1,83 @@
+package com.varlanv.imp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.io.IOException;
+import java.net.BindException;
+import java.util.concurrent.TimeUnit;
+
+public final class NettyServerEngine implements ServerEngine {
+
+    static final String NAME = "netty";
+    private static final int BACKLOG = 1024;
+
+    private final NettyTransport transport;
+    private final ByteBufAllocator allocator;
+    private final int maxContentLength;
+
+    public NettyServerEngine() {
+        this(NettyTransport.detect(), PooledByteBufAllocator.DEFAULT, EngineLimits.MAX_REQUEST_BODY_SIZE);
+    }
+
+    NettyServerEngine(NettyTransport transport, ByteBufAllocator allocator, int maxContentLength) {
+        this.transport = transport;
+        this.allocator = allocator;
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public EngineServer bind(int port) throws IOException {
+        var bossGroup = transport.newEventLoopGroup(1, new DefaultThreadFactory("imp-netty-boss-" + port));
+        var workerGroup = transport.newEventLoopGroup(0, new DefaultThreadFactory("imp-netty-worker-" + port));
+        var server = new NettyEngineServer(port, bossGroup, workerGroup);
+        var bindFuture = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(transport.serverChannelClass())
+                .option(ChannelOption.SO_BACKLOG, BACKLOG)
+                // connections are not accepted until handler is provided in EngineServer#start
+                .option(ChannelOption.AUTO_READ, false)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.ALLOCATOR, allocator)
+                .childHandler(new NettyChannelInitializer(server, maxContentLength))
+                .bind(port)
+                .awaitUninterruptibly();
+        if (!bindFuture.isSuccess()) {
+            shutdown(bossGroup);
+            shutdown(workerGroup);
+            throw toIOException(bindFuture.cause());
+        }
+        server.bound(bindFuture.channel());
+        return server;
+    }
+
+    static void shutdown(EventLoopGroup group) {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly(2, TimeUnit.SECONDS);
+    }
+
+    private static IOException toIOException(Throwable cause) {
+        if (cause instanceof BindException) {
+            return (BindException) cause;
+        }
+        var message = String.valueOf(cause.getMessage());
+        // native transports report bind failures as generic IOException, while FutureServer relies on BindException
+        // to retry on another port
+        if (message.contains("Address already in use")) {
+            var bindException = new BindException(message);
+            bindException.initCause(cause);
+            return bindException;
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+}
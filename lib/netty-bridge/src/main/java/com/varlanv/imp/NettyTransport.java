@@ -0,0 +1,66 @@
+package com.varlanv.imp;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import java.util.concurrent.ThreadFactory;
+
+final class NettyTransport {
+
+    static final NettyTransport NIO = new NettyTransport(false);
+    private static final NettyTransport DETECTED = new NettyTransport(isEpollAvailable());
+
+    private final boolean epoll;
+
+    private NettyTransport(boolean epoll) {
+        this.epoll = epoll;
+    }
+
+    // Epoll when netty-transport-native-epoll is on classpath and its native library loads, nio otherwise
+    static NettyTransport detect() {
+        return DETECTED;
+    }
+
+    boolean isEpoll() {
+        return epoll;
+    }
+
+    EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+        return epoll
+                ? EpollTransport.newEventLoopGroup(threads, threadFactory)
+                : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    Class<? extends ServerChannel> serverChannelClass() {
+        return epoll ? EpollTransport.serverChannelClass() : NioServerSocketChannel.class;
+    }
+
+    private static boolean isEpollAvailable() {
+        try {
+            Class.forName("io.netty.channel.epoll.Epoll");
+            return EpollTransport.isAvailable();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    // Separate class, so that epoll classes are only loaded when netty-transport-native-epoll is on classpath
+    private static final class EpollTransport {
+
+        static boolean isAvailable() {
+            return Epoll.isAvailable();
+        }
+
+        static EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+
+        static Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NullMarked
+package com.varlanv.imp;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,189 @@
+package com.varlanv.imp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import com.varlanv.imp.commontest.FastTest;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.ResourceLeakDetector;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class NettyServerEngineTest implements FastTest {
+
+    @Test
+    @DisplayName("should use epoll transport when native library is available, and nio transport otherwise")
+    void should_use_epoll_transport_when_native_library_is_available_and_nio_transport_otherwise() {
+        var detected = NettyTransport.detect();
+
+        assertThat(detected.isEpoll()).isEqualTo(Epoll.isAvailable());
+        assertThat(detected.serverChannelClass())
+                .isEqualTo(Epoll.isAvailable() ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+        assertThat(NettyTransport.NIO.isEpoll()).isFalse();
+        assertThat(NettyTransport.NIO.serverChannelClass()).isEqualTo(NioServerSocketChannel.class);
+    }
+
+    @Test
+    @DisplayName("should serve requests both with detected transport and with nio fallback transport")
+    void should_serve_requests_both_with_detected_transport_and_with_nio_fallback_transport() throws Exception {
+        for (var transport : List.of(NettyTransport.detect(), NettyTransport.NIO)) {
+            var engine = new NettyServerEngine(transport, PooledByteBufAllocator.DEFAULT, Integer.MAX_VALUE);
+            useServer(engine, NettyServerEngineTest::echo, port -> {
+                var response = exchange(
+                        port,
+                        "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\nabc"
+                                + "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n"
+                                + "Connection: close\r\n\r\ndef");
+
+                assertThat(response).startsWith("HTTP/1.1 200 OK\r\n").contains("echo:abc").endsWith("echo:def");
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("should release all buffers of buffered, streamed and rejected exchanges under paranoid leak detector")
+    void should_release_all_buffers_of_buffered_streamed_and_rejected_exchanges_under_paranoid_leak_detector()
+            throws Exception {
+        // no thread caches, so that every released buffer is returned to its arena right away
+        var allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 9, 0, 0, false);
+        var engine = new NettyServerEngine(NettyTransport.detect(), allocator, 1024);
+        var previousLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        try {
+            useServer(engine, NettyServerEngineTest::echo, port -> {
+                assertThat(exchange(
+                                port,
+                                "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 3\r\n\r\nabc"
+                                        + "GET /streamed HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"))
+                        .contains("echo:abc")
+                        .endsWith("0\r\n\r\n");
+                assertThat(exchange(
+                                port,
+                                "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 2048\r\n\r\n"
+                                        + "a".repeat(2048)
+                                        + "GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"))
+                        .startsWith("HTTP/1.1 413 ")
+                        .endsWith("echo:");
+                assertThat(exchange(port, "garbage\r\n\r\n")).startsWith("HTTP/1.1 400 Bad Request\r\n");
+            });
+        } finally {
+            ResourceLeakDetector.setLevel(previousLevel);
+        }
+
+        assertThat(activeAllocations(allocator.metric().heapArenas())).isZero();
+        assertThat(activeAllocations(allocator.metric().directArenas())).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject body over aggregator limit with 413 without calling handler, and keep connection open")
+    void should_reject_body_over_aggregator_limit_with_413_without_calling_handler_and_keep_connection_open()
+            throws Exception {
+        var handled = new AtomicInteger();
+        var engine = new NettyServerEngine(NettyTransport.detect(), PooledByteBufAllocator.DEFAULT, 16);
+        useServer(
+                engine,
+                exchange -> {
+                    handled.incrementAndGet();
+                    echo(exchange);
+                },
+                port -> {
+                    var response = exchange(
+                            port,
+                            "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 17\r\n\r\n" + "a".repeat(17)
+                                    + "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 16\r\n"
+                                    + "Connection: close\r\n\r\n" + "b".repeat(16));
+
+                    assertThat(response).startsWith("HTTP/1.1 413 Request Entity Too Large\r\n");
+                    assertThat(response.indexOf("HTTP/1.1 200 OK\r\n")).isPositive();
+                    assertThat(response).endsWith("echo:" + "b".repeat(16));
+                    assertThat(handled).hasValue(1);
+                });
+    }
+
+    @Test
+    @DisplayName("should serve chunked body up to aggregator limit, and reject chunked body growing over it")
+    void should_serve_chunked_body_up_to_aggregator_limit_and_reject_chunked_body_growing_over_it() throws Exception {
+        var handled = new AtomicInteger();
+        var engine = new NettyServerEngine(NettyTransport.detect(), PooledByteBufAllocator.DEFAULT, 16);
+        useServer(
+                engine,
+                exchange -> {
+                    handled.incrementAndGet();
+                    echo(exchange);
+                },
+                port -> {
+                    assertThat(exchange(
+                                    port,
+                                    "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n"
+                                            + "Connection: close\r\n\r\n8\r\naaaaaaaa\r\n8\r\nbbbbbbbb\r\n0\r\n\r\n"))
+                            .startsWith("HTTP/1.1 200 OK\r\n")
+                            .endsWith("echo:aaaaaaaabbbbbbbb");
+                    assertThat(exchange(
+                                    port,
+                                    "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n"
+                                            + "Connection: close\r\n\r\n8\r\naaaaaaaa\r\n9\r\nbbbbbbbbb\r\n0\r\n\r\n"))
+                            .startsWith("HTTP/1.1 413 Request Entity Too Large\r\n");
+                    assertThat(handled).hasValue(1);
+                });
+    }
+
+    @Test
+    @DisplayName("should throw exception if failed to acquire specific port within available retries")
+    void should_throw_exception_if_failed_to_acquire_specific_port_within_available_retries() throws Exception {
+        var engine = new NettyServerEngine();
+        var occupied = engine.bind(randomPort());
+        var futureServer = new FutureServer(PortSupplier.fixed(occupied.port()), engine);
+
+        try {
+            assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(futureServer::createServer)
+                    .withMessage("Could not acquire port [%d] after [5] retries - port is in use", occupied.port());
+        } finally {
+            occupied.stop();
+        }
+    }
+
+    private void useServer(NettyServerEngine engine, EngineHandler handler, ThrowingConsumer<Integer> action)
+            throws Exception {
+        var server = new FutureServer(PortSupplier.ofSupplier(this::randomPort, true), engine).createServer();
+        try {
+            server.actualServer().start(null, handler);
+            action.accept(server.port());
+        } finally {
+            server.actualServer().stop();
+        }
+    }
+
+    private static String exchange(int port, String request) throws IOException {
+        try (var socket = new Socket("localhost", port)) {
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.ISO_8859_1));
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static void echo(EngineExchange exchange) throws IOException {
+        if ("/streamed".equals(exchange.requestUri().getPath())) {
+            // larger than single chunk of ChunkedStream, so that several buffers are written
+            var body = "s".repeat(40 * 1024).getBytes(StandardCharsets.ISO_8859_1);
+            exchange.streamResponse(200, Map.of(), new ByteArrayInputStream(body), -1);
+        } else {
+            var body = new String(exchange.readRequestBody(), StandardCharsets.ISO_8859_1);
+            exchange.sendResponse(200, Map.of(), ("echo:" + body).getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private static long activeAllocations(List<PoolArenaMetric> arenas) {
+        return arenas.stream().mapToLong(PoolArenaMetric::numActiveAllocations).sum();
+    }
+}
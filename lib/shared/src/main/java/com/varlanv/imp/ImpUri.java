@@ -1,36 +1,23 @@
 package com.varlanv.imp;
 
 import java.net.URI;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import org.jetbrains.annotations.Unmodifiable;
+import org.jspecify.annotations.Nullable;
 
 public final class ImpUri {
 
+    private final URI requestedUri;
     private final String urlString;
-    private final MemoizedSupplier<Map<String, String>> querySupplier;
+    // Parsed lazily without locking, uri belongs to single request. Map.copyOf keeps entries in final fields, so map
+    // is safely published even if uri is shared, at worst query is parsed more than once.
+    @Nullable private Map<String, String> query;
 
     ImpUri(URI requestedUri) {
+        this.requestedUri = requestedUri;
         this.urlString = requestedUri.toString();
-        this.querySupplier = MemoizedSupplier.of(() -> {
-            var query = Objects.requireNonNullElse(requestedUri.getQuery(), "");
-            if (query.isEmpty()) {
-                return Map.of();
-            }
-            var queryMap = new HashMap<String, String>();
-            var split = query.split("&", -1);
-            for (var queryEntry : split) {
-                var queryKeyVal = queryEntry.split("=", 2);
-                if (queryKeyVal.length == 2) {
-                    queryMap.put(queryKeyVal[0], queryKeyVal[1]);
-                } else {
-                    queryMap.put(queryKeyVal[0], "");
-                }
-            }
-            return Collections.unmodifiableMap(queryMap);
-        });
     }
 
     public String uriString() {
@@ -39,6 +26,29 @@ public final class ImpUri {
 
     @Unmodifiable
     public Map<String, String> query() {
-        return querySupplier.get();
+        var parsed = query;
+        if (parsed == null) {
+            parsed = parseQuery(requestedUri);
+            query = parsed;
+        }
+        return parsed;
+    }
+
+    private static Map<String, String> parseQuery(URI requestedUri) {
+        var query = Objects.requireNonNullElse(requestedUri.getQuery(), "");
+        if (query.isEmpty()) {
+            return Map.of();
+        }
+        var queryMap = new HashMap<String, String>();
+        var split = query.split("&", -1);
+        for (var queryEntry : split) {
+            var queryKeyVal = queryEntry.split("=", 2);
+            if (queryKeyVal.length == 2) {
+                queryMap.put(queryKeyVal[0], queryKeyVal[1]);
+            } else {
+                queryMap.put(queryKeyVal[0], "");
+            }
+        }
+        return Map.copyOf(queryMap);
     }
 }
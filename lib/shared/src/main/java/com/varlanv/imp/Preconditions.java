@@ -71,6 +71,13 @@ interface Preconditions {
         return t;
     }
 
+    static int nonNegative(int t, String field) {
+        if (t < 0) {
+            throw new IllegalArgumentException("negative values are not supported - " + field);
+        }
+        return t;
+    }
+
     static String nonBlank(@Nullable String t, String field) {
         if (t == null || t.isBlank()) {
             throw new IllegalArgumentException("null or blank strings are not supported - " + field);
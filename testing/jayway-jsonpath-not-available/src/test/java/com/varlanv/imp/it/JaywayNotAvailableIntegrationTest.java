@@ -13,13 +13,13 @@ import org.junit.jupiter.api.Test;
 public class JaywayNotAvailableIntegrationTest implements FastTest {
 
     @Test
-    @DisplayName("should fail immediately when jayway is not present on classpath")
-    void should_fail_immediately_when_jayway_is_not_present_on_classpath() {
+    @DisplayName("should fail immediately when jayway is not present on classpath and path needs jayway")
+    void should_fail_immediately_when_jayway_is_not_present_on_classpath_and_path_needs_jayway() {
         assertThatExceptionOfType(IllegalStateException.class)
                 .isThrownBy(() -> ImpServer.httpTemplate()
                         .matchRequest(spec -> spec.id("anyId")
                                 .priority(0)
-                                .match(match -> match.jsonPath("$.key").stringEquals("val"))
+                                .match(match -> match.jsonPath("$..key").stringEquals("val"))
                                 .respondWithStatus(200)
                                 .andTextBody("response body")
                                 .andNoAdditionalHeaders())
@@ -30,6 +30,92 @@ public class JaywayNotAvailableIntegrationTest implements FastTest {
                                 + "Library [ com.jayway.jsonpath:json-path ] is required on classpath to work with jsonPath matchers.");
     }
 
+    @Test
+    @DisplayName("should be able to handle definite jsonpath matchers when jsonpath is not available at classpath")
+    void should_be_able_to_handle_definite_jsonpath_matchers_when_jsonpath_is_not_available_at_classpath() {
+        var responseBody = "response body";
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("anyId")
+                        .priority(0)
+                        .match(match -> match.and(
+                                match.jsonPath("$.key").stringEquals("val"),
+                                match.jsonPath("$.items[1]['qty']").numberEquals(3)))
+                        .respondWithStatus(200)
+                        .andTextBody(responseBody)
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .onRandomPort()
+                .useServer(impServer -> {
+                    var matching = sendHttpRequestWithBody(
+                                    impServer.port(),
+                                    "{\"key\": \"val\", \"items\": [{}, {\"qty\": 3}]}",
+                                    HttpResponse.BodyHandlers.ofString())
+                            .join();
+                    var notMatching = sendHttpRequestWithBody(
+                                    impServer.port(), "{\"key\": \"val\"}", HttpResponse.BodyHandlers.ofString())
+                            .join();
+
+                    assertThat(matching.statusCode()).isEqualTo(200);
+                    assertThat(matching.body()).isEqualTo(responseBody);
+                    assertThat(notMatching.statusCode()).isEqualTo(418);
+                });
+    }
+
+    @Test
+    @DisplayName("should take last of repeated keys when jsonpath is not available at classpath, same as jayway")
+    void should_take_last_of_repeated_keys_when_jsonpath_is_not_available_at_classpath_same_as_jayway() {
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("anyId")
+                        .priority(0)
+                        .match(match -> match.jsonPath("$.key").stringEquals("val"))
+                        .respondWithStatus(200)
+                        .andTextBody("response body")
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .onRandomPort()
+                .useServer(impServer -> {
+                    var lastMatches = sendHttpRequestWithBody(
+                                    impServer.port(),
+                                    "{\"key\": \"a\", \"key\": \"val\"}",
+                                    HttpResponse.BodyHandlers.ofString())
+                            .join();
+                    var firstMatches = sendHttpRequestWithBody(
+                                    impServer.port(),
+                                    "{\"key\": \"val\", \"key\": \"a\"}",
+                                    HttpResponse.BodyHandlers.ofString())
+                            .join();
+
+                    assertThat(lastMatches.statusCode()).isEqualTo(200);
+                    assertThat(firstMatches.statusCode()).isEqualTo(418);
+                    assertThat(firstMatches.body()).doesNotContain("Failed to parse json string");
+                });
+    }
+
+    @Test
+    @DisplayName("should treat index on non-array as missing when jsonpath is not available at classpath, same as jayway")
+    void should_treat_index_on_non_array_as_missing_when_jsonpath_is_not_available_at_classpath_same_as_jayway() {
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("anyId")
+                        .priority(0)
+                        .match(match -> match.and(
+                                match.jsonPath("$.object[0]").isNotPresent(),
+                                match.jsonPath("$.string[0]").isNotPresent()))
+                        .respondWithStatus(200)
+                        .andTextBody("response body")
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .onRandomPort()
+                .useServer(impServer -> {
+                    var response = sendHttpRequestWithBody(
+                                    impServer.port(),
+                                    "{\"object\": {\"key\": 1}, \"string\": \"val\"}",
+                                    HttpResponse.BodyHandlers.ofString())
+                            .join();
+
+                    assertThat(response.statusCode()).isEqualTo(200);
+                });
+    }
+
     @Test
     @DisplayName("should be able to handle non-jsonpath matchers when jsonpath is not available at classpath")
     void should_be_able_to_handle_non_jsonpath_matchers_when_jsonpath_is_not_available_at_classpath() {
@@ -10,5 +10,8 @@ internalConvention {
 
 dependencies {
     testImplementation(projects.lib.core)
+    testRuntimeOnly(projects.lib.jdkBridge)
+    testRuntimeOnly(projects.lib.nettyBridge)
+    testRuntimeOnly(projects.lib.apacheBridge)
     testImplementation(libs.moco)
 }
@@ -0,0 +1,62 @@
+package com.varlanv.imp;
+
+import com.varlanv.imp.commontest.SlowTest;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+// Placed in library package to reach package-private evaluation methods directly, without HTTP noise
+@Disabled
+class ImpConditionEvaluationBenchmarkTest implements SlowTest {
+
+    private static final int warmupIterations = 500_000;
+    private static final int measuredIterations = 2_000_000;
+
+    @Test
+    @DisplayName("condition evaluation allocation")
+    void condition_evaluation_allocation() throws Exception {
+        var request = new ImpRequestView(
+                ImpMethod.GET,
+                Map.of("key1", List.of("value1"), "key2", List.of("value2"), "key3", List.of("value3")),
+                () -> new byte[0],
+                new URI("/"));
+        var match = new ImpMatch();
+        var condition = match.and(
+                match.headers().containsKey("key1"),
+                match.headers().containsKey("key2"),
+                match.or(
+                        match.headers().containsKey("unknown1"),
+                        match.headers().containsKey("unknown2"),
+                        match.headers().containsKey("key3")),
+                match.not(match.headers().containsKey("unknown3")));
+
+        measure("explained evaluation (toEvaluated)", () -> condition.toEvaluated(request).result);
+        measure("boolean evaluation (test)", () -> condition.test(request));
+    }
+
+    private void measure(String subject, ImpSupplier<Boolean> evaluation) {
+        var result = false;
+        for (var idx = 0; idx < warmupIterations; idx++) {
+            result ^= evaluation.get();
+        }
+        var allocatedBefore = allocatedBytes();
+        var startNanos = System.nanoTime();
+        for (var idx = 0; idx < measuredIterations; idx++) {
+            result ^= evaluation.get();
+        }
+        var elapsedNanos = System.nanoTime() - startNanos;
+        var allocated = allocatedBytes() - allocatedBefore;
+        System.err.printf(
+                "%s - allocated %d bytes, took %d ns per evaluation (result %s)%n",
+                subject, allocated / measuredIterations, elapsedNanos / measuredIterations, result);
+    }
+
+    private long allocatedBytes() {
+        var threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMxBean.getCurrentThreadAllocatedBytes();
+    }
+}
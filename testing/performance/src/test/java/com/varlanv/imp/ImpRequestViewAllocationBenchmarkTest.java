@@ -0,0 +1,60 @@
+package com.varlanv.imp;
+
+import com.varlanv.imp.commontest.SlowTest;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+// Placed in library package to measure request view directly, without HTTP noise
+@Disabled
+class ImpRequestViewAllocationBenchmarkTest implements SlowTest {
+
+    private static final int warmupRequests = 200_000;
+    private static final int measuredRequests = 1_000_000;
+    private static final byte[] body = "{\"type\":\"order\"}".getBytes(StandardCharsets.UTF_8);
+    private static final Map<String, List<String>> headers = Map.of("Content-Type", List.of("application/json"));
+
+    @Test
+    @DisplayName("request view allocation, nothing derived")
+    void request_view_allocation_nothing_derived() throws Exception {
+        var uri = new URI("/orders?expand=lines");
+        measure("nothing derived", () -> new ImpRequestView(ImpMethod.POST, headers, () -> body, uri));
+    }
+
+    @Test
+    @DisplayName("request view allocation, body and query derived")
+    void request_view_allocation_body_and_query_derived() throws Exception {
+        var uri = new URI("/orders?expand=lines");
+        measure("body and query derived", () -> {
+            var request = new ImpRequestView(ImpMethod.POST, headers, () -> body, uri);
+            request.body();
+            request.uri().query();
+            return request;
+        });
+    }
+
+    private void measure(String subject, ImpSupplier<ImpRequestView> requests) {
+        var threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+        var hashes = 0;
+        for (var idx = 0; idx < warmupRequests; idx++) {
+            hashes += System.identityHashCode(requests.get());
+        }
+        var allocatedBefore = threadMxBean.getThreadAllocatedBytes(threadId);
+        var startNanos = System.nanoTime();
+        for (var idx = 0; idx < measuredRequests; idx++) {
+            // identity hash keeps request views from being scalar-replaced
+            hashes += System.identityHashCode(requests.get());
+        }
+        var elapsedNanos = System.nanoTime() - startNanos;
+        var allocated = threadMxBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.err.printf(
+                "%s - allocated %d bytes, %d ns per request view (%d)%n",
+                subject, allocated / measuredRequests, elapsedNanos / measuredRequests, hashes);
+    }
+}
@@ -0,0 +1,303 @@
+package com.varlanv.imp;
+
+import com.varlanv.imp.commontest.SlowTest;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Placed in library package to measure matching directly, without HTTP noise
+@Disabled
+class ResponseDecisionScalingBenchmarkTest implements SlowTest {
+
+    private static final String stubHeader = "X-Stub-Id";
+    private static final long measuredPicksPerCase = 2_000_000;
+    private static final long measuredNewRequestPicksPerCase = 20_000;
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000, 10_000})
+    @DisplayName("candidates matched by header, cannot be indexed")
+    void response_decision_scaling_header_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> match.and(match.method().get(), match.headers().containsPair(stubHeader, String.valueOf(idx))));
+
+        measure(decision, candidatesCount, "highest priority match", requestWithStubHeader(candidatesCount - 1));
+        measure(decision, candidatesCount, "middle priority match", requestWithStubHeader(candidatesCount / 2));
+        measure(decision, candidatesCount, "lowest priority match", requestWithStubHeader(0));
+        measure(decision, candidatesCount, "no match", requestWithStubHeader(-1));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000, 10_000})
+    @DisplayName("candidates matched by method and path, indexed")
+    void response_decision_scaling_path_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> idx % 2 == 0
+                        ? match.and(match.method().get(), match.path().contains("/api/stubs/" + idx + "/"))
+                        : match.and(match.method().get(), match.path().matches("/api/items/" + idx + "/\\d+")));
+
+        measure(decision, candidatesCount, "contains match", requestWithPath("/api/stubs/0/details"));
+        measure(decision, candidatesCount, "matches match", requestWithPath("/api/items/1/42"));
+        measure(decision, candidatesCount, "no match", requestWithPath("/api/unknown/1"));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000})
+    @DisplayName("candidates repeating same body matcher, evaluated once per request")
+    void response_decision_scaling_shared_body_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> match.and(
+                        match.body().matches("(?s).*\"type\":\"order\".*"),
+                        match.body().contains("\"id\":" + idx + ",")));
+
+        measure(decision, candidatesCount, "lowest priority match", requestWithOrderBody(0));
+        measure(decision, candidatesCount, "no match", requestWithOrderBody(-1));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 50, 200})
+    @DisplayName("candidates routed by body keywords, large body")
+    void response_decision_scaling_body_keyword_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> idx % 2 == 0
+                        ? match.body().contains("keyword-" + idx + ";")
+                        : match.body().containsIgnoreCase("KEYWORD-" + idx + ";"));
+
+        // body is scanned once per request, so each pick needs new request
+        measureNewRequests(decision, candidatesCount, "lowest priority match", largeBodyRequests("keyword-0;"));
+        measureNewRequests(decision, candidatesCount, "no match", largeBodyRequests("keyword-none;"));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 50})
+    @DisplayName("candidates matched by raw body bytes, multi-megabyte binary upload")
+    void response_decision_scaling_upload_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> match.and(
+                        match.body().startsWith("--boundary\r\n"),
+                        match.body().contains("filename=\"upload-" + idx + ".bin\"")));
+
+        // body is never decoded, so each pick needs new request to not reuse anything
+        measureNewRequests(decision, candidatesCount, "lowest priority match", uploadRequests("upload-0.bin"));
+        measureNewRequests(decision, candidatesCount, "no match", uploadRequests("upload-none.bin"));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000})
+    @DisplayName("candidates matched by regex patterns, cannot be indexed")
+    void response_decision_scaling_regex_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> match.and(
+                        match.path().matches(".*/orders/" + idx),
+                        match.body().matches("(?s).*\"id\":" + idx + ",.*"),
+                        match.jsonPath("$.type").matches("order")));
+
+        measure(decision, candidatesCount, "lowest priority match", requestWithOrderBody(0, "/api/orders/0"));
+        measure(decision, candidatesCount, "no match", requestWithOrderBody(-1, "/api/orders/-1"));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000})
+    @DisplayName("candidates matched by jsonPath regex, compiled once and with String.matches on each evaluation")
+    void response_decision_scaling_json_path_regex_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        // even candidates use literal patterns, which take fast path, odd ones need compiled pattern
+        IntFunction<String> patternFactory =
+                idx -> idx % 2 == 0 ? "customer-" + idx + "-abc" : "customer-" + idx + "-[a-z]+";
+        var compiledOnce =
+                decision(candidatesCount, idx -> match.jsonPath("$.customer.name").matches(patternFactory.apply(idx)));
+        var stringMatches = decision(
+                candidatesCount,
+                idx -> stringMatchesCondition(match, "$.customer.name", patternFactory.apply(idx)));
+
+        measure(compiledOnce, candidatesCount, "lowest priority match, compiled once", requestWithCustomer(0));
+        measure(stringMatches, candidatesCount, "lowest priority match, String.matches", requestWithCustomer(0));
+        measure(compiledOnce, candidatesCount, "no match, compiled once", requestWithCustomer(-1));
+        measure(stringMatches, candidatesCount, "no match, String.matches", requestWithCustomer(-1));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 50, 200})
+    @DisplayName("candidates matched by jsonPath, large json body")
+    void response_decision_scaling_json_path_matchers(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        var decision = decision(
+                candidatesCount,
+                idx -> match.and(
+                        match.jsonPath("$.type").stringEquals("order"),
+                        match.jsonPath("$.customer.accounts[" + (idx % 3) + "].id").numberEquals(idx)));
+
+        // paths are evaluated once per request, so each pick needs new request
+        measureNewRequests(decision, candidatesCount, "lowest priority match", largeJsonRequests(0));
+        measureNewRequests(decision, candidatesCount, "no match", largeJsonRequests(-1));
+    }
+
+    @ParameterizedTest(name = "{0} candidates")
+    @ValueSource(ints = {10, 100, 1_000})
+    @DisplayName("candidates matched by regex patterns, same requests replayed, with and without decision cache")
+    void response_decision_scaling_replayed_requests_with_decision_cache(int candidatesCount) throws Exception {
+        var match = new ImpMatch();
+        IntFunction<ImpCondition> conditionFactory = idx -> match.and(
+                match.path().matches(".*/orders/" + idx),
+                match.body().matches("(?s).*\"id\":" + idx + ",.*"),
+                match.jsonPath("$.type").matches("order"));
+        var uncached = decision(candidatesCount, 0, conditionFactory);
+        var cached = decision(candidatesCount, 1_000, conditionFactory);
+
+        measureNewRequests(uncached, candidatesCount, "lowest priority match, not cached", orderRequests(0));
+        measureNewRequests(cached, candidatesCount, "lowest priority match, cached", orderRequests(0));
+        measureNewRequests(uncached, candidatesCount, "no match, not cached", orderRequests(-1));
+        measureNewRequests(cached, candidatesCount, "no match, cached", orderRequests(-1));
+    }
+
+    private ResponseDecision decision(int candidatesCount, IntFunction<ImpCondition> conditionFactory) {
+        return decision(candidatesCount, 0, conditionFactory);
+    }
+
+    private ResponseDecision decision(int candidatesCount, int cacheSize, IntFunction<ImpCondition> conditionFactory) {
+        var response = ImpResponse.builder()
+                .status(200)
+                .body(() -> new ByteArrayInputStream(new byte[0]))
+                .build();
+        var candidates = new ArrayList<ResponseCandidate>(candidatesCount);
+        for (var idx = 0; idx < candidatesCount; idx++) {
+            // declared in reverse priority order, so that declaration order does not help
+            candidates.add(new ResponseCandidate(
+                    "stub-" + idx, candidatesCount - idx, conditionFactory.apply(idx), () -> response));
+        }
+        return new ResponseDecision(candidates, cacheSize);
+    }
+
+    private ImpRequestView requestWithStubHeader(int stubIdx) throws Exception {
+        return new ImpRequestView(
+                ImpMethod.GET, Map.of(stubHeader, List.of(String.valueOf(stubIdx))), () -> new byte[0], new URI("/"));
+    }
+
+    private ImpRequestView requestWithPath(String path) throws Exception {
+        return new ImpRequestView(ImpMethod.GET, Map.of(), () -> new byte[0], new URI(path));
+    }
+
+    private ImpRequestView requestWithOrderBody(int id) throws Exception {
+        return requestWithOrderBody(id, "/orders");
+    }
+
+    private ImpRequestView requestWithOrderBody(int id, String path) throws Exception {
+        return orderRequests(id, path).get();
+    }
+
+    private ImpSupplier<ImpRequestView> orderRequests(int id) throws Exception {
+        return orderRequests(id, "/api/orders/" + id);
+    }
+
+    private ImpSupplier<ImpRequestView> orderRequests(int id, String path) throws Exception {
+        var body = ("{\"type\":\"order\",\"id\":" + id + ",\"lines\":[" + "{\"sku\":\"abc\"},".repeat(50) + "{}]}")
+                .getBytes(StandardCharsets.UTF_8);
+        var uri = new URI(path);
+        return () -> new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, uri);
+    }
+
+    private ImpRequestView requestWithCustomer(int id) throws Exception {
+        var body = ("{\"type\":\"order\",\"customer\":{\"name\":\"customer-" + id + "-abc\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+        return new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, new URI("/orders"));
+    }
+
+    // jsonPath matches() condition as it was before RegexMatcher, compiling pattern on each evaluation
+    private static ImpCondition stringMatchesCondition(ImpMatch match, String path, String pattern) {
+        var compiledPath = ((JaywayJsonPathMatch) match.jsonPath(path)).compiledPath;
+        return new ImpCondition(
+                "JsonPath",
+                new JsonPathPredicate(
+                        compiledPath,
+                        ref -> ref.isPresent && ref.value instanceof String && ((String) ref.value).matches(pattern)),
+                () -> String.format("%s String.matches(\"%s\")", path, pattern),
+                ImpCondition.Kind.CONDITION,
+                ImpCondition.Cost.JSON_PATH);
+    }
+
+    private ImpSupplier<ImpRequestView> largeBodyRequests(String keyword) throws Exception {
+        var body = ("{\"text\":\"" + "Lorem ipsum dolor sit amet, ".repeat(2_340) + keyword + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        var uri = new URI("/documents");
+        return () -> new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, uri);
+    }
+
+    private ImpSupplier<ImpRequestView> largeJsonRequests(int accountId) throws Exception {
+        // paths only need the head of body, lines after it are never read
+        var head = "{\"type\":\"order\",\"customer\":{\"accounts\":[{\"id\":" + accountId
+                + "},{\"id\":-1},{\"id\":-1}]},";
+        var lines = "{\"sku\":\"abc\",\"qty\":1,\"note\":\"Lorem ipsum dolor sit amet\"},".repeat(1_000);
+        var body = (head + "\"lines\":[" + lines + "{}]}").getBytes(StandardCharsets.UTF_8);
+        var uri = new URI("/orders");
+        return () -> new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, uri);
+    }
+
+    private ImpSupplier<ImpRequestView> uploadRequests(String fileName) throws Exception {
+        var payload = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(payload);
+        var head = "--boundary\r\nContent-Type: application/octet-stream\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        var tail = ("\r\n--boundary\r\nContent-Disposition: form-data; filename=\"" + fileName + "\"\r\n--boundary--")
+                .getBytes(StandardCharsets.UTF_8);
+        var body = new byte[head.length + payload.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(payload, 0, body, head.length, payload.length);
+        System.arraycopy(tail, 0, body, head.length + payload.length, tail.length);
+        var uri = new URI("/uploads");
+        return () -> new ImpRequestView(ImpMethod.POST, Map.of(), () -> body, uri);
+    }
+
+    private void measure(ResponseDecision decision, int candidatesCount, String subject, ImpRequestView request) {
+        // keep total work per case roughly constant, while still giving enough iterations for small counts
+        var iterations = Math.max(1_000, measuredPicksPerCase / candidatesCount);
+        @Nullable ResponseCandidate picked = null;
+        for (var idx = 0; idx < iterations; idx++) {
+            picked = decision.pick(request);
+        }
+        var startNanos = System.nanoTime();
+        for (var idx = 0; idx < iterations; idx++) {
+            picked = decision.pick(request);
+        }
+        var elapsedNanos = System.nanoTime() - startNanos;
+        System.err.printf(
+                "%d candidates, %s - %d ns per pick (picked %s)%n",
+                candidatesCount, subject, elapsedNanos / iterations, picked == null ? "none" : picked.id());
+    }
+
+    private void measureNewRequests(
+            ResponseDecision decision, int candidatesCount, String subject, ImpSupplier<ImpRequestView> requests) {
+        var iterations = Math.max(100, measuredNewRequestPicksPerCase / candidatesCount);
+        @Nullable ResponseCandidate picked = null;
+        for (var idx = 0; idx < iterations; idx++) {
+            picked = decision.pick(requests.get());
+        }
+        var startNanos = System.nanoTime();
+        for (var idx = 0; idx < iterations; idx++) {
+            picked = decision.pick(requests.get());
+        }
+        var elapsedNanos = System.nanoTime() - startNanos;
+        System.err.printf(
+                "%d candidates, %s - %d ns per pick on new request (picked %s)%n",
+                candidatesCount, subject, elapsedNanos / iterations, picked == null ? "none" : picked.id());
+    }
+}
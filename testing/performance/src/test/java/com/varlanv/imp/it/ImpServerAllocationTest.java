@@ -0,0 +1,80 @@
+package com.varlanv.imp.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.ImpExecutor;
+import com.varlanv.imp.ImpServer;
+import com.varlanv.imp.ImpTemplate;
+import com.varlanv.imp.commontest.SlowTest;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@Disabled
+class ImpServerAllocationTest implements SlowTest {
+
+    private static final String responseBody = "{\"value\":\"" + "a".repeat(64 * 1024) + "\"}";
+    private static final int warmupRequests = 2_000;
+    private static final int measuredRequests = 5_000;
+
+    @Test
+    @DisplayName("static json body allocation")
+    void static_json_body_allocation() {
+        measure(
+                "static andJsonBody",
+                ImpServer.httpTemplate()
+                        .alwaysRespond(spec ->
+                                spec.withStatus(200).andJsonBody(responseBody).andNoAdditionalHeaders())
+                        .withExecutor(ImpExecutor.callerThread())
+                        .onRandomPort());
+    }
+
+    @Test
+    @DisplayName("dynamic json body allocation")
+    void dynamic_json_body_allocation() {
+        measure(
+                "dynamic andCustomContentTypeStream",
+                ImpServer.httpTemplate()
+                        .alwaysRespond(spec -> spec.withStatus(200)
+                                .andCustomContentTypeStream(
+                                        "application/json",
+                                        () -> new ByteArrayInputStream(responseBody.getBytes(StandardCharsets.UTF_8)))
+                                .andNoAdditionalHeaders())
+                        .withExecutor(ImpExecutor.callerThread())
+                        .onRandomPort());
+    }
+
+    // server work runs on long-lived dispatcher thread, so that its allocations are visible to ThreadMXBean
+    private void measure(String subject, ImpTemplate template) {
+        template.useServer(impServer -> {
+            sendRequests(impServer.port(), warmupRequests);
+            var allocatedBefore = allocatedBytes();
+            sendRequests(impServer.port(), measuredRequests);
+            var allocated = allocatedBytes() - allocatedBefore;
+            // includes client side allocations, which are the same for both subjects
+            System.err.printf(
+                    "%s - allocated %d bytes per request (all threads)%n", subject, allocated / measuredRequests);
+        });
+    }
+
+    private void sendRequests(int port, int requests) {
+        for (var idx = 0; idx < requests; idx++) {
+            var response = sendHttpRequestWithBody(port, "", HttpResponse.BodyHandlers.discarding())
+                    .join();
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+    }
+
+    private long allocatedBytes() {
+        var threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadIds = threadMxBean.getAllThreadIds();
+        return Arrays.stream(threadMxBean.getThreadAllocatedBytes(threadIds))
+                .filter(bytes -> bytes > 0)
+                .sum();
+    }
+}
@@ -0,0 +1,108 @@
+package com.varlanv.imp.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.varlanv.imp.ImpEngine;
+import com.varlanv.imp.ImpServer;
+import com.varlanv.imp.commontest.SlowTest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@Disabled
+class ImpServerEngineComparisonTest implements SlowTest {
+
+    private static final String requestAndResponse = "asd".repeat(1000);
+    private static final int responseStatus = 200;
+    private static final int warmupRequests = 2_000;
+    private static final int sequentialRequests = 5_000;
+    private static final int concurrentRequests = 20_000;
+    private static final int concurrency = 64;
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"jdk", "nio", "netty", "apache"})
+    @DisplayName("engine sequential")
+    void engine_sequential(String engineName) {
+        ImpServer.httpTemplate()
+                .alwaysRespond(spec -> spec.withStatus(responseStatus)
+                        .andTextBody(requestAndResponse)
+                        .andNoAdditionalHeaders())
+                .withEngine(engine(engineName))
+                .onRandomPort()
+                .useServer(impServer -> {
+                    sendSequential(impServer.port(), warmupRequests);
+                    var timeBefore = System.nanoTime();
+                    sendSequential(impServer.port(), sequentialRequests);
+                    report(engineName + " sequential", sequentialRequests, System.nanoTime() - timeBefore);
+                });
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"jdk", "nio", "netty", "apache"})
+    @DisplayName("engine concurrent")
+    void engine_concurrent(String engineName) {
+        ImpServer.httpTemplate()
+                .alwaysRespond(spec -> spec.withStatus(responseStatus)
+                        .andTextBody(requestAndResponse)
+                        .andNoAdditionalHeaders())
+                .withEngine(engine(engineName))
+                .onRandomPort()
+                .useServer(impServer -> {
+                    sendConcurrent(impServer.port(), warmupRequests);
+                    var timeBefore = System.nanoTime();
+                    sendConcurrent(impServer.port(), concurrentRequests);
+                    report(engineName + " concurrent", concurrentRequests, System.nanoTime() - timeBefore);
+                });
+    }
+
+    private ImpEngine engine(String engineName) {
+        switch (engineName) {
+            case "jdk":
+                return ImpEngine.jdk();
+            case "nio":
+                return ImpEngine.nio();
+            case "netty":
+                return ImpEngine.netty();
+            case "apache":
+                return ImpEngine.apache();
+            default:
+                throw new IllegalArgumentException(engineName);
+        }
+    }
+
+    private void sendSequential(int port, int requests) {
+        for (var idx = 0; idx < requests; idx++) {
+            var response = sendHttpRequestWithBody(port, requestAndResponse, HttpResponse.BodyHandlers.ofString())
+                    .join();
+            assertThat(response.statusCode()).isEqualTo(responseStatus);
+        }
+    }
+
+    private void sendConcurrent(int port, int requests) {
+        var inFlight = new CompletableFuture<?>[concurrency];
+        for (var idx = 0; idx < requests; idx++) {
+            var slot = idx % concurrency;
+            var previous = inFlight[slot];
+            if (previous != null) {
+                previous.join();
+            }
+            inFlight[slot] = sendHttpRequestWithBody(port, requestAndResponse, HttpResponse.BodyHandlers.ofString())
+                    .thenAccept(response -> assertThat(response.body()).isEqualTo(requestAndResponse));
+        }
+        for (var future : inFlight) {
+            if (future != null) {
+                future.join();
+            }
+        }
+    }
+
+    private void report(String subject, int requests, long nanos) {
+        System.err.printf(
+                "%s - %d requests completed in %s, %.0f req/s%n",
+                subject, requests, Duration.ofNanos(nanos), requests / (nanos / 1_000_000_000.0));
+    }
+}
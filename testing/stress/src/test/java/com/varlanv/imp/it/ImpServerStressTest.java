@@ -1,18 +1,26 @@
 package com.varlanv.imp.it;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import com.varlanv.imp.ImpExecutor;
 import com.varlanv.imp.ImpMatch;
 import com.varlanv.imp.ImpServer;
 import com.varlanv.imp.commontest.SlowTest;
 import java.io.ByteArrayInputStream;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
 /**
  * This test doesn't introduce a lot of stress on the server currently,
@@ -81,4 +89,89 @@ class ImpServerStressTest implements SlowTest {
                     }
                 });
     }
+
+    static Stream<Arguments> executors() {
+        return Stream.of(
+                Arguments.of("callerThread", (Supplier<ImpExecutor>) ImpExecutor::callerThread),
+                Arguments.of("boundedPool(16)", (Supplier<ImpExecutor>) () -> ImpExecutor.boundedPool(16)),
+                Arguments.of("boundedPool(256)", (Supplier<ImpExecutor>) () -> ImpExecutor.boundedPool(256)),
+                Arguments.of("virtualThreadPerRequest", (Supplier<ImpExecutor>) ImpExecutor::virtualThreadPerRequest));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("executors")
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    @DisplayName("load with many concurrent connections")
+    void load_with_many_concurrent_connections(String executorName, Supplier<ImpExecutor> executorSupplier) {
+        assumeTrue(
+                !"virtualThreadPerRequest".equals(executorName) || Runtime.version().feature() >= 21,
+                "Virtual threads require Java 21");
+        var responseStatus = 200;
+        var concurrentConnections = 1_000;
+        var requestsPerConnection = 10;
+        ImpServer.httpTemplate()
+                .matchRequest(spec -> spec.id("matcherId")
+                        .priority(1)
+                        .match(ImpMatch::everything)
+                        .respondWithStatus(responseStatus)
+                        .andBodyBasedOnRequest("text/plain", r -> () -> {
+                            // simulate slow body function, which would stall dispatcher thread in caller thread mode
+                            Thread.sleep(1);
+                            return new ByteArrayInputStream(requestAndResponse.getBytes(StandardCharsets.UTF_8));
+                        })
+                        .andNoAdditionalHeaders())
+                .rejectNonMatching()
+                .withExecutor(executorSupplier.get())
+                .onRandomPort()
+                .useServer(impServer -> {
+                    var executorService = Executors.newFixedThreadPool(concurrentConnections);
+                    try {
+                        var allReadyLock = new CompletableFuture<>();
+                        var successCount = new AtomicInteger();
+                        var errorsQueue = new ConcurrentLinkedQueue<Throwable>();
+                        var futures = new CompletableFuture<?>[concurrentConnections];
+                        for (var connectionIdx = 0; connectionIdx < concurrentConnections; connectionIdx++) {
+                            futures[connectionIdx] = CompletableFuture.runAsync(
+                                    () -> {
+                                        allReadyLock.join();
+                                        for (var requestIdx = 0; requestIdx < requestsPerConnection; requestIdx++) {
+                                            try {
+                                                var response = sendHttpRequestWithBody(
+                                                                impServer.port(),
+                                                                requestAndResponse,
+                                                                HttpResponse.BodyHandlers.ofString())
+                                                        .join();
+                                                assertThat(response.statusCode()).isEqualTo(responseStatus);
+                                                successCount.incrementAndGet();
+                                            } catch (Throwable e) {
+                                                errorsQueue.add(e);
+                                            }
+                                        }
+                                    },
+                                    executorService);
+                        }
+                        var timeBefore = System.nanoTime();
+                        allReadyLock.complete("");
+                        CompletableFuture.allOf(futures).join();
+                        var elapsed = Duration.ofNanos(System.nanoTime() - timeBefore);
+                        var total = concurrentConnections * requestsPerConnection;
+                        System.out.printf(
+                                "%s - %d of %d requests over %d concurrent connections succeeded in %s (%.0f req/s),"
+                                        + " %d errors%n",
+                                executorName,
+                                successCount.get(),
+                                total,
+                                concurrentConnections,
+                                elapsed,
+                                successCount.get() / (elapsed.toNanos() / 1_000_000_000.0),
+                                errorsQueue.size());
+                        if (!errorsQueue.isEmpty()) {
+                            throw new AssertionError("There were errors during load test", errorsQueue.peek());
+                        }
+                        assertThat(successCount.get()).isEqualTo(total);
+                    } finally {
+                        executorService.shutdownNow();
+                    }
+                });
+    }
 }